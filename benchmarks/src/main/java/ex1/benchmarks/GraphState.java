@@ -0,0 +1,73 @@
+package ex1.benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+
+/**
+ * This class holds a generated graph for the benchmarks that do not change it,
+ * and a fixed set of random queries (pairs of keys) that the benchmarks cycle through.
+ * Half of the pairs are edges of the graph, so hasEdge and getEdge see both answers.
+ * The graph is generated once per trial, for each shape and size.
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+
+	static final int QUERIES = 1 << 12;
+
+	@Param({Graphs.RANDOM, Graphs.GRID, Graphs.SCALE_FREE})
+	public String shape;
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int nodes;
+
+	WGraph_DS graph;
+	final int[] sources = new int[QUERIES];
+	final int[] targets = new int[QUERIES];
+	private int next;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		graph = Graphs.generate(shape, nodes, 1);
+		Random random = new Random(2);
+		for (int q = 0; q < QUERIES; q++) {
+			sources[q] = random.nextInt(nodes);
+			targets[q] = random.nextInt(nodes);
+			if (q % 2 == 0) {
+				targets[q] = neighbor(sources[q], random, targets[q]);
+			}
+		}
+	}
+
+	/**
+	 * Returns a random neighbor of the given node, or the given default if it has none.
+	 */
+	private int neighbor(int key, Random random, int otherwise) {
+		if (graph.getV(key) == null || graph.getV(key).isEmpty()) {
+			return otherwise;
+		}
+		int skip = random.nextInt(graph.getV(key).size());
+		for (node_info ni: graph.getV(key)) {
+			if (skip-- == 0) {
+				return ni.getKey();
+			}
+		}
+		return otherwise;
+	}
+
+	/**
+	 * Returns the index of the next query in sources and targets.
+	 */
+	int nextQuery() {
+		int q = next;
+		next = (next + 1) & (QUERIES - 1);
+		return q;
+	}
+}
@@ -0,0 +1,87 @@
+package ex1.benchmarks;
+
+import java.util.Random;
+
+import ex1.src.WGraph_Builder;
+import ex1.src.WGraph_DS;
+
+/**
+ * This class generates the graphs of the benchmarks, with the keys 0..n-1 and random weights in [1, 10):
+ * random - n nodes and 2n random edges (average degree 4),
+ * grid - a square grid of n nodes, each connected to its right and lower neighbors,
+ * scale-free - a Barabasi-Albert graph, where each new node connects to 2 nodes picked by their degree.
+ * The graphs are built with WGraph_Builder, so even 10^7 nodes take seconds.
+ */
+final class Graphs {
+
+	static final String RANDOM = "random";
+	static final String GRID = "grid";
+	static final String SCALE_FREE = "scale-free";
+
+	// The number of edges of each new node in the scale-free graph
+	private static final int ATTACHED_EDGES = 2;
+
+	private Graphs() {
+	}
+
+	/**
+	 * Generates a graph of the given shape.
+	 * @param String shape - RANDOM, GRID or SCALE_FREE
+	 * @param int nodes
+	 * @param long seed
+	 * @return WGraph_DS
+	 */
+	static WGraph_DS generate(String shape, int nodes, long seed) {
+		Random random = new Random(seed);
+		WGraph_Builder builder = new WGraph_Builder(nodes, 2 * nodes);
+		for (int key = 0; key < nodes; key++) {
+			builder.addNode(key);
+		}
+		switch (shape) {
+		case RANDOM:
+			for (int e = 0; e < 2 * nodes; e++) {
+				builder.addEdge(random.nextInt(nodes), random.nextInt(nodes), weight(random));
+			}
+			break;
+		case GRID:
+			int side = (int) Math.ceil(Math.sqrt(nodes));
+			for (int key = 0; key < nodes; key++) {
+				if ((key + 1) % side != 0 && key + 1 < nodes) {
+					builder.addEdge(key, key + 1, weight(random));
+				}
+				if (key + side < nodes) {
+					builder.addEdge(key, key + side, weight(random));
+				}
+			}
+			break;
+		case SCALE_FREE:
+			// Each edge puts both its nodes here, so a uniform pick is a pick by degree
+			int[] endpoints = new int[2 * ATTACHED_EDGES * nodes + 2 * ATTACHED_EDGES * ATTACHED_EDGES];
+			int size = 0;
+			for (int u = 0; u <= ATTACHED_EDGES && u < nodes; u++) {
+				for (int v = u + 1; v <= ATTACHED_EDGES && v < nodes; v++) {
+					builder.addEdge(u, v, weight(random));
+					endpoints[size++] = u;
+					endpoints[size++] = v;
+				}
+			}
+			for (int u = ATTACHED_EDGES + 1; u < nodes; u++) {
+				int edges = size;
+				for (int e = 0; e < ATTACHED_EDGES; e++) {
+					int v = endpoints[random.nextInt(edges)];
+					builder.addEdge(u, v, weight(random));
+					endpoints[size++] = u;
+					endpoints[size++] = v;
+				}
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("unknown graph shape " + shape);
+		}
+		return builder.build();
+	}
+
+	private static double weight(Random random) {
+		return 1 + 9 * random.nextDouble();
+	}
+}
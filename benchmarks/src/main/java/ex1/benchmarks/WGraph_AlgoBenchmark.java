@@ -0,0 +1,94 @@
+package ex1.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+
+/**
+ * Benchmarks of the WGraph_Algo queries, in operations per second.
+ * The queries run on the cached snapshot of an unchanged graph, with the query cache disabled (the default);
+ * isConnectedAfterChange removes and restores an edge first, so it measures the snapshot and components rebuild.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WGraph_AlgoBenchmark {
+
+	/**
+	 * This class holds the algorithms over the generated graph.
+	 */
+	@State(Scope.Thread)
+	public static class Algo {
+
+		WGraph_Algo algo;
+
+		@Setup(Level.Trial)
+		public void init(GraphState state) {
+			algo = new WGraph_Algo(state.graph);
+		}
+	}
+
+	/**
+	 * This class holds the algorithms over a copy of the generated graph that the benchmarks may change.
+	 */
+	@State(Scope.Thread)
+	public static class MutableAlgo {
+
+		WGraph_DS graph;
+		WGraph_Algo algo;
+
+		@Setup(Level.Iteration)
+		public void copy(GraphState state) {
+			graph = new WGraph_DS(state.graph);
+			algo = new WGraph_Algo(graph);
+		}
+	}
+
+	@Benchmark
+	public double shortestPathDist(GraphState state, Algo algo) {
+		int q = state.nextQuery();
+		return algo.algo.shortestPathDist(state.sources[q], state.targets[q]);
+	}
+
+	@Benchmark
+	public List<node_info> shortestPath(GraphState state, Algo algo) {
+		int q = state.nextQuery();
+		return algo.algo.shortestPath(state.sources[q], state.targets[q]);
+	}
+
+	@Benchmark
+	public boolean isConnected(Algo algo) {
+		return algo.algo.isConnected();
+	}
+
+	@Benchmark
+	public boolean isConnectedAfterChange(GraphState state, MutableAlgo mutable) {
+		// The even queries are edges of the graph (when the source has any)
+		int q = state.nextQuery() & ~1;
+		int node1 = state.sources[q];
+		int node2 = state.targets[q];
+		double w = mutable.graph.getEdge(node1, node2);
+		mutable.graph.removeEdge(node1, node2);
+		if (w >= 0) {
+			mutable.graph.connect(node1, node2, w);
+		}
+		return mutable.algo.isConnected();
+	}
+}
@@ -0,0 +1,78 @@
+package ex1.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ex1.src.WGraph_Concurrent;
+import ex1.src.WGraph_DS;
+import ex1.src.weighted_graph;
+
+/**
+ * Benchmarks of ingestion by 4 threads into one graph, in operations per second:
+ * WGraph_Concurrent, against WGraph_DS behind a single lock.
+ * Run with -t 1 for the single thread baseline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class WGraph_ConcurrentBenchmark {
+
+	/**
+	 * This class holds the shared graphs, with all the nodes added, created again in every iteration.
+	 */
+	@State(Scope.Benchmark)
+	public static class Graphs {
+
+		@Param({"100000", "1000000"})
+		public int nodes;
+
+		WGraph_Concurrent concurrent;
+		WGraph_DS locked;
+
+		@Setup(Level.Iteration)
+		public void create() {
+			concurrent = new WGraph_Concurrent();
+			locked = new WGraph_DS();
+			for (int key = 0; key < nodes; key++) {
+				concurrent.addNode(key);
+				locked.addNode(key);
+			}
+		}
+	}
+
+	@Benchmark
+	public weighted_graph connectConcurrent(Graphs graphs) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		graphs.concurrent.connect(random.nextInt(graphs.nodes), random.nextInt(graphs.nodes), random.nextDouble());
+		return graphs.concurrent;
+	}
+
+	@Benchmark
+	public weighted_graph connectLocked(Graphs graphs) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int node1 = random.nextInt(graphs.nodes);
+		int node2 = random.nextInt(graphs.nodes);
+		double w = random.nextDouble();
+		synchronized (graphs.locked) {
+			graphs.locked.connect(node1, node2, w);
+		}
+		return graphs.locked;
+	}
+}
@@ -0,0 +1,103 @@
+package ex1.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+
+/**
+ * Benchmarks of the WGraph_DS operations, in operations per second.
+ * The benchmarks that change the graph work on a fresh copy in every iteration.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WGraph_DSBenchmark {
+
+	/**
+	 * This class holds a copy of the generated graph that the benchmarks may change.
+	 */
+	@State(Scope.Thread)
+	public static class MutableGraph {
+
+		WGraph_DS graph;
+		// The edges of the removed node, to restore it
+		int[] neighbors = new int[16];
+		double[] weights = new double[16];
+
+		@Setup(Level.Iteration)
+		public void copy(GraphState state) {
+			graph = new WGraph_DS(state.graph);
+		}
+	}
+
+	@Benchmark
+	public boolean hasEdge(GraphState state) {
+		int q = state.nextQuery();
+		return state.graph.hasEdge(state.sources[q], state.targets[q]);
+	}
+
+	@Benchmark
+	public double getEdge(GraphState state) {
+		int q = state.nextQuery();
+		return state.graph.getEdge(state.sources[q], state.targets[q]);
+	}
+
+	/**
+	 * Connects random pairs: mostly new edges, and weight updates of the existing ones.
+	 */
+	@Benchmark
+	public int connect(GraphState state, MutableGraph mutable) {
+		int q = state.nextQuery();
+		mutable.graph.connect(state.sources[q], state.targets[q], 1 + q);
+		return mutable.graph.getMC();
+	}
+
+	/**
+	 * Removes a node and restores it with its edges, so the graph keeps its size through the iteration.
+	 * The restore costs one addNode and one connect per edge.
+	 */
+	@Benchmark
+	public node_info removeNode(GraphState state, MutableGraph mutable) {
+		WGraph_DS graph = mutable.graph;
+		int key = state.sources[state.nextQuery()];
+		int degree = 0;
+		if (graph.getV(key) != null) {
+			for (node_info ni: graph.getV(key)) {
+				if (degree == mutable.neighbors.length) {
+					mutable.neighbors = Arrays.copyOf(mutable.neighbors, 2 * degree);
+					mutable.weights = Arrays.copyOf(mutable.weights, 2 * degree);
+				}
+				mutable.neighbors[degree] = ni.getKey();
+				mutable.weights[degree++] = graph.getEdge(key, ni.getKey());
+			}
+		}
+		node_info removed = graph.removeNode(key);
+		graph.addNode(key);
+		for (int i = 0; i < degree; i++) {
+			graph.connect(key, mutable.neighbors[i], mutable.weights[i]);
+		}
+		return removed;
+	}
+
+	@Benchmark
+	public weighted_graph copy(GraphState state) {
+		return new WGraph_DS(state.graph);
+	}
+}
@@ -0,0 +1,67 @@
+package ex1.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ex1.src.WGraph_Algo;
+
+/**
+ * Benchmarks of WGraph_Algo save and load, in operations per second, on a temporary file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WGraph_FileBenchmark {
+
+	/**
+	 * This class holds the saved file, and a separate WGraph_Algo for load to replace its graph.
+	 */
+	@State(Scope.Thread)
+	public static class Files {
+
+		WGraph_Algo saver;
+		WGraph_Algo loader = new WGraph_Algo();
+		String savedFile;
+		String saveFile;
+
+		@Setup(Level.Trial)
+		public void create(GraphState state) throws IOException {
+			saver = new WGraph_Algo(state.graph);
+			savedFile = File.createTempFile("graph", ".bin").getPath();
+			saveFile = File.createTempFile("graph", ".bin").getPath();
+			saver.save(savedFile);
+		}
+
+		@TearDown(Level.Trial)
+		public void delete() {
+			new File(savedFile).delete();
+			new File(saveFile).delete();
+		}
+	}
+
+	@Benchmark
+	public boolean save(Files files) {
+		return files.saver.save(files.saveFile);
+	}
+
+	@Benchmark
+	public boolean load(Files files) {
+		return files.loader.load(files.savedFile);
+	}
+}
@@ -0,0 +1,275 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the connected components of a graph in a union-find (disjoint set) structure,
+ * with union by size and path halving, so finding the component of a node takes O(alpha(n)).
+ * On a WGraph_DS it is a graph_listener: new nodes and edges are added to the structure as they come,
+ * while a removed edge or node (which may split a component) only marks it stale.
+ * A stale structure, or on other graphs one that was built for an older Mode Count,
+ * is rebuilt on the next query, in O(V + E * alpha(n)), by walking the rows of the indexed graph
+ * in place (a WGraph_DS, a WGraph_Mapped or a CSR snapshot of any other graph),
+ * in parallel by ParallelComponents for large graphs.
+ * The graph holds it only through a WeakGraphListener, so a structure that is no longer used
+ * (with the WGraph_Algo that made it) does not keep listening.
+ * The methods are synchronized, so the graph can report changes while other threads query.
+ */
+final class ConnectedComponents implements graph_listener {
+
+	private final weighted_graph graph;
+	// The listener that the graph holds, null when this structure does not listen
+	private WeakGraphListener listener;
+	private boolean isListening;
+	// This map holds the slot of each node key
+	private IntIntHashMap slots = new IntIntHashMap();
+	private int[] parents = new int[0];
+	private int[] sizes = new int[0];
+	private int slotSize;
+	private int count;
+	private boolean isStale = true;
+	// The Mode Count of the graph the structure was built from
+	private int builtMC;
+
+	/**
+	 * Constructor that starts listening to the graph if it is a WGraph_DS.
+	 * @param weighted_graph graph
+	 */
+	ConnectedComponents(weighted_graph graph) {
+		this.graph = graph;
+		if (graph instanceof WGraph_DS) {
+			listener = WeakGraphListener.register((WGraph_DS) graph, this);
+			isListening = true;
+		}
+	}
+
+	/**
+	 * Stops listening to the graph.
+	 */
+	synchronized void detach() {
+		if (isListening) {
+			((WGraph_DS) graph).removeListener(listener);
+			listener = null;
+			isListening = false;
+			isStale = true;
+		}
+	}
+
+	/**
+	 * Returns true if the structure is up to date with the graph: a listening structure
+	 * with no pending removal is; any other one only if the graph did not change since it was built.
+	 * @return boolean
+	 */
+	synchronized boolean isCurrent() {
+		return !isStale && (isListening || builtMC == graph.getMC());
+	}
+
+	/**
+	 * Rebuilds the structure from the given indexed view of the graph if it is not up to date.
+	 * @param indexed_graph source - the graph itself, or a CSR snapshot of it
+	 */
+	synchronized void update(indexed_graph source) {
+		if (!isCurrent()) {
+			rebuild(source);
+		}
+	}
+
+	private void rebuild(indexed_graph source) {
+		builtMC = source.getMC();
+		int indexSize = source.indexSize();
+		if (indexSize >= ParallelComponents.PARALLEL_THRESHOLD) {
+			rebuildParallel(source);
+			return;
+		}
+		// The slots are numbered in index order, skipping the free indexes
+		int[] slotOf = new int[indexSize];
+		slots = new IntIntHashMap(source.nodeSize());
+		parents = new int[Math.max(source.nodeSize(), 16)];
+		sizes = new int[parents.length];
+		slotSize = 0;
+		for (int i = 0; i < indexSize; i++) {
+			node_info node = source.nodeAt(i);
+			if (node != null) {
+				slotOf[i] = slotSize;
+				slots.put(node.getKey(), slotSize);
+				parents[slotSize] = slotSize;
+				sizes[slotSize++] = 1;
+			}
+		}
+		count = slotSize;
+		Joiner joiner = new Joiner(slotOf);
+		for (int i = 0; i < indexSize; i++) {
+			joiner.row = i;
+			source.forEachEdgeAt(i, joiner);
+		}
+		isStale = false;
+	}
+
+	/**
+	 * Rebuilds the structure from the labels of ParallelComponents:
+	 * every node is hung directly under its root, the smallest index of its component.
+	 */
+	private void rebuildParallel(indexed_graph source) {
+		int indexSize = source.indexSize();
+		int[] labels = ParallelComponents.label(source);
+		// A label is the index of a node, so the slots of the labels are numbered before they are used
+		int[] slotOf = new int[indexSize];
+		slots = new IntIntHashMap(source.nodeSize());
+		slotSize = 0;
+		for (int i = 0; i < indexSize; i++) {
+			node_info node = source.nodeAt(i);
+			if (node != null) {
+				slotOf[i] = slotSize;
+				slots.put(node.getKey(), slotSize++);
+			}
+		}
+		parents = new int[Math.max(slotSize, 16)];
+		sizes = new int[parents.length];
+		count = 0;
+		for (int i = 0; i < indexSize; i++) {
+			if (source.nodeAt(i) != null) {
+				int root = slotOf[labels[i]];
+				parents[slotOf[i]] = root;
+				sizes[root]++;
+				if (labels[i] == i) {
+					count++;
+				}
+			}
+		}
+		isStale = false;
+	}
+
+	/**
+	 * Returns the root slot of the given slot, halving the path on the way.
+	 */
+	private int find(int slot) {
+		while (parents[slot] != slot) {
+			parents[slot] = parents[parents[slot]];
+			slot = parents[slot];
+		}
+		return slot;
+	}
+
+	private void union(int slot1, int slot2) {
+		int root1 = find(slot1);
+		int root2 = find(slot2);
+		if (root1 == root2) {
+			return;
+		}
+		// The smaller tree is hung under the root of the larger one
+		if (sizes[root1] < sizes[root2]) {
+			int root = root1;
+			root1 = root2;
+			root2 = root;
+		}
+		parents[root2] = root1;
+		sizes[root1] += sizes[root2];
+		count--;
+	}
+
+	/**
+	 * Returns the id of the component of the given node: the slot of its root,
+	 * the same for all the nodes of the component until the graph changes.
+	 * @param int key
+	 * @return int id, -1 if there is no such node
+	 */
+	synchronized int componentOf(int key) {
+		int slot = slots.get(key);
+		return slot == IntIntHashMap.NO_VALUE ? -1 : find(slot);
+	}
+
+	/**
+	 * Returns true if and only if both nodes are in the graph and in the same component.
+	 */
+	synchronized boolean sameComponent(int key1, int key2) {
+		int slot1 = slots.get(key1);
+		int slot2 = slots.get(key2);
+		return slot1 != IntIntHashMap.NO_VALUE && slot2 != IntIntHashMap.NO_VALUE && find(slot1) == find(slot2);
+	}
+
+	/**
+	 * Returns the number of components.
+	 */
+	synchronized int count() {
+		return count;
+	}
+
+	/**
+	 * Returns the sizes of all the components, largest first.
+	 */
+	synchronized int[] sizes() {
+		int[] result = new int[count];
+		int c = 0;
+		for (int slot = 0; slot < slotSize; slot++) {
+			if (parents[slot] == slot) {
+				result[c++] = sizes[slot];
+			}
+		}
+		Arrays.sort(result);
+		for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+			int size = result[i];
+			result[i] = result[j];
+			result[j] = size;
+		}
+		return result;
+	}
+
+	/**
+	 * This class joins the edges of one row at a time, so visiting a row allocates nothing.
+	 */
+	private final class Joiner implements edge_visitor {
+
+		private final int[] slotOf;
+		private int row;
+
+		private Joiner(int[] slotOf) {
+			this.slotOf = slotOf;
+		}
+
+		@Override
+		public void visit(int neighbor, double w) {
+			// Each undirected edge is in the rows of both its nodes, join it once
+			if (neighbor > row) {
+				union(slotOf[row], slotOf[neighbor]);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void nodeAdded(int key) {
+		if (isStale) {
+			return;
+		}
+		if (slotSize == parents.length) {
+			parents = Arrays.copyOf(parents, 2 * parents.length);
+			sizes = Arrays.copyOf(sizes, parents.length);
+		}
+		int slot = slotSize++;
+		parents[slot] = slot;
+		sizes[slot] = 1;
+		slots.put(key, slot);
+		count++;
+	}
+
+	@Override
+	public synchronized void nodeRemoved(node_info node) {
+		isStale = true;
+	}
+
+	@Override
+	public synchronized void edgeAdded(int node1, int node2, double w) {
+		if (!isStale) {
+			union(slots.get(node1), slots.get(node2));
+		}
+	}
+
+	@Override
+	public void edgeUpdated(int node1, int node2, double oldWeight, double w) {
+		// A weight does not change the components
+	}
+
+	@Override
+	public synchronized void edgeRemoved(int node1, int node2, double w) {
+		isStale = true;
+	}
+}
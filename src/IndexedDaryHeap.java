@@ -0,0 +1,147 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * This class represents an indexed d-ary min heap of int items (dense node indices)
+ * with double priorities, that supports decrease-key.
+ * Each item is in the heap at most once, so the heap never grows beyond
+ * the number of nodes, and there are no stale entries or comparator calls.
+ * A higher arity (4 by default in WGraph_Algo) makes the heap shallower,
+ * which favours the many decrease-key calls of Dijkstra over the polls.
+ */
+final class IndexedDaryHeap {
+
+	private final int arity;
+	// The items in heap order, with their priorities next to them
+	private int[] items = new int[0];
+	private double[] priorities = new double[0];
+	// positions[item] is the position of item in the heap, -1 if it is not in the heap
+	private int[] positions = new int[0];
+	private int size;
+
+	/**
+	 * Constructor that sets the number of children of each heap node.
+	 * @param int arity - at least 2
+	 */
+	IndexedDaryHeap(int arity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("arity must be at least 2: " + arity);
+		}
+		this.arity = arity;
+	}
+
+	int arity() {
+		return arity;
+	}
+
+	/**
+	 * Empties the heap and makes room for the items 0..n-1.
+	 * Runs in O(size) and not O(n), unless the heap has to grow.
+	 * @param int n - number of items
+	 */
+	void reset(int n) {
+		for (int i = 0; i < size; i++) {
+			positions[items[i]] = -1;
+		}
+		size = 0;
+		if (positions.length < n) {
+			positions = new int[n];
+			Arrays.fill(positions, -1);
+			items = new int[n];
+			priorities = new double[n];
+		}
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean contains(int item) {
+		return positions[item] >= 0;
+	}
+
+	/**
+	 * Returns the lowest priority in the heap.
+	 * The heap must not be empty.
+	 */
+	double peekPriority() {
+		return priorities[0];
+	}
+
+	/**
+	 * Adds the item to the heap, or lowers its priority if it is already in the heap
+	 * and the new priority is lower.
+	 * @param int item
+	 * @param double priority
+	 */
+	void pushOrDecrease(int item, double priority) {
+		int position = positions[item];
+		if (position < 0) {
+			position = size++;
+		}
+		else if (priority >= priorities[position]) {
+			return;
+		}
+		siftUp(position, item, priority);
+	}
+
+	/**
+	 * Removes and returns the item with the lowest priority.
+	 * The heap must not be empty.
+	 * @return int item
+	 */
+	int poll() {
+		int top = items[0];
+		positions[top] = -1;
+		if (--size > 0) {
+			siftDown(0, items[size], priorities[size]);
+		}
+		return top;
+	}
+
+	private void siftUp(int position, int item, double priority) {
+		while (position > 0) {
+			int parent = (position - 1) / arity;
+			if (priorities[parent] <= priority) {
+				break;
+			}
+			place(position, items[parent], priorities[parent]);
+			position = parent;
+		}
+		place(position, item, priority);
+	}
+
+	private void siftDown(int position, int item, double priority) {
+		while (true) {
+			int first = position * arity + 1;
+			if (first >= size) {
+				break;
+			}
+			// Find the child with the lowest priority
+			int best = first;
+			int last = Math.min(first + arity, size);
+			for (int child = first + 1; child < last; child++) {
+				if (priorities[child] < priorities[best]) {
+					best = child;
+				}
+			}
+			if (priorities[best] >= priority) {
+				break;
+			}
+			place(position, items[best], priorities[best]);
+			position = best;
+		}
+		place(position, item, priority);
+	}
+
+	private void place(int position, int item, double priority) {
+		items[position] = item;
+		priorities[position] = priority;
+		positions[item] = position;
+	}
+}
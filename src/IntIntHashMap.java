@@ -0,0 +1,188 @@
+package ex1.src;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * This class represents an open-addressing hash map from int keys to
+ * non-negative int values (usually dense node indices).
+ * It uses linear probing with backward-shift deletion,
+ * so no boxing and no tombstones are needed.
+ */
+final class IntIntHashMap implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// The value returned by get when the key is missing
+	static final int NO_VALUE = -1;
+
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private int[] keys;
+	// Holds value + 1 in each slot, 0 marks an empty slot
+	private int[] values;
+	private int size;
+	private int mask;
+	private int resizeAt;
+
+	/**
+	 * Default constructor.
+	 */
+	IntIntHashMap() {
+		this(16);
+	}
+
+	/**
+	 * Constructor that presizes the map for the expected number of keys.
+	 * @param int expectedSize
+	 */
+	IntIntHashMap(int expectedSize) {
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	/**
+	 * Returns the value of the given key.
+	 * @param int key
+	 * @return int value, NO_VALUE if none.
+	 */
+	int get(int key) {
+		int slot = hash(key) & mask;
+		while (values[slot] != 0) {
+			if (keys[slot] == key) {
+				return values[slot] - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return NO_VALUE;
+	}
+
+	/**
+	 * Returns true if and only if the map contains the given key.
+	 * @param int key
+	 * @return boolean
+	 */
+	boolean containsKey(int key) {
+		return get(key) != NO_VALUE;
+	}
+
+	/**
+	 * Puts the given key and value (value >= 0) in the map.
+	 * @param int key
+	 * @param int value
+	 * @return int the previous value, NO_VALUE if none.
+	 */
+	int put(int key, int value) {
+		int slot = hash(key) & mask;
+		while (values[slot] != 0) {
+			if (keys[slot] == key) {
+				int previous = values[slot] - 1;
+				values[slot] = value + 1;
+				return previous;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value + 1;
+		if (++size > resizeAt) {
+			rehash(values.length << 1);
+		}
+		return NO_VALUE;
+	}
+
+	/**
+	 * Removes the given key from the map.
+	 * @param int key
+	 * @return int the removed value, NO_VALUE if none.
+	 */
+	int remove(int key) {
+		int slot = hash(key) & mask;
+		while (values[slot] != 0) {
+			if (keys[slot] == key) {
+				int previous = values[slot] - 1;
+				shiftBack(slot);
+				size--;
+				return previous;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return NO_VALUE;
+	}
+
+	/**
+	 * Returns the number of keys in the map.
+	 * @return int size
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all the keys from the map.
+	 */
+	void clear() {
+		Arrays.fill(values, 0);
+		size = 0;
+	}
+
+	/**
+	 * Private function that closes the gap at the given slot
+	 * by moving back the entries that probed over it.
+	 * @param int gap
+	 */
+	private void shiftBack(int gap) {
+		int slot = gap;
+		while (true) {
+			slot = (slot + 1) & mask;
+			if (values[slot] == 0) {
+				break;
+			}
+			int home = hash(keys[slot]) & mask;
+			// Move the entry if its home slot is not between the gap and its slot
+			if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+				keys[gap] = keys[slot];
+				values[gap] = values[slot];
+				gap = slot;
+			}
+		}
+		values[gap] = 0;
+	}
+
+	private void rehash(int newLength) {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(newLength);
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != 0) {
+				int slot = hash(oldKeys[i]) & mask;
+				while (values[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int length) {
+		keys = new int[length];
+		values = new int[length];
+		mask = length - 1;
+		resizeAt = (int) (length * LOAD_FACTOR);
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		int length = 16;
+		while (length * LOAD_FACTOR < expectedSize && length < (1 << 30)) {
+			length <<= 1;
+		}
+		return length;
+	}
+
+	/**
+	 * Mixes the key bits so sequential keys spread over the table.
+	 */
+	static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
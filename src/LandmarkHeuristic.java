@@ -0,0 +1,100 @@
+package ex1.src;
+
+/**
+ * This class implements distance_heuristic interface
+ * with the ALT heuristic (A*, Landmarks, Triangle inequality).
+ * For a few landmark nodes it holds the distance from every node to each landmark.
+ * By the triangle inequality, for any landmark L:
+ * dist(v, t) >= |dist(L, t) - dist(L, v)|,
+ * so the largest of these differences is a lower bound that needs no coordinates.
+ * It is created by WGraph_Algo.landmarkHeuristic and is valid for the graph
+ * as it was at that time; after the graph changes the A* search of WGraph_Algo
+ * does not use it (it searches as Dijkstra algorithm), so it should be created again.
+ */
+public class LandmarkHeuristic implements distance_heuristic {
+
+	// Relative slack that keeps the bound admissible despite floating point rounding
+	private static final double ROUNDING_SLACK = 1e-9;
+
+	private final indexed_graph graph;
+	private final int[] landmarks;
+	// distances[i * landmarks.length + l] is the distance between node index i and landmark l
+	private final double[] distances;
+
+	/**
+	 * Constructor that takes the landmark distances computed by WGraph_Algo.
+	 * @param indexed_graph graph - the graph the distances were computed on, a snapshot or a graph searched in place
+	 * @param int[] landmarks - node indices of the landmarks
+	 * @param double[] distances - node-major distance table
+	 */
+	LandmarkHeuristic(indexed_graph graph, int[] landmarks, double[] distances) {
+		this.graph = graph;
+		this.landmarks = landmarks;
+		this.distances = distances;
+	}
+
+	/**
+	 * Returns the keys of the landmark nodes.
+	 * @return int[] keys
+	 */
+	public int[] getLandmarks() {
+		int[] keys = new int[landmarks.length];
+		for (int l = 0; l < landmarks.length; l++) {
+			keys[l] = graph.keyAt(landmarks[l]);
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns a lower bound of the shortest path distance between node and target.
+	 * Returns 0 for nodes that were not in the graph when the landmarks were computed.
+	 * @param int node - key
+	 * @param int target - key
+	 * @return double
+	 */
+	@Override
+	public double estimate(int node, int target) {
+		int nodeIndex = graph.indexOf(node);
+		int targetIndex = graph.indexOf(target);
+		if (nodeIndex < 0 || targetIndex < 0) {
+			return 0;
+		}
+		return estimateIndex(nodeIndex, targetIndex);
+	}
+
+	/**
+	 * Returns true if and only if the distances were computed on the given graph,
+	 * so the A* search can call estimateIndex with its own node indices.
+	 */
+	boolean isFor(indexed_graph other) {
+		return graph == other;
+	}
+
+	/**
+	 * Returns the lower bound between two node indices.
+	 * If a landmark reaches only one of them they are in different components,
+	 * and the bound is positive infinity.
+	 */
+	double estimateIndex(int node, int target) {
+		int count = landmarks.length;
+		int nodeBase = node * count;
+		int targetBase = target * count;
+		double best = 0;
+		for (int l = 0; l < count; l++) {
+			double nodeDistance = distances[nodeBase + l];
+			double targetDistance = distances[targetBase + l];
+			if (nodeDistance == Double.POSITIVE_INFINITY || targetDistance == Double.POSITIVE_INFINITY) {
+				if (nodeDistance != targetDistance) {
+					return Double.POSITIVE_INFINITY;
+				}
+				continue;
+			}
+			double bound = Math.abs(nodeDistance - targetDistance)
+					- ROUNDING_SLACK * Math.max(nodeDistance, targetDistance);
+			if (bound > best) {
+				best = bound;
+			}
+		}
+		return best;
+	}
+}
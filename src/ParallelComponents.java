@@ -0,0 +1,106 @@
+package ex1.src;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * This class labels the connected components of a large indexed graph in parallel,
+ * with a lock-free union-find over an AtomicIntegerArray of parents:
+ * the rows (read in place with forEachEdgeAt) are split among the threads of the common ForkJoinPool,
+ * every edge joins the roots of its two nodes by a compareAndSet that hangs the larger root index
+ * under the smaller one (so no cycle can form), and find halves the paths with compareAndSet as well.
+ * The label of a node is the smallest node index of its component, a free index is labelled by itself.
+ * ConnectedComponents uses it for graphs of at least PARALLEL_THRESHOLD nodes.
+ */
+final class ParallelComponents {
+
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+	// Rows per parallel task, each task visits its rows with one joiner
+	private static final int CHUNK_SIZE = 1024;
+
+	private ParallelComponents() {
+	}
+
+	/**
+	 * Returns the component label of every dense index of the graph.
+	 * @param indexed_graph graph
+	 * @return int[] labels - the smallest node index of the component of each index
+	 */
+	static int[] label(indexed_graph graph) {
+		int n = graph.indexSize();
+		int[] identity = new int[n];
+		for (int i = 0; i < n; i++) {
+			identity[i] = i;
+		}
+		AtomicIntegerArray parents = new AtomicIntegerArray(identity);
+		IntStream.range(0, (n + CHUNK_SIZE - 1) / CHUNK_SIZE).parallel().forEach(chunk -> {
+			Joiner joiner = new Joiner(parents);
+			int end = Math.min(n, (chunk + 1) * CHUNK_SIZE);
+			for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+				joiner.row = i;
+				graph.forEachEdgeAt(i, joiner);
+			}
+		});
+		int[] labels = new int[n];
+		IntStream.range(0, n).parallel().forEach(i -> labels[i] = find(parents, i));
+		return labels;
+	}
+
+	/**
+	 * Returns the root of x, halving the path on the way.
+	 * A parent is never larger than its child, so a stale read only points to an older ancestor.
+	 */
+	private static int find(AtomicIntegerArray parents, int x) {
+		while (true) {
+			int parent = parents.get(x);
+			if (parent == x) {
+				return x;
+			}
+			int grandparent = parents.get(parent);
+			if (parent != grandparent) {
+				parents.compareAndSet(x, parent, grandparent);
+			}
+			x = grandparent;
+		}
+	}
+
+	private static void union(AtomicIntegerArray parents, int a, int b) {
+		while (true) {
+			a = find(parents, a);
+			b = find(parents, b);
+			if (a == b) {
+				return;
+			}
+			if (a < b) {
+				int root = a;
+				a = b;
+				b = root;
+			}
+			// Only a root can be hung, if a stopped being a root in the meantime try again
+			if (parents.compareAndSet(a, a, b)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * This class joins the edges of one row at a time, so visiting a row allocates nothing.
+	 */
+	private static final class Joiner implements edge_visitor {
+
+		private final AtomicIntegerArray parents;
+		private int row;
+
+		private Joiner(AtomicIntegerArray parents) {
+			this.parents = parents;
+		}
+
+		@Override
+		public void visit(int neighbor, double w) {
+			// Each undirected edge is in the rows of both its nodes, join it once
+			if (neighbor > row) {
+				union(parents, row, neighbor);
+			}
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package ex1.src;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class holds the results of the shortestPathDist and shortestPath queries of WGraph_Algo.
+ * The (src, dest) results are kept in a LinkedHashMap in access order, so the least recently
+ * used one is evicted when the cache is full. A src that misses HOT_SOURCE_QUERIES times
+ * is a hot source, and its whole shortest path tree is kept in a second, smaller LRU map,
+ * which then answers every dest of that src.
+ * All the results belong to one searched graph, a CSR snapshot or a graph searched in place:
+ * the snapshot changes exactly when the Mode Count of the graph moves
+ * (and a graph searched in place never changes), or when the graph is replaced, and then the cache is emptied.
+ * The methods are synchronized, so the queries of several threads can share the cache.
+ */
+final class QueryCache {
+
+	static final int HOT_SOURCE_QUERIES = 8;
+
+	private final int capacity;
+	private final int treeCapacity;
+	private final LinkedHashMap<Long, PairResult> pairs;
+	private final LinkedHashMap<Integer, ShortestPathTree> trees;
+	// The number of misses of each src since the last change
+	private final IntIntHashMap sourceMisses = new IntIntHashMap();
+	private indexed_graph searched;
+	private long hits;
+	private long misses;
+
+	/**
+	 * Constructor that sets the number of (src, dest) results and of trees the cache keeps.
+	 * @param int capacity - at least 1
+	 * @param int treeCapacity - 0 to keep no trees
+	 */
+	QueryCache(final int capacity, final int treeCapacity) {
+		this.capacity = capacity;
+		this.treeCapacity = treeCapacity;
+		pairs = new LinkedHashMap<Long, PairResult>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, PairResult> eldest) {
+				return size() > capacity;
+			}
+		};
+		trees = new LinkedHashMap<Integer, ShortestPathTree>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, ShortestPathTree> eldest) {
+				return size() > treeCapacity;
+			}
+		};
+	}
+
+	int capacity() {
+		return capacity;
+	}
+
+	synchronized long hits() {
+		return hits;
+	}
+
+	synchronized long misses() {
+		return misses;
+	}
+
+	/**
+	 * Empties the cache if its results belong to another searched graph than the given one.
+	 */
+	private void check(indexed_graph current) {
+		if (searched != current) {
+			pairs.clear();
+			trees.clear();
+			sourceMisses.clear();
+			searched = current;
+		}
+	}
+
+	private static long pairKey(int src, int dest) {
+		return ((long) src << 32) | (dest & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Returns the cached distance between src and dest.
+	 * @return double distance (-1 if there is no path), NaN if it is not cached
+	 */
+	synchronized double distance(indexed_graph current, int src, int dest) {
+		check(current);
+		ShortestPathTree tree = trees.get(src);
+		if (tree != null) {
+			hits++;
+			return tree.distance(dest);
+		}
+		PairResult entry = pairs.get(pairKey(src, dest));
+		if (entry != null) {
+			hits++;
+			return entry.distance;
+		}
+		misses++;
+		return Double.NaN;
+	}
+
+	/**
+	 * Returns the cached shortest path between src and dest.
+	 * @return PairResult with the path (null if there is no path), null if it is not cached
+	 */
+	synchronized PairResult path(indexed_graph current, int src, int dest) {
+		check(current);
+		ShortestPathTree tree = trees.get(src);
+		if (tree != null) {
+			hits++;
+			return new PairResult(tree.distance(dest), tree.path(dest));
+		}
+		PairResult entry = pairs.get(pairKey(src, dest));
+		if (entry != null && entry.hasPath) {
+			hits++;
+			return new PairResult(entry.distance, entry.path == null ? null : new ArrayList<>(entry.path));
+		}
+		misses++;
+		return null;
+	}
+
+	/**
+	 * Counts a miss of src, and returns true when src just became a hot source
+	 * whose tree should be computed and added with putTree.
+	 */
+	synchronized boolean isHotSource(indexed_graph current, int src) {
+		check(current);
+		if (treeCapacity == 0) {
+			return false;
+		}
+		int count = sourceMisses.get(src);
+		count = count == IntIntHashMap.NO_VALUE ? 1 : count + 1;
+		// Bound the counters, as the tree maps are bounded
+		if (sourceMisses.size() >= 8 * capacity) {
+			sourceMisses.clear();
+		}
+		sourceMisses.put(src, count);
+		return count == HOT_SOURCE_QUERIES;
+	}
+
+	synchronized void putDistance(indexed_graph current, int src, int dest, double distance) {
+		check(current);
+		long key = pairKey(src, dest);
+		if (!pairs.containsKey(key)) {
+			pairs.put(key, new PairResult(distance));
+		}
+	}
+
+	synchronized void putPath(indexed_graph current, int src, int dest, double distance, List<node_info> path) {
+		check(current);
+		pairs.put(pairKey(src, dest), new PairResult(distance, path == null ? null : new ArrayList<>(path)));
+	}
+
+	synchronized void putTree(indexed_graph current, ShortestPathTree tree) {
+		check(current);
+		if (tree != null && tree.isFor(current)) {
+			trees.put(tree.getSrc(), tree);
+		}
+	}
+
+	/**
+	 * This class holds one cached (src, dest) result.
+	 */
+	static final class PairResult {
+
+		final double distance;
+		final List<node_info> path;
+		// False if only the distance was queried
+		final boolean hasPath;
+
+		private PairResult(double distance) {
+			this.distance = distance;
+			this.path = null;
+			this.hasPath = false;
+		}
+
+		private PairResult(double distance, List<node_info> path) {
+			this.distance = distance;
+			this.path = path;
+			this.hasPath = true;
+		}
+	}
+}
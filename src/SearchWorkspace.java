@@ -0,0 +1,122 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the per-search state of the shortest path algorithms
+ * in flat arrays indexed by the dense node index of a WGraph_CSR.
+ * Instead of clearing the arrays before each search, every search gets a new
+ * generation number, and an entry is valid only if its stamp equals the generation.
+ * So starting a search costs O(1) and not O(V).
+ * A workspace is used by one search at a time (see SearchWorkspaces).
+ */
+final class SearchWorkspace {
+
+	// Capacity that a workspace never shrinks below
+	private static final int MIN_CAPACITY = 1024;
+
+	private double[] distances = new double[0];
+	private int[] parents = new int[0];
+	// Heuristic estimates of A*, valid when the node is reached
+	private double[] estimates = new double[0];
+	// reached[i] == generation iff distances[i] and parents[i] are valid
+	private int[] reached = new int[0];
+	// settled[i] == generation iff node i was polled from the queue
+	private int[] settled = new int[0];
+	// Priority queue used by Dijkstra, created for the requested arity
+	private IndexedDaryHeap heap;
+	// Workspace of the backward side of a bidirectional search
+	private SearchWorkspace backward;
+	private int generation;
+
+	/**
+	 * Starts a new search over a graph with n nodes.
+	 * @param int n - number of nodes
+	 */
+	void begin(int n) {
+		// Grow for a larger graph, and shrink for a much smaller one so a workspace does not keep the arrays of the largest graph
+		boolean shrink = reached.length / 4 > Math.max(n, MIN_CAPACITY);
+		if (reached.length < n || shrink) {
+			int capacity = shrink ? n : Math.max(n, reached.length + (reached.length >> 1));
+			distances = new double[capacity];
+			parents = new int[capacity];
+			estimates = new double[capacity];
+			reached = new int[capacity];
+			settled = new int[capacity];
+			generation = 0;
+			if (shrink) {
+				heap = null;
+			}
+		}
+		// When the generation wraps around the stamps must be cleared
+		if (++generation == Integer.MAX_VALUE) {
+			Arrays.fill(reached, 0);
+			Arrays.fill(settled, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * Returns the current distance of node i, positive infinity if it was not reached.
+	 */
+	double distance(int i) {
+		return reached[i] == generation ? distances[i] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Returns the parent of node i on the current shortest path, -1 for the src node.
+	 */
+	int parent(int i) {
+		return parents[i];
+	}
+
+	/**
+	 * Sets the distance and parent of node i.
+	 */
+	void reach(int i, double distance, int parent) {
+		reached[i] = generation;
+		distances[i] = distance;
+		parents[i] = parent;
+	}
+
+	double estimate(int i) {
+		return estimates[i];
+	}
+
+	void setEstimate(int i, double estimate) {
+		estimates[i] = estimate;
+	}
+
+	boolean isReached(int i) {
+		return reached[i] == generation;
+	}
+
+	boolean isSettled(int i) {
+		return settled[i] == generation;
+	}
+
+	void settle(int i) {
+		settled[i] = generation;
+	}
+
+	/**
+	 * Returns the companion workspace used by the backward side of a bidirectional search.
+	 */
+	SearchWorkspace backward() {
+		if (backward == null) {
+			backward = new SearchWorkspace();
+		}
+		return backward;
+	}
+
+	/**
+	 * Returns an empty indexed heap with the given arity for the current search.
+	 */
+	IndexedDaryHeap heap(int arity) {
+		if (heap == null || heap.arity() != arity) {
+			heap = new IndexedDaryHeap(arity);
+		}
+		heap.reset(reached.length);
+		return heap;
+	}
+}
@@ -0,0 +1,40 @@
+package ex1.src;
+
+/**
+ * This class holds the search workspaces of one WGraph_Algo or WGraph_CH.
+ * A search takes a workspace with acquire() and gives it back with release(),
+ * so the threads that query at once never share one, and a few idle ones are kept for the next searches.
+ * The workspaces belong to their owner and are collected with it, unlike per-thread ones
+ * that every thread (the common pool workers too) would keep for the largest graph it ever searched.
+ */
+final class SearchWorkspaces {
+
+	// Idle workspaces kept at most, more are created when more threads search at once
+	private static final int MAX_IDLE = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	private final SearchWorkspace[] idle = new SearchWorkspace[MAX_IDLE];
+	private int idleCount;
+
+	/**
+	 * Returns an idle workspace, or a new one if there is none.
+	 * @return SearchWorkspace
+	 */
+	synchronized SearchWorkspace acquire() {
+		if (idleCount == 0) {
+			return new SearchWorkspace();
+		}
+		SearchWorkspace workspace = idle[--idleCount];
+		idle[idleCount] = null;
+		return workspace;
+	}
+
+	/**
+	 * Gives back a workspace that acquire returned, it must not be used after that.
+	 * @param SearchWorkspace workspace
+	 */
+	synchronized void release(SearchWorkspace workspace) {
+		if (idleCount < idle.length) {
+			idle[idleCount++] = workspace;
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package ex1.src;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents the shortest path tree of a src node,
+ * as returned by WGraph_Algo.shortestPathTree.
+ * The distances and parents are dense arrays indexed by the node index of
+ * the graph the search ran on, a CSR snapshot or a graph searched in place (see indexOf and keyAt).
+ * A node the search did not settle has an infinite distance and parent -1.
+ */
+public class ShortestPathTree {
+
+	private final indexed_graph graph;
+	private final int src;
+	private final double[] distances;
+	private final int[] parents;
+
+	/**
+	 * Constructor that takes the result arrays of a search.
+	 * @param indexed_graph graph - the graph the search ran on
+	 * @param int src - index of the src node
+	 * @param double[] distances
+	 * @param int[] parents
+	 */
+	ShortestPathTree(indexed_graph graph, int src, double[] distances, int[] parents) {
+		this.graph = graph;
+		this.src = src;
+		this.distances = distances;
+		this.parents = parents;
+	}
+
+	/**
+	 * Returns the key of the src node.
+	 * @return int key
+	 */
+	public int getSrc() {
+		return graph.keyAt(src);
+	}
+
+	/**
+	 * Returns true if and only if the search ran on the given graph.
+	 */
+	boolean isFor(indexed_graph other) {
+		return graph == other;
+	}
+
+	/**
+	 * Returns the number of entries of the dense arrays.
+	 * @return int
+	 */
+	public int nodeSize() {
+		return distances.length;
+	}
+
+	/**
+	 * Returns the dense index of the given key.
+	 * @param int key
+	 * @return int index, -1 if there is no such node.
+	 */
+	public int indexOf(int key) {
+		return graph.indexOf(key);
+	}
+
+	/**
+	 * Returns the key of the node at the given dense index.
+	 * @param int i
+	 * @return int key
+	 */
+	public int keyAt(int i) {
+		return graph.keyAt(i);
+	}
+
+	/**
+	 * Returns the distances from src by dense index (not a copy, it must not be changed).
+	 * @return double[]
+	 */
+	public double[] distances() {
+		return distances;
+	}
+
+	/**
+	 * Returns the parent index of each node by dense index, -1 for src
+	 * and the nodes that were not reached (not a copy, it must not be changed).
+	 * @return int[]
+	 */
+	public int[] parents() {
+		return parents;
+	}
+
+	/**
+	 * Returns the length of the shortest path from src to dest.
+	 * Note: if no such path --> returns -1
+	 * @param dest - end (target) node
+	 * @return double
+	 */
+	public double distance(int dest) {
+		int i = graph.indexOf(dest);
+		if (i < 0 || distances[i] == Double.POSITIVE_INFINITY) {
+			return -1;
+		}
+		return distances[i];
+	}
+
+	/**
+	 * Returns the shortest path from src to dest - as an ordered List of nodes.
+	 * Note if no such path --> returns null;
+	 * @param dest - end (target) node
+	 * @return List<node_info>
+	 */
+	public List<node_info> path(int dest) {
+		int i = graph.indexOf(dest);
+		if (i < 0 || distances[i] == Double.POSITIVE_INFINITY) {
+			return null;
+		}
+		List<node_info> path = new ArrayList<>();
+		for (; i != -1; i = parents[i]) {
+			path.add(graph.nodeAt(i));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+}
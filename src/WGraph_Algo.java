@@ -1,17 +1,17 @@
 package ex1.src;
 
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * This class implements weighted_graph_algorithms interface
@@ -26,9 +26,30 @@ import java.util.Queue;
  */
 public class WGraph_Algo implements weighted_graph_algorithms {
 
+	/**
+	 * Heap arity that selects a java.util.PriorityQueue with stale entries instead of the indexed heap.
+	 */
+	public static final int LAZY_PRIORITY_QUEUE = 0;
+	private static final int DEFAULT_HEAP_ARITY = 4;
+	// Number of queries on the same Mode Count that search a changed graph in place, before the snapshot is rebuilt
+	private static final int LIVE_QUERIES_BEFORE_SNAPSHOT = 4;
+	// The heuristic of an A* search that is Dijkstra algorithm
+	private static final distance_heuristic NO_HEURISTIC = (node, target) -> 0;
+
 	private weighted_graph graph;
-	// This priority queue is used for the Dijkstra algorithm 
-	private Queue<node_info> pq;
+	// The search arrays, a query takes its own so queries from different threads never share state
+	private final SearchWorkspaces workspaces = new SearchWorkspaces();
+	// The cached CSR snapshot of the graph that the searches run on
+	private volatile WGraph_CSR snapshot;
+	// The Mode Count that the live queries are counted for, and their number
+	private int liveMC;
+	private int liveQueries;
+	private int heapArity = DEFAULT_HEAP_ARITY;
+	private boolean bidirectional;
+	// The optional query result cache, null when it is disabled
+	private volatile QueryCache cache;
+	// The connected components of the graph, created by the first components query (isConnected, sameComponent...)
+	private ConnectedComponents components;
 
 	/**
 	 * Default constructor.
@@ -51,6 +72,129 @@ public class WGraph_Algo implements weighted_graph_algorithms {
 	@Override
 	public void init(weighted_graph g) {
 		graph = g;
+		graphReplaced();
+	}
+
+	/**
+	 * Private function that drops the state that was kept for the previous graph.
+	 */
+	private synchronized void graphReplaced() {
+		snapshot = null;
+		if (components != null) {
+			components.detach();
+			components = null;
+		}
+	}
+
+	/**
+	 * Private function that returns the connected components of the graph, up to date.
+	 * A listening union-find with no pending removal answers as it is.
+	 * It is built, or rebuilt after a removal, from the rows of an indexed graph in place,
+	 * and only another graph is first copied to the CSR snapshot.
+	 */
+	private synchronized ConnectedComponents components() {
+		if (components == null) {
+			components = new ConnectedComponents(graph);
+		}
+		if (!components.isCurrent()) {
+			components.update(graph instanceof indexed_graph ? (indexed_graph) graph : snapshot());
+		}
+		return components;
+	}
+
+	/**
+	 * Private function that returns true if the components are known to separate the two nodes.
+	 * It never creates nor rebuilds the components, the path queries do not pay for them
+	 * unless the components API is used too.
+	 */
+	private synchronized boolean isSeparated(int src, int dest) {
+		return components != null && components.isCurrent() && !components.sameComponent(src, dest);
+	}
+
+	/**
+	 * Selects the priority queue of Dijkstra algorithm.
+	 * An arity of 2 or more selects an indexed d-ary heap with decrease-key
+	 * (4 by default), LAZY_PRIORITY_QUEUE selects a java.util.PriorityQueue
+	 * that keeps stale entries instead of decreasing keys.
+	 * A graph that isSearchedInPlace is always searched with the indexed heap,
+	 * of the default arity under LAZY_PRIORITY_QUEUE.
+	 * @param int arity
+	 */
+	public void setHeapArity(int arity) {
+		if (arity != LAZY_PRIORITY_QUEUE && arity < 2) {
+			throw new IllegalArgumentException("arity must be at least 2: " + arity);
+		}
+		heapArity = arity;
+	}
+
+	/**
+	 * Returns the arity of the priority queue of Dijkstra algorithm.
+	 * @return int arity, LAZY_PRIORITY_QUEUE if the java.util.PriorityQueue is used
+	 */
+	public int getHeapArity() {
+		return heapArity;
+	}
+
+	/**
+	 * Selects bidirectional Dijkstra for shortestPathDist and shortestPath:
+	 * a search from src and a search from dest run in turns and stop when they meet,
+	 * which settles far fewer nodes on large graphs.
+	 * The distances are the same as the ones of the one-sided search.
+	 * @param boolean enabled
+	 */
+	public void setBidirectional(boolean enabled) {
+		bidirectional = enabled;
+	}
+
+	/**
+	 * Returns true if and only if bidirectional Dijkstra is selected.
+	 * @return boolean
+	 */
+	public boolean isBidirectional() {
+		return bidirectional;
+	}
+
+	/**
+	 * Enables a bounded cache of the shortestPathDist and shortestPath results.
+	 * Up to capacity (src, dest) results are kept, the least recently used is evicted first.
+	 * A src that misses the cache QueryCache.HOT_SOURCE_QUERIES times gets its whole
+	 * shortest path tree cached, up to treeCapacity trees.
+	 * The cache is emptied whenever the Mode Count of the graph moves or the graph is replaced.
+	 * @param int capacity - 0 disables the cache
+	 * @param int treeCapacity - 0 caches no trees
+	 */
+	public void setCache(int capacity, int treeCapacity) {
+		if (capacity < 0 || treeCapacity < 0) {
+			throw new IllegalArgumentException("capacity must not be negative");
+		}
+		cache = capacity == 0 ? null : new QueryCache(capacity, treeCapacity);
+	}
+
+	/**
+	 * Returns the number of (src, dest) results the cache keeps.
+	 * @return int capacity, 0 if the cache is disabled
+	 */
+	public int getCacheCapacity() {
+		QueryCache queryCache = cache;
+		return queryCache == null ? 0 : queryCache.capacity();
+	}
+
+	/**
+	 * Returns the number of queries answered by the cache since it was enabled.
+	 * @return long hits
+	 */
+	public long getCacheHits() {
+		QueryCache queryCache = cache;
+		return queryCache == null ? 0 : queryCache.hits();
+	}
+
+	/**
+	 * Returns the number of queries that searched the graph since the cache was enabled.
+	 * @return long misses
+	 */
+	public long getCacheMisses() {
+		QueryCache queryCache = cache;
+		return queryCache == null ? 0 : queryCache.misses();
 	}
 
 	/**
@@ -76,15 +220,68 @@ public class WGraph_Algo implements weighted_graph_algorithms {
 		return new WGraph_DS(graph);
 	}
 
-	/** 
-	 * Private function to set the tags in all the graph to the given value.
-	 * @param double tag
+	/**
+	 * Private function that returns the CSR snapshot the searches run on.
+	 * The snapshot is cached and rebuilt only when the mode counter of the graph moves,
+	 * so a graph that changes rarely is converted once for many queries.
+	 * Queries may run concurrently, but not concurrently with changes to the graph.
+	 * Rebuilding costs O(V + E log d), so shortestPathDist and shortestPath do not call this
+	 * for the first queries after a change of an indexed_graph (see liveGraph).
+	 * @return WGraph_CSR
+	 */
+	private WGraph_CSR snapshot() {
+		if (graph instanceof WGraph_CSR) {
+			return (WGraph_CSR) graph;
+		}
+		WGraph_CSR current = snapshot;
+		if (current == null || current.getMC() != graph.getMC()) {
+			current = new WGraph_CSR(graph);
+			snapshot = current;
+		}
+		return current;
+	}
+
+	/**
+	 * Private function that returns the graph the searches run on: a graph that isSearchedInPlace
+	 * (such as WGraph_Mapped) itself, by its dense indexes, and the CSR snapshot of any other graph.
+	 * @return indexed_graph
+	 */
+	private indexed_graph searchGraph() {
+		if (graph instanceof indexed_graph && ((indexed_graph) graph).isSearchedInPlace()) {
+			return (indexed_graph) graph;
+		}
+		return snapshot();
+	}
+
+	/**
+	 * Private function that returns the graph if the next shortestPathDist or shortestPath
+	 * should search it in place, by its dense indexes, instead of its CSR snapshot.
+	 * After a change, the first LIVE_QUERIES_BEFORE_SNAPSHOT queries search the graph itself
+	 * and the next one rebuilds the snapshot. The trade-off: a live search reads each edge
+	 * through a visitor call and a hash map of the graph, so it is a few times slower per edge
+	 * than the CSR scan, but a graph that changes between every few queries never pays
+	 * the O(V + E log d) rebuild. The queries after the rebuild get the CSR speed until the next change.
+	 * A graph that isSearchedInPlace has no snapshot to wait for, searchGraph always returns it.
+	 * Only the one-sided search with an indexed heap runs live, and not while the query cache
+	 * is enabled, since the cached results belong to the snapshot.
+	 * @return indexed_graph, null if the snapshot should be used
 	 */
-	private void setTagsAndInfo(double tag, String info) {
-		for (node_info node: graph.getV()) {
-			node.setTag(tag);
-			node.setInfo(info);
+	private synchronized indexed_graph liveGraph() {
+		// A CSR is searched through its arrays, and a graph searched in place by searchGraph
+		if (!(graph instanceof indexed_graph) || graph instanceof WGraph_CSR || ((indexed_graph) graph).isSearchedInPlace()
+				|| heapArity == LAZY_PRIORITY_QUEUE || bidirectional || cache != null) {
+			return null;
 		}
+		WGraph_CSR current = snapshot;
+		int mc = graph.getMC();
+		if (current != null && current.getMC() == mc) {
+			return null;
+		}
+		if (liveMC != mc) {
+			liveMC = mc;
+			liveQueries = 0;
+		}
+		return ++liveQueries <= LIVE_QUERIES_BEFORE_SNAPSHOT ? (indexed_graph) graph : null;
 	}
 
 	/**
@@ -97,21 +294,59 @@ public class WGraph_Algo implements weighted_graph_algorithms {
 		// If this graph is null, then return true,
 		// If the graph contains no nodes or contains only one node
 		// then the graph is connected
-		if (graph == null || graph.getV().size() < 2) {
+		if (graph == null || graph.nodeSize() < 2) {
 			return true;
 		}
-		// Get the first node from the graph
-		node_info firstNode = graph.getV().iterator().next();
-		// Use the private function Dijkstra to set all node tags that were passed through
-		Dijkstra(firstNode.getKey(), null, null);
-		// Loop over the nodes in the graph
-		for (node_info node : graph.getV()) {
-			// If one of the node tags is still positive infinity, then the graph is not connected
-			if (node.getTag() == Double.POSITIVE_INFINITY) {
-				return false;
-			}
+		return components().count() == 1;
+	}
+
+	/**
+	 * Returns true if and only if both nodes are in the graph and there is a path between them.
+	 * Runs in O(alpha(n)) on an up to date union-find of the components.
+	 * @param int key1
+	 * @param int key2
+	 * @return boolean
+	 */
+	public boolean sameComponent(int key1, int key2) {
+		if (graph == null) {
+			return false;
 		}
-		return true;
+		return components().sameComponent(key1, key2);
+	}
+
+	/**
+	 * Returns the id of the connected component of the given node.
+	 * All the nodes of a component have the same id, until the graph changes.
+	 * @param int key
+	 * @return int id (not negative), -1 if there is no such node
+	 */
+	public int componentOf(int key) {
+		if (graph == null) {
+			return -1;
+		}
+		return components().componentOf(key);
+	}
+
+	/**
+	 * Returns the number of connected components of the graph.
+	 * @return int
+	 */
+	public int componentCount() {
+		if (graph == null) {
+			return 0;
+		}
+		return components().count();
+	}
+
+	/**
+	 * Returns the number of nodes of each connected component, largest first.
+	 * @return int[] sizes
+	 */
+	public int[] componentSizes() {
+		if (graph == null) {
+			return new int[0];
+		}
+		return components().sizes();
 	}
 
 	/**
@@ -131,68 +366,180 @@ public class WGraph_Algo implements weighted_graph_algorithms {
 		if (src == dest) {
 			return 0;
 		}
-		// Using Dijkstra algorithm to compute the levels and place them in the node tags
-		Dijkstra(src, dest, null);
-		// If did not reach the dest node and it is set with positive infinity, then return -1
-		if (graph.getNode(dest).getTag() == Double.POSITIVE_INFINITY) {
+		indexed_graph live = liveGraph();
+		if (live != null) {
+			return isSeparated(src, dest) ? -1 : searchDistance(live, src, dest);
+		}
+		indexed_graph g = searchGraph();
+		QueryCache queryCache = cache;
+		if (queryCache != null) {
+			double cached = queryCache.distance(g, src, dest);
+			if (!Double.isNaN(cached)) {
+				return cached;
+			}
+		}
+		// Nodes in different components have no path, there is nothing to search
+		if (isSeparated(src, dest)) {
 			return -1;
 		}
-		// Return the tag in dest node which was set to the shortest distance from src
-		return graph.getNode(dest).getTag();
+		if (queryCache != null) {
+			if (queryCache.isHotSource(g, src)) {
+				ShortestPathTree tree = shortestPathTree(src);
+				queryCache.putTree(g, tree);
+				if (tree.isFor(g)) {
+					return tree.distance(dest);
+				}
+			}
+		}
+		double distance = searchDistance(g, src, dest);
+		if (queryCache != null) {
+			queryCache.putDistance(g, src, dest, distance);
+		}
+		return distance;
+	}
+
+	/**
+	 * Private function that searches the distance between the nodes with the given keys.
+	 * @return double distance, -1 if there is no path
+	 */
+	private double searchDistance(indexed_graph g, int src, int dest) {
+		SearchWorkspace workspace = workspaces.acquire();
+		try {
+			int destIndex = g.indexOf(dest);
+			if (bidirectional) {
+				int[] path = bidirectionalDijkstra(g, workspace, g.indexOf(src), destIndex);
+				return path == null ? -1 : pathWeight(g, path);
+			}
+			Dijkstra(g, workspace, g.indexOf(src), destIndex);
+			// If did not reach the dest node, then return -1
+			if (!workspace.isReached(destIndex)) {
+				return -1;
+			}
+			return workspace.distance(destIndex);
+		}
+		finally {
+			workspaces.release(workspace);
+		}
 	}
 
-	/** 
+	/**
 	 * Private function that uses Dijkstra algorithm to find the shortest path
 	 * according to the weight.
-	 * @param int src
-	 * @param int dest
-	 * @param Map<Integer, Integer> sonToParentMap
-	 */
-	private void Dijkstra(Integer src, Integer dest, Map<Integer, Integer> sonToParentMap) {
-		// Use private function setTagsAndInfo in case the tags/info were changed
-		setTagsAndInfo(Double.POSITIVE_INFINITY, "False");
-		// Add the src node to the queue
-		node_info srcNode = graph.getNode(src);
-		// Set the src node tag to 0 and add it to the priority queue
-		srcNode.setTag(0);
-		pq = new PriorityQueue<>(new NodeInfoComparable());
-		pq.add(srcNode);
-		// Loop while queue is not empty
-		while (!pq.isEmpty()) {
-			// Get the node with the lowest weight from the priority queue
-			node_info node = pq.poll();
-			// Check if node exists and if was visited	
-			if (node != null && node.getInfo().equals("False")) {
-				// Set the info of the node as visited
-				node.setInfo("True");
-				int nodeKey = node.getKey();
-				// If the current node is equal to dest then return
-				if (dest != null && nodeKey == dest) {
-					return;
+	 * All the distances and parents are kept in the given workspace,
+	 * so the tags and info of the nodes are never changed
+	 * and several threads can search the same graph at once.
+	 * @param indexed_graph g
+	 * @param SearchWorkspace workspace
+	 * @param int src - index of the src node
+	 * @param int dest - index of the dest node, -1 to reach all the nodes
+	 */
+	private void Dijkstra(indexed_graph g, SearchWorkspace workspace, int src, int dest) {
+		Dijkstra(g, workspace, src, dest, null, 0);
+	}
+
+	/**
+	 * Private function that runs Dijkstra algorithm until dest is settled,
+	 * or until the given number of target nodes are settled.
+	 * @param indexed_graph g
+	 * @param SearchWorkspace workspace
+	 * @param int src - index of the src node
+	 * @param int dest - index of the dest node, -1 if none
+	 * @param boolean[] isTarget - marks the target indices, null if none
+	 * @param int targetCount - number of distinct marked targets
+	 */
+	private void Dijkstra(indexed_graph g, SearchWorkspace workspace, int src, int dest,
+			boolean[] isTarget, int targetCount) {
+		workspace.begin(g.indexSize());
+		workspace.reach(src, 0, -1);
+		if (!(g instanceof WGraph_CSR)) {
+			inPlaceDijkstra(g, workspace, src, dest, isTarget, targetCount);
+			return;
+		}
+		WGraph_CSR csr = (WGraph_CSR) g;
+		int[] offsets = csr.offsets();
+		int[] targets = csr.targets();
+		double[] weights = csr.weights();
+		if (heapArity == LAZY_PRIORITY_QUEUE) {
+			lazyQueueDijkstra(offsets, targets, weights, workspace, src, dest, isTarget, targetCount);
+			return;
+		}
+		IndexedDaryHeap heap = workspace.heap(heapArity);
+		heap.pushOrDecrease(src, 0);
+		// Loop while the heap is not empty
+		while (!heap.isEmpty()) {
+			// Get the node with the lowest distance from the heap, it holds each node at most once
+			int node = heap.poll();
+			workspace.settle(node);
+			// If the current node is equal to dest, or it is the last target, then return
+			if (node == dest || (isTarget != null && isTarget[node] && --targetCount == 0)) {
+				return;
+			}
+			double distance = workspace.distance(node);
+			// Loop over the neighbors, they are a linear scan over the CSR arrays
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				int neighbor = targets[e];
+				double newDistance = distance + weights[e];
+				// Check if neighbor was not visited
+				// and the new distance is shorter than the current neighbor distance
+				if (!workspace.isSettled(neighbor) && newDistance < workspace.distance(neighbor)) {
+					workspace.reach(neighbor, newDistance, node);
+					heap.pushOrDecrease(neighbor, newDistance);
 				}
-				// Check if current node has neighbors
-				if (graph.getV(nodeKey) != null && !graph.getV(nodeKey).isEmpty()) {
-					// Loop over the neighbors
-					for (node_info neighbor: graph.getV(nodeKey)) {
-						int neighborKey = neighbor.getKey();
-						// Calculate the new distance from src to this neighbor
-						double newTag = node.getTag() + graph.getEdge(nodeKey, neighborKey);
-						// Check if neighbor was not visited
-						// and the new distance is shorter than the current neighbor tag
-						if (neighbor.getInfo().equals("False") && newTag < neighbor.getTag()) {
-							// Set the neighbor with the shorter distance
-							neighbor.setTag(newTag);
-							// Add the neighbor to the priority queue
-							pq.add(neighbor);
-							// Add the node (parent) and neighbor (son) keys to the HashMap
-							if (sonToParentMap != null) {
-								sonToParentMap.put(neighborKey, nodeKey);
-							}
-						}	
-					}
+			}
+		}
+	}
+
+	/**
+	 * Private function that runs the main loop of Dijkstra algorithm on a graph that is searched in place,
+	 * by its dense indexes: a changed indexed_graph before its snapshot is rebuilt (see liveGraph),
+	 * or a graph that isSearchedInPlace. The neighbors of each node are read by forEachEdgeAt,
+	 * and the queue is the indexed heap even with LAZY_PRIORITY_QUEUE.
+	 */
+	private void inPlaceDijkstra(indexed_graph g, SearchWorkspace workspace, int src, int dest,
+			boolean[] isTarget, int targetCount) {
+		IndexedDaryHeap heap = workspace.heap(heapArity == LAZY_PRIORITY_QUEUE ? DEFAULT_HEAP_ARITY : heapArity);
+		heap.pushOrDecrease(src, 0);
+		EdgeRelaxer relaxer = new EdgeRelaxer(workspace, heap);
+		while (!heap.isEmpty()) {
+			int node = heap.poll();
+			workspace.settle(node);
+			if (node == dest || (isTarget != null && isTarget[node] && --targetCount == 0)) {
+				return;
+			}
+			relaxer.node = node;
+			relaxer.distance = workspace.distance(node);
+			g.forEachEdgeAt(node, relaxer);
+		}
+	}
+
+	/**
+	 * Private function that runs the main loop of Dijkstra algorithm with a java.util.PriorityQueue,
+	 * which gets a new entry for every improved distance and skips the stale ones.
+	 */
+	private void lazyQueueDijkstra(int[] offsets, int[] targets, double[] weights,
+			SearchWorkspace workspace, int src, int dest, boolean[] isTarget, int targetCount) {
+		Queue<IndexDistance> queue = new PriorityQueue<>();
+		queue.add(new IndexDistance(src, 0));
+		while (!queue.isEmpty()) {
+			int node = queue.poll().index;
+			// Skip stale queue entries of nodes that were already visited
+			if (workspace.isSettled(node)) {
+				continue;
+			}
+			workspace.settle(node);
+			if (node == dest || (isTarget != null && isTarget[node] && --targetCount == 0)) {
+				return;
+			}
+			double distance = workspace.distance(node);
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				int neighbor = targets[e];
+				double newDistance = distance + weights[e];
+				if (!workspace.isSettled(neighbor) && newDistance < workspace.distance(neighbor)) {
+					workspace.reach(neighbor, newDistance, node);
+					queue.add(new IndexDistance(neighbor, newDistance));
 				}
 			}
-		}	
+		}
 	}
 
 	/**
@@ -216,53 +563,535 @@ public class WGraph_Algo implements weighted_graph_algorithms {
 			path.add(graph.getNode(src));
 			return path;
 		}
+		indexed_graph live = liveGraph();
+		if (live != null) {
+			return isSeparated(src, dest) ? null : searchPath(live, src, dest);
+		}
+		indexed_graph g = searchGraph();
+		QueryCache queryCache = cache;
+		if (queryCache != null) {
+			QueryCache.PairResult cached = queryCache.path(g, src, dest);
+			if (cached != null) {
+				return cached.path;
+			}
+		}
+		if (isSeparated(src, dest)) {
+			return null;
+		}
+		if (queryCache != null) {
+			if (queryCache.isHotSource(g, src)) {
+				ShortestPathTree tree = shortestPathTree(src);
+				queryCache.putTree(g, tree);
+				if (tree.isFor(g)) {
+					return tree.path(dest);
+				}
+			}
+		}
+		path = searchPath(g, src, dest);
+		if (queryCache != null) {
+			queryCache.putPath(g, src, dest, path == null ? -1 : pathWeight(g, path), path);
+		}
+		return path;
+	}
 
-		// This HashMap holds in its key the son key and its value holds the parent key 
-		Map<Integer, Integer> sonToParentMap = new HashMap<>();
-		// Using Dijkstra algorithm to get a HashMap that maps between a son and its parent keys
-		Dijkstra(src, dest, sonToParentMap);
+	/**
+	 * Private function that searches the shortest path between the nodes with the given keys.
+	 * @return List<node_info>, null if there is no path
+	 */
+	private List<node_info> searchPath(indexed_graph g, int src, int dest) {
+		SearchWorkspace workspace = workspaces.acquire();
+		try {
+			int srcIndex = g.indexOf(src);
+			int destIndex = g.indexOf(dest);
+			if (bidirectional) {
+				int[] indices = bidirectionalDijkstra(g, workspace, srcIndex, destIndex);
+				if (indices == null) {
+					return null;
+				}
+				List<node_info> path = new ArrayList<>();
+				for (int i: indices) {
+					path.add(g.nodeAt(i));
+				}
+				return path;
+			}
+			Dijkstra(g, workspace, srcIndex, destIndex);
+			return tracePath(g, workspace, destIndex);
+		}
+		finally {
+			workspaces.release(workspace);
+		}
+	}
 
-		// Get the parent key of the dest
-		Integer parentKey = sonToParentMap.get(dest);
-		// If parent key does not exist, then return null
-		// because there is no path between src and dest
-		if (parentKey == null) {
+	/**
+	 * Returns the shortest path tree of src: the distance from src to every node
+	 * and the parent of every node on its shortest path, in dense arrays.
+	 * One search answers the distances to all the nodes,
+	 * instead of one shortestPathDist call per dest.
+	 * @param src - start node
+	 * @return ShortestPathTree, null if src is not in the graph
+	 */
+	public ShortestPathTree shortestPathTree(int src) {
+		return shortestPathTree(src, null);
+	}
+
+	/**
+	 * Returns the shortest path tree of src that is complete for the given targets:
+	 * the search stops as soon as all of them are settled.
+	 * Nodes that were not settled by then have an infinite distance in the tree.
+	 * @param src - start node
+	 * @param targets - keys of the target nodes, null for all the nodes
+	 * @return ShortestPathTree, null if src is not in the graph
+	 */
+	public ShortestPathTree shortestPathTree(int src, int[] targets) {
+		if (graph == null || graph.getNode(src) == null) {
 			return null;
 		}
-		// Add the parent of dest to the list
-		path.add(graph.getNode(parentKey));
-		// Loop while not reaching src
-		while (parentKey != src) {
-			parentKey = sonToParentMap.get(parentKey);
-			// Add the parent as the first item in the list
-			// to make sure it is included in the list before its son
-			path.add(0, graph.getNode(parentKey));
-		}
-		// Add the dest as the last item in the list
-		path.add(graph.getNode(dest));
+		indexed_graph g = searchGraph();
+		SearchWorkspace workspace = workspaces.acquire();
+		try {
+			int n = g.indexSize();
+			boolean[] isTarget = null;
+			int targetCount = 0;
+			if (targets != null) {
+				isTarget = new boolean[n];
+				for (int target: targets) {
+					int i = g.indexOf(target);
+					// Keys that are not in the graph are ignored
+					if (i >= 0 && !isTarget[i]) {
+						isTarget[i] = true;
+						targetCount++;
+					}
+				}
+			}
+			int srcIndex = g.indexOf(src);
+			if (targets != null && targetCount == 0) {
+				workspace.begin(n);
+				workspace.reach(srcIndex, 0, -1);
+				workspace.settle(srcIndex);
+			}
+			else {
+				Dijkstra(g, workspace, srcIndex, -1, isTarget, targetCount);
+			}
+			double[] distances = new double[n];
+			int[] parents = new int[n];
+			for (int i = 0; i < n; i++) {
+				// Only the settled nodes have their final distance
+				if (workspace.isSettled(i)) {
+					distances[i] = workspace.distance(i);
+					parents[i] = workspace.parent(i);
+				}
+				else {
+					distances[i] = Double.POSITIVE_INFINITY;
+					parents[i] = -1;
+				}
+			}
+			return new ShortestPathTree(g, srcIndex, distances, parents);
+		}
+		finally {
+			workspaces.release(workspace);
+		}
+	}
+
+	/**
+	 * Returns the matrix of shortest path distances from each of the sources to each of the targets,
+	 * row by row: the distance from sources[i] to targets[j] is at [i * targets.length + j].
+	 * Note: if there is no path (or no such node) the entry is -1, like in shortestPathDist.
+	 * The rows are computed in parallel on the common ForkJoinPool,
+	 * each row by one search that stops when all the targets are settled.
+	 * @param sources - keys of the start nodes
+	 * @param targets - keys of the end nodes
+	 * @return double[] distances, null if the graph is null
+	 */
+	public double[] distanceMatrix(int[] sources, int[] targets) {
+		return distanceMatrix(sources, targets, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Returns the matrix of shortest path distances from each of the sources to each of the targets,
+	 * computing the rows in parallel on the given pool.
+	 * Each worker thread searches with its own workspace, so the rows share no state
+	 * and the work scales with the number of threads of the pool.
+	 * @param sources - keys of the start nodes
+	 * @param targets - keys of the end nodes
+	 * @param pool - the pool that runs the searches
+	 * @return double[] distances, null if the graph is null
+	 */
+	public double[] distanceMatrix(int[] sources, int[] targets, ForkJoinPool pool) {
+		if (graph == null) {
+			return null;
+		}
+		if ((long) sources.length * targets.length > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("matrix too large: " + sources.length + "x" + targets.length);
+		}
+		final indexed_graph g = searchGraph();
+		final int n = g.indexSize();
+		final double[] matrix = new double[sources.length * targets.length];
+		// The target indices and marks are computed once and only read by the workers
+		final int[] targetIndices = new int[targets.length];
+		final boolean[] isTarget = new boolean[n];
+		int targetCount = 0;
+		for (int j = 0; j < targets.length; j++) {
+			targetIndices[j] = g.indexOf(targets[j]);
+			if (targetIndices[j] >= 0 && !isTarget[targetIndices[j]]) {
+				isTarget[targetIndices[j]] = true;
+				targetCount++;
+			}
+		}
+		final int distinctTargets = targetCount;
+		try {
+			pool.submit(() -> IntStream.range(0, sources.length).parallel().forEach(i -> {
+				int src = g.indexOf(sources[i]);
+				int row = i * targets.length;
+				if (src < 0 || distinctTargets == 0) {
+					for (int j = 0; j < targets.length; j++) {
+						matrix[row + j] = src >= 0 && targetIndices[j] == src ? 0 : -1;
+					}
+					return;
+				}
+				SearchWorkspace workspace = workspaces.acquire();
+				try {
+					Dijkstra(g, workspace, src, -1, isTarget, distinctTargets);
+					for (int j = 0; j < targets.length; j++) {
+						int target = targetIndices[j];
+						matrix[row + j] = target >= 0 && workspace.isSettled(target) ? workspace.distance(target) : -1;
+					}
+				}
+				finally {
+					workspaces.release(workspace);
+				}
+			})).get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("distance matrix interrupted", ex);
+		}
+		catch (ExecutionException ex) {
+			throw new IllegalStateException("distance matrix failed", ex.getCause());
+		}
+		return matrix;
+	}
+
+	/**
+	 * Private function that traces back the parents of a finished search from dest to src.
+	 * @param indexed_graph g
+	 * @param SearchWorkspace workspace
+	 * @param int dest - index of the dest node
+	 * @return List<node_info> the path from src to dest, null if dest was not reached
+	 */
+	private List<node_info> tracePath(indexed_graph g, SearchWorkspace workspace, int dest) {
+		// If did not reach the dest node, then there is no path between src and dest
+		if (!workspace.isReached(dest)) {
+			return null;
+		}
+		List<node_info> path = new ArrayList<>();
+		for (int i = dest; i != -1; i = workspace.parent(i)) {
+			path.add(g.nodeAt(i));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Returns the length of the shortest path between src to dest,
+	 * using A* search with the given heuristic.
+	 * Note: if no such path --> returns -1
+	 * @param src - start node
+	 * @param dest - end (target) node
+	 * @param heuristic - admissible lower bound of the distance to dest, null for Dijkstra
+	 * @return double
+	 */
+	public double shortestPathDist(int src, int dest, distance_heuristic heuristic) {
+		if (heuristic == null) {
+			return shortestPathDist(src, dest);
+		}
+		if (graph == null || graph.getNode(src) == null || graph.getNode(dest) == null) {
+			return -1;
+		}
+		if (src == dest) {
+			return 0;
+		}
+		indexed_graph g = searchGraph();
+		SearchWorkspace workspace = workspaces.acquire();
+		try {
+			int destIndex = g.indexOf(dest);
+			aStar(g, workspace, g.indexOf(src), destIndex, heuristic);
+			return workspace.isReached(destIndex) ? workspace.distance(destIndex) : -1;
+		}
+		finally {
+			workspaces.release(workspace);
+		}
+	}
+
+	/**
+	 * Returns the shortest path between src to dest - as an ordered List of nodes,
+	 * using A* search with the given heuristic.
+	 * Note if no such path --> returns null;
+	 * @param src - start node
+	 * @param dest - end (target) node
+	 * @param heuristic - admissible lower bound of the distance to dest, null for Dijkstra
+	 * @return List<node_info>
+	 */
+	public List<node_info> shortestPath(int src, int dest, distance_heuristic heuristic) {
+		if (heuristic == null || src == dest) {
+			return shortestPath(src, dest);
+		}
+		if (graph == null || graph.getNode(src) == null || graph.getNode(dest) == null) {
+			return null;
+		}
+		indexed_graph g = searchGraph();
+		SearchWorkspace workspace = workspaces.acquire();
+		try {
+			int destIndex = g.indexOf(dest);
+			aStar(g, workspace, g.indexOf(src), destIndex, heuristic);
+			return tracePath(g, workspace, destIndex);
+		}
+		finally {
+			workspaces.release(workspace);
+		}
+	}
+
+	/**
+	 * Private function that uses A* search to find the shortest path.
+	 * It is Dijkstra algorithm where the heap priority of a node is its distance from src
+	 * plus the heuristic estimate of its distance to dest, so the search is pulled toward dest.
+	 * A node whose distance improves after it was polled is pushed again,
+	 * so an admissible heuristic is enough (it does not have to be consistent).
+	 * A LandmarkHeuristic of another snapshot (the graph changed since it was created) is not used.
+	 * @param indexed_graph g
+	 * @param SearchWorkspace workspace
+	 * @param int src - index of the src node
+	 * @param int dest - index of the dest node
+	 * @param distance_heuristic heuristic
+	 */
+	private void aStar(indexed_graph g, SearchWorkspace workspace, int src, int dest, distance_heuristic heuristic) {
+		int destKey = g.keyAt(dest);
+		// A landmark heuristic of this snapshot is called with indices, without key lookups
+		LandmarkHeuristic landmarks = heuristic instanceof LandmarkHeuristic
+				&& ((LandmarkHeuristic) heuristic).isFor(g) ? (LandmarkHeuristic) heuristic : null;
+		// The landmark distances of a graph that changed since may overestimate, so the search runs without them
+		if (heuristic instanceof LandmarkHeuristic && landmarks == null) {
+			heuristic = NO_HEURISTIC;
+		}
+		workspace.begin(g.indexSize());
+		IndexedDaryHeap heap = workspace.heap(heapArity == LAZY_PRIORITY_QUEUE ? DEFAULT_HEAP_ARITY : heapArity);
+
+		double srcEstimate = landmarks != null ? landmarks.estimateIndex(src, dest)
+				: heuristic.estimate(g.keyAt(src), destKey);
+		// An admissible heuristic is infinite only if dest cannot be reached
+		if (srcEstimate == Double.POSITIVE_INFINITY) {
+			return;
+		}
+		workspace.reach(src, 0, -1);
+		workspace.setEstimate(src, srcEstimate);
+		heap.pushOrDecrease(src, srcEstimate);
+		AStarRelaxer relaxer = new AStarRelaxer(g, workspace, heap, heuristic, landmarks, dest, destKey);
+		// A snapshot is scanned over its arrays, any other graph in place by forEachEdgeAt
+		WGraph_CSR csr = g instanceof WGraph_CSR ? (WGraph_CSR) g : null;
+		int[] offsets = csr == null ? null : csr.offsets();
+		int[] targets = csr == null ? null : csr.targets();
+		double[] weights = csr == null ? null : csr.weights();
+		while (!heap.isEmpty()) {
+			int node = heap.poll();
+			if (node == dest) {
+				return;
+			}
+			relaxer.node = node;
+			relaxer.distance = workspace.distance(node);
+			if (csr == null) {
+				g.forEachEdgeAt(node, relaxer);
+				continue;
+			}
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				relaxer.visit(targets[e], weights[e]);
+			}
+		}
+	}
+
+	/**
+	 * Creates an ALT (landmark) heuristic for A* search on the current graph.
+	 * The landmarks are picked one by one as the node farthest from the landmarks picked so far
+	 * (nodes that no landmark reaches first, so every component gets a landmark),
+	 * and the distance of every node to every landmark is kept.
+	 * It costs one Dijkstra run and n doubles per landmark.
+	 * @param int count - number of landmarks, usually 8 to 16
+	 * @return LandmarkHeuristic, null if the graph is null or empty
+	 */
+	public LandmarkHeuristic landmarkHeuristic(int count) {
+		if (graph == null || graph.nodeSize() == 0 || count < 1) {
+			return null;
+		}
+		indexed_graph g = searchGraph();
+		SearchWorkspace workspace = workspaces.acquire();
+		try {
+			int n = g.indexSize();
+			count = Math.min(count, n);
+			double[][] landmarkDistances = new double[count][];
+			int[] landmarks = new int[count];
+			// The distance of each node to its nearest landmark
+			double[] nearest = new double[n];
+			Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+
+			// The first landmark is the node farthest from node 0
+			Dijkstra(g, workspace, 0, -1);
+			int next = 0;
+			for (int i = 0; i < n; i++) {
+				if (workspace.isReached(i) && workspace.distance(i) > workspace.distance(next)) {
+					next = i;
+				}
+			}
+			int picked = 0;
+			while (picked < count) {
+				landmarks[picked] = next;
+				Dijkstra(g, workspace, next, -1);
+				double[] row = new double[n];
+				for (int i = 0; i < n; i++) {
+					row[i] = workspace.distance(i);
+					nearest[i] = Math.min(nearest[i], row[i]);
+				}
+				landmarkDistances[picked++] = row;
+				for (int i = 0; i < n; i++) {
+					if (nearest[i] > nearest[next]) {
+						next = i;
+					}
+				}
+				// Stop early if every node is already a landmark
+				if (nearest[next] == 0) {
+					break;
+				}
+			}
+			// Lay out the table node-major, so the landmarks of one node are next to each other
+			double[] distances = new double[n * picked];
+			for (int l = 0; l < picked; l++) {
+				for (int i = 0; i < n; i++) {
+					distances[i * picked + l] = landmarkDistances[l][i];
+				}
+			}
+			return new LandmarkHeuristic(g, Arrays.copyOf(landmarks, picked), distances);
+		}
+		finally {
+			workspaces.release(workspace);
+		}
+	}
+
+	/**
+	 * Private function that uses bidirectional Dijkstra algorithm to find the shortest path.
+	 * The forward search from src and the backward search from dest (the graph is undirected,
+	 * so it is a forward search too) each poll from their own heap, the side with the smaller heap first.
+	 * Every scanned edge that reaches a node of the other side is a candidate path, and mu is the best one.
+	 * The search stops when the lowest distances of both heaps sum to mu or more,
+	 * since then no path through an unsettled node can be shorter.
+	 * @param indexed_graph g
+	 * @param SearchWorkspace workspace - the forward workspace, its backward() is used for the other side
+	 * @param int src - index of the src node
+	 * @param int dest - index of the dest node
+	 * @return int[] the indices of the shortest path from src to dest, null if there is no path
+	 */
+	private int[] bidirectionalDijkstra(indexed_graph g, SearchWorkspace workspace, int src, int dest) {
+		int arity = heapArity == LAZY_PRIORITY_QUEUE ? DEFAULT_HEAP_ARITY : heapArity;
+		SearchWorkspace forward = workspace;
+		SearchWorkspace backward = workspace.backward();
+		forward.begin(g.indexSize());
+		backward.begin(g.indexSize());
+		IndexedDaryHeap forwardHeap = forward.heap(arity);
+		IndexedDaryHeap backwardHeap = backward.heap(arity);
+		forward.reach(src, 0, -1);
+		backward.reach(dest, 0, -1);
+		forwardHeap.pushOrDecrease(src, 0);
+		backwardHeap.pushOrDecrease(dest, 0);
+
+		MeetingRelaxer relaxer = new MeetingRelaxer();
+		// A snapshot is scanned over its arrays, any other graph in place by forEachEdgeAt
+		WGraph_CSR csr = g instanceof WGraph_CSR ? (WGraph_CSR) g : null;
+		int[] offsets = csr == null ? null : csr.offsets();
+		int[] targets = csr == null ? null : csr.targets();
+		double[] weights = csr == null ? null : csr.weights();
+		while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+			if (forwardHeap.peekPriority() + backwardHeap.peekPriority() >= relaxer.mu) {
+				break;
+			}
+			boolean isForward = forwardHeap.size() <= backwardHeap.size();
+			relaxer.isForward = isForward;
+			relaxer.side = isForward ? forward : backward;
+			relaxer.other = isForward ? backward : forward;
+			relaxer.heap = isForward ? forwardHeap : backwardHeap;
+			int node = relaxer.heap.poll();
+			relaxer.side.settle(node);
+			relaxer.node = node;
+			relaxer.distance = relaxer.side.distance(node);
+			if (csr == null) {
+				g.forEachEdgeAt(node, relaxer);
+				continue;
+			}
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				relaxer.visit(targets[e], weights[e]);
+			}
+		}
+		int meetForward = relaxer.meetForward;
+		int meetBackward = relaxer.meetBackward;
+		if (meetForward == -1) {
+			return null;
+		}
+		// The path is the forward parents up to meetForward, then the backward parents from meetBackward
+		int forwardLength = 0;
+		for (int i = meetForward; i != -1; i = forward.parent(i)) {
+			forwardLength++;
+		}
+		int length = forwardLength;
+		for (int i = meetBackward; i != -1; i = backward.parent(i)) {
+			length++;
+		}
+		int[] path = new int[length];
+		int position = forwardLength;
+		for (int i = meetForward; i != -1; i = forward.parent(i)) {
+			path[--position] = i;
+		}
+		position = forwardLength;
+		for (int i = meetBackward; i != -1; i = backward.parent(i)) {
+			path[position++] = i;
+		}
 		return path;
 	}
 
+	/**
+	 * Private function that sums the weights along a path from its first node,
+	 * in the same order as Dijkstra algorithm adds them.
+	 * @param indexed_graph g
+	 * @param int[] path - node indices
+	 * @return double
+	 */
+	private double pathWeight(indexed_graph g, int[] path) {
+		double weight = 0;
+		for (int i = 1; i < path.length; i++) {
+			weight += g.weightAt(path[i - 1], path[i]);
+		}
+		return weight;
+	}
+
+	/**
+	 * Private function that sums the weights along a path of nodes from src, like pathWeight of indices.
+	 */
+	private double pathWeight(indexed_graph g, List<node_info> path) {
+		double weight = 0;
+		for (int i = 1; i < path.size(); i++) {
+			weight += g.weightAt(g.indexOf(path.get(i - 1).getKey()), g.indexOf(path.get(i).getKey()));
+		}
+		return weight;
+	}
+
 	/**
 	 * This method saves this weighted (undirected) graph to the given
-	 * file name
+	 * file name, in the binary format of WGraph_File.
 	 * @param file - the file name (may include a relative path).
 	 * @return true - if and only if the file was successfully saved
 	 */
 	@Override
 	public boolean save(String file) {
 		try {
-			if (file == null) {
+			// There is no graph to save
+			if (file == null || graph == null) {
 				return false;
 			}
-			FileOutputStream fileOutputStream = new FileOutputStream(file);
-			ObjectOutputStream objectOutputStream = new ObjectOutputStream(fileOutputStream);
-			// Write graph object which is Serializable
-			objectOutputStream.writeObject(graph);
-			objectOutputStream.flush();
-			// Close all streams
-			objectOutputStream.close();
-			fileOutputStream.close();
+			WGraph_File.write(graph, file);
 		}
 		catch(IOException ex) {
 			System.out.print("Error saving file\n" + ex);
@@ -276,6 +1105,8 @@ public class WGraph_Algo implements weighted_graph_algorithms {
 	 * If the file was successfully loaded - the underlying graph
 	 * of this class will be changed (to the loaded one), in case the
 	 * graph was not loaded the original graph should remain "as is".
+	 * Files in the binary format of WGraph_File are memory-mapped,
+	 * older files that hold a serialized graph object are still read.
 	 * @param file - file name
 	 * @return true - if and only if the graph was successfully loaded.
 	 */
@@ -285,10 +1116,16 @@ public class WGraph_Algo implements weighted_graph_algorithms {
 			if (file == null) {
 				return false;
 			}
+			if (WGraph_File.isGraphFile(file)) {
+				graph = WGraph_File.read(file);
+				graphReplaced();
+				return true;
+			}
 			FileInputStream fileInputStream = new FileInputStream(file);
 			ObjectInputStream objectInputStream = new ObjectInputStream(fileInputStream);
 			// Read graph object which is Serializable
-			graph = (WGraph_DS) objectInputStream.readObject();
+			graph = (weighted_graph) objectInputStream.readObject();
+			graphReplaced();
 			// Close all streams
 			objectInputStream.close();
 			fileInputStream.close();
@@ -301,28 +1138,188 @@ public class WGraph_Algo implements weighted_graph_algorithms {
 	}
 
 	/**
-	 * This class implements Comparator interface and compare tags
-	 * that are used to save the distance from src.
-	 * This is needed for the priority queue.
+	 * This method exports this graph to the given file as a text edge list,
+	 * a "u,v,w" line for each edge and a "u" line for each node without edges.
+	 * @param file - the file name (may include a relative path).
+	 * @return true - if and only if the file was successfully written
+	 */
+	public boolean exportEdgeList(String file) {
+		try {
+			// There is no graph to export
+			if (file == null || graph == null) {
+				return false;
+			}
+			WGraph_EdgeList.write(searchGraph(), file);
+		}
+		catch(IOException ex) {
+			System.out.print("Error exporting file\n" + ex);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * This method imports a graph from a text edge list, see importEdgeList(file, listener).
+	 * Invalid lines are skipped.
+	 * @param file - file name
+	 * @return true - if and only if the file was successfully read.
+	 */
+	public boolean importEdgeList(String file) {
+		return importEdgeList(file, null);
+	}
+
+	/**
+	 * This method imports a graph from a text edge list ("u,v,w" or "u" lines)
+	 * and makes it the underlying graph of this class, in case the file
+	 * could not be read the original graph remains "as is".
+	 * The file is streamed in blocks, so it can be larger than the memory.
+	 * @param file - file name
+	 * @param listener - told about the progress and every invalid line (which is skipped), may be null
+	 * @return true - if and only if the file was successfully read.
+	 */
+	public boolean importEdgeList(String file, edge_list_listener listener) {
+		try {
+			if (file == null) {
+				return false;
+			}
+			graph = WGraph_EdgeList.read(file, listener);
+			graphReplaced();
+		}
+		catch(IOException ex) {
+			System.out.print("Error importing file\n" + ex);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * This class relaxes the edges of the node that the in place Dijkstra settled,
+	 * one object serves the whole search.
 	 */
-	private class NodeInfoComparable implements Comparator<node_info> {
+	private static final class EdgeRelaxer implements edge_visitor {
+
+		private final SearchWorkspace workspace;
+		private final IndexedDaryHeap heap;
+		private int node;
+		private double distance;
+
+		EdgeRelaxer(SearchWorkspace workspace, IndexedDaryHeap heap) {
+			this.workspace = workspace;
+			this.heap = heap;
+		}
 
-		/**
-		 * This method override compare method between two nodes
-		 * according to their tag
-		 * @param node_info node1
-		 * @param node_info node2
-		 * @return int
-		 */
 		@Override
-		public int compare(node_info node1, node_info node2) {
-			if (node1.getTag() < node2.getTag()) {
-				return -1;
+		public void visit(int neighbor, double w) {
+			double newDistance = distance + w;
+			if (!workspace.isSettled(neighbor) && newDistance < workspace.distance(neighbor)) {
+				workspace.reach(neighbor, newDistance, node);
+				heap.pushOrDecrease(neighbor, newDistance);
 			}
-			else if (node1.getTag() > node2.getTag()) {
-				return 1;
+		}
+	}
+
+	/**
+	 * This class relaxes the edges of the node that the A* search polled,
+	 * one object serves the whole search.
+	 * A node whose distance improves is pushed again with its estimate,
+	 * which is computed once, when the node is first reached.
+	 */
+	private static final class AStarRelaxer implements edge_visitor {
+
+		private final indexed_graph g;
+		private final SearchWorkspace workspace;
+		private final IndexedDaryHeap heap;
+		private final distance_heuristic heuristic;
+		// The landmarks of the searched graph, called with indices, null to call the heuristic with keys
+		private final LandmarkHeuristic landmarks;
+		private final int dest;
+		private final int destKey;
+		private int node;
+		private double distance;
+
+		AStarRelaxer(indexed_graph g, SearchWorkspace workspace, IndexedDaryHeap heap,
+				distance_heuristic heuristic, LandmarkHeuristic landmarks, int dest, int destKey) {
+			this.g = g;
+			this.workspace = workspace;
+			this.heap = heap;
+			this.heuristic = heuristic;
+			this.landmarks = landmarks;
+			this.dest = dest;
+			this.destKey = destKey;
+		}
+
+		@Override
+		public void visit(int neighbor, double w) {
+			double newDistance = distance + w;
+			if (newDistance < workspace.distance(neighbor)) {
+				double estimate;
+				if (workspace.isReached(neighbor)) {
+					estimate = workspace.estimate(neighbor);
+				}
+				else if (landmarks != null) {
+					estimate = landmarks.estimateIndex(neighbor, dest);
+				}
+				else {
+					estimate = heuristic.estimate(g.keyAt(neighbor), destKey);
+				}
+				workspace.reach(neighbor, newDistance, node);
+				workspace.setEstimate(neighbor, estimate);
+				heap.pushOrDecrease(neighbor, newDistance + estimate);
 			}
-			return 0;
-		}	
+		}
+	}
+
+	/**
+	 * This class relaxes the edges of the node that one side of the bidirectional search polled,
+	 * and keeps the best path found where the two sides meet. One object serves the whole search,
+	 * the search sets the side before each node.
+	 */
+	private static final class MeetingRelaxer implements edge_visitor {
+
+		private SearchWorkspace side;
+		private SearchWorkspace other;
+		private IndexedDaryHeap heap;
+		private boolean isForward;
+		private int node;
+		private double distance;
+		// The length of the best path, and its edge: meetForward is on the src side and meetBackward on the dest side
+		private double mu = Double.POSITIVE_INFINITY;
+		private int meetForward = -1;
+		private int meetBackward = -1;
+
+		@Override
+		public void visit(int neighbor, double w) {
+			double newDistance = distance + w;
+			if (!side.isSettled(neighbor) && newDistance < side.distance(neighbor)) {
+				side.reach(neighbor, newDistance, node);
+				heap.pushOrDecrease(neighbor, newDistance);
+			}
+			// Check if this edge joins the two searches with a shorter path
+			if (other.isReached(neighbor) && newDistance + other.distance(neighbor) < mu) {
+				mu = newDistance + other.distance(neighbor);
+				meetForward = isForward ? node : neighbor;
+				meetBackward = isForward ? neighbor : node;
+			}
+		}
+	}
+
+	/**
+	 * This class holds a node index and its distance from src,
+	 * it is the priority queue entry of the CSR Dijkstra.
+	 */
+	private static class IndexDistance implements Comparable<IndexDistance> {
+
+		private final int index;
+		private final double distance;
+
+		private IndexDistance(int index, double distance) {
+			this.index = index;
+			this.distance = distance;
+		}
+
+		@Override
+		public int compareTo(IndexDistance other) {
+			return Double.compare(distance, other.distance);
+		}
 	}
-}	
\ No newline at end of file
+}
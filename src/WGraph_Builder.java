@@ -0,0 +1,212 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * This class builds a WGraph_DS from nodes and edges given in bulk.
+ * Instead of one addNode and one connect per element, the edges are collected
+ * in primitive arrays, and build() removes the duplicates in one pass and
+ * creates every map of the graph with its final size.
+ * The edges follow the rules of connect: self-loops and negative weights are ignored,
+ * zero weights are kept, and if an edge is added more than once the last weight wins.
+ * The nodes of an edge are added to the graph if they were not added before.
+ * A builder can be used for one build only.
+ */
+public class WGraph_Builder {
+
+	// This map holds the dense index of each node key
+	private final IntIntHashMap index;
+	private int[] keys;
+	private int nodeSize;
+	// The edges in the order they were added, by node index
+	private int[] sources;
+	private int[] targets;
+	private double[] weights;
+	private int edgeSize;
+	private boolean isBuilt;
+
+	/**
+	 * Default constructor.
+	 */
+	public WGraph_Builder() {
+		this(16, 16);
+	}
+
+	/**
+	 * Constructor that pre-sizes the builder.
+	 * @param int expectedNodes
+	 * @param int expectedEdges
+	 */
+	public WGraph_Builder(int expectedNodes, int expectedEdges) {
+		index = new IntIntHashMap(expectedNodes);
+		keys = new int[Math.max(expectedNodes, 1)];
+		sources = new int[Math.max(expectedEdges, 1)];
+		targets = new int[sources.length];
+		weights = new double[sources.length];
+	}
+
+	/**
+	 * Adds a node with the given key, if there is already a node with such a key -> no action is performed.
+	 * @param int key
+	 * @return this builder
+	 */
+	public WGraph_Builder addNode(int key) {
+		indexOf(key);
+		return this;
+	}
+
+	/**
+	 * Adds the nodes with the given keys.
+	 * @param int[] keys
+	 * @return this builder
+	 */
+	public WGraph_Builder addNodes(int[] keys) {
+		for (int key: keys) {
+			indexOf(key);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds the edge node1-node2 with the weight w.
+	 * @param int node1
+	 * @param int node2
+	 * @param double w - weight
+	 * @return this builder
+	 */
+	public WGraph_Builder addEdge(int node1, int node2, double w) {
+		checkNotBuilt();
+		if (node1 == node2 || w < 0 || Double.isNaN(w)) {
+			return this;
+		}
+		if (edgeSize == sources.length) {
+			int capacity = sources.length + (sources.length >> 1) + 1;
+			sources = Arrays.copyOf(sources, capacity);
+			targets = Arrays.copyOf(targets, capacity);
+			weights = Arrays.copyOf(weights, capacity);
+		}
+		sources[edgeSize] = indexOf(node1);
+		targets[edgeSize] = indexOf(node2);
+		weights[edgeSize] = w;
+		edgeSize++;
+		return this;
+	}
+
+	/**
+	 * Adds the edges nodes1[i]-nodes2[i] with the weights w[i].
+	 * @param int[] nodes1
+	 * @param int[] nodes2
+	 * @param double[] w - weights
+	 * @return this builder
+	 */
+	public WGraph_Builder addEdges(int[] nodes1, int[] nodes2, double[] w) {
+		checkNotBuilt();
+		if (nodes1.length != nodes2.length || nodes1.length != w.length) {
+			throw new IllegalArgumentException("the edge arrays must have the same length");
+		}
+		int capacity = edgeSize + nodes1.length;
+		if (capacity > sources.length) {
+			sources = Arrays.copyOf(sources, capacity);
+			targets = Arrays.copyOf(targets, capacity);
+			weights = Arrays.copyOf(weights, capacity);
+		}
+		for (int i = 0; i < nodes1.length; i++) {
+			addEdge(nodes1[i], nodes2[i], w[i]);
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the dense index of the given key, adding the node if it is new.
+	 */
+	private int indexOf(int key) {
+		checkNotBuilt();
+		int i = index.get(key);
+		if (i == IntIntHashMap.NO_VALUE) {
+			if (nodeSize == keys.length) {
+				keys = Arrays.copyOf(keys, keys.length + (keys.length >> 1) + 1);
+			}
+			i = nodeSize++;
+			keys[i] = key;
+			index.put(key, i);
+		}
+		return i;
+	}
+
+	private void checkNotBuilt() {
+		if (isBuilt) {
+			throw new IllegalStateException("the graph was already built");
+		}
+	}
+
+	/**
+	 * Builds the graph. Runs in O(V + E), E - being the number of added edges.
+	 * The Mode Count of the graph is the number of its nodes and edges.
+	 * @return WGraph_DS
+	 */
+	public WGraph_DS build() {
+		checkNotBuilt();
+		isBuilt = true;
+		int n = nodeSize;
+
+		// Group the edges by their smaller node index (a stable counting sort)
+		int[] groupOffsets = new int[n + 1];
+		for (int e = 0; e < edgeSize; e++) {
+			groupOffsets[Math.min(sources[e], targets[e]) + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			groupOffsets[i + 1] += groupOffsets[i];
+		}
+		int[] grouped = new int[edgeSize];
+		int[] positions = Arrays.copyOf(groupOffsets, n);
+		for (int e = 0; e < edgeSize; e++) {
+			grouped[positions[Math.min(sources[e], targets[e])]++] = e;
+		}
+
+		// In each group keep only the last edge to each other node
+		int[] lastEdge = new int[n];
+		Arrays.fill(lastEdge, -1);
+		boolean[] isKept = new boolean[edgeSize];
+		int[] degrees = new int[n];
+		for (int i = 0; i < n; i++) {
+			for (int j = groupOffsets[i]; j < groupOffsets[i + 1]; j++) {
+				int e = grouped[j];
+				lastEdge[Math.max(sources[e], targets[e])] = e;
+			}
+			for (int j = groupOffsets[i]; j < groupOffsets[i + 1]; j++) {
+				int e = grouped[j];
+				int other = Math.max(sources[e], targets[e]);
+				if (lastEdge[other] == e) {
+					isKept[e] = true;
+					degrees[i]++;
+					degrees[other]++;
+				}
+			}
+		}
+
+		// Write every kept edge in the rows of both its nodes
+		int[] offsets = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			offsets[i + 1] = offsets[i] + degrees[i];
+		}
+		int[] rowTargets = new int[offsets[n]];
+		double[] rowWeights = new double[offsets[n]];
+		positions = Arrays.copyOf(offsets, n);
+		for (int e = 0; e < edgeSize; e++) {
+			if (isKept[e]) {
+				int u = sources[e];
+				int v = targets[e];
+				rowTargets[positions[u]] = v;
+				rowWeights[positions[u]++] = weights[e];
+				rowTargets[positions[v]] = u;
+				rowWeights[positions[v]++] = weights[e];
+			}
+		}
+		WGraph_DS graph = new WGraph_DS(Arrays.copyOf(keys, n), offsets, rowTargets, rowWeights);
+		// Release the edge arrays, the builder cannot be used again
+		sources = null;
+		targets = null;
+		weights = null;
+		return graph;
+	}
+}
@@ -0,0 +1,705 @@
+package ex1.src;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a contraction hierarchy (CH) of an undirected weighted graph,
+ * for fast point-to-point shortest path queries.
+ * Preprocessing contracts the nodes one by one, from the least important to the most important
+ * (by edge difference, with lazy updates). Contracting node v adds a shortcut u-w with weight
+ * w(u,v) + w(v,w) for each pair of its remaining neighbors, unless a local witness search
+ * finds a path u-w that is not longer and does not go through v.
+ * A query is a bidirectional Dijkstra that only goes up in the contraction order,
+ * so it settles a few hundred nodes even on very large graphs.
+ * Each shortcut remembers the node it skips, so the paths unpack to the original nodes.
+ * The hierarchy is valid for the graph as it was when it was built (see getMC()).
+ */
+public class WGraph_CH {
+
+	/**
+	 * The suffix of a hierarchy file saved next to the graph file of WGraph_Algo.save,
+	 * e.g. save(graphFile + WGraph_CH.FILE_SUFFIX).
+	 */
+	public static final String FILE_SUFFIX = ".ch";
+
+	private static final int FILE_MAGIC = 0x57474348; // "WGCH"
+	private static final int FILE_VERSION = 1;
+	// Limits of the witness searches during the contraction
+	private static final int WITNESS_SETTLED_LIMIT = 500;
+	private static final int HEAP_ARITY = 4;
+
+	// The original graph with dense indexes in key order (the graph itself or its CSR snapshot),
+	// with the node_info objects and the original weights
+	private final indexed_graph graph;
+	// The upward graph: for each node index, the edges to higher ranked nodes, sorted by target
+	private final int[] upOffsets;
+	private final int[] upTargets;
+	private final double[] upWeights;
+	// The node skipped by each shortcut, -1 for an original edge
+	private final int[] upMiddles;
+	// The query arrays, a query takes its own so queries from different threads never share state
+	private final SearchWorkspaces workspaces = new SearchWorkspaces();
+
+	/**
+	 * Constructor that builds the contraction hierarchy of the given graph.
+	 * @param weighted_graph graph
+	 */
+	public WGraph_CH(weighted_graph graph) {
+		this.graph = indexed(graph);
+		Contraction contraction = new Contraction(this.graph);
+		contraction.run();
+		int n = this.graph.indexSize();
+		upOffsets = new int[n + 1];
+		for (int u = 0; u < n; u++) {
+			upOffsets[u + 1] = upOffsets[u] + contraction.upwardDegree(u);
+		}
+		upTargets = new int[upOffsets[n]];
+		upWeights = new double[upOffsets[n]];
+		upMiddles = new int[upOffsets[n]];
+		for (int u = 0; u < n; u++) {
+			contraction.copyUpward(u, upTargets, upWeights, upMiddles, upOffsets[u]);
+		}
+	}
+
+	/**
+	 * Private constructor used by load.
+	 */
+	private WGraph_CH(indexed_graph graph, int[] upOffsets, int[] upTargets, double[] upWeights, int[] upMiddles) {
+		this.graph = graph;
+		this.upOffsets = upOffsets;
+		this.upTargets = upTargets;
+		this.upWeights = upWeights;
+		this.upMiddles = upMiddles;
+	}
+
+	/**
+	 * Private function that returns the graph with the indexes of the hierarchy:
+	 * a CSR or a graph searched in place (like WGraph_Mapped) is used as it is,
+	 * any other graph through a CSR snapshot.
+	 * @param weighted_graph graph
+	 * @return indexed_graph
+	 */
+	private static indexed_graph indexed(weighted_graph graph) {
+		if (graph instanceof WGraph_CSR
+				|| graph instanceof indexed_graph && ((indexed_graph) graph).isSearchedInPlace()) {
+			return (indexed_graph) graph;
+		}
+		return new WGraph_CSR(graph);
+	}
+
+	/**
+	 * Returns the number of shortcut edges added by the contraction.
+	 * @return int
+	 */
+	public int shortcutSize() {
+		int shortcuts = 0;
+		for (int middle: upMiddles) {
+			if (middle != -1) {
+				shortcuts++;
+			}
+		}
+		return shortcuts;
+	}
+
+	/**
+	 * Returns the Mode Count of the graph the hierarchy was built for.
+	 * @return int mode count
+	 */
+	public int getMC() {
+		return graph.getMC();
+	}
+
+	/**
+	 * Returns the length of the shortest path between src to dest
+	 * Note: if no such path --> returns -1
+	 * @param src - start node
+	 * @param dest - end (target) node
+	 * @return double
+	 */
+	public double shortestPathDist(int src, int dest) {
+		int[] path = query(src, dest);
+		if (path == null) {
+			return -1;
+		}
+		// Sum the original weights from src, in the same order as Dijkstra algorithm adds them
+		double weight = 0;
+		for (int i = 1; i < path.length; i++) {
+			weight += graph.weightAt(path[i - 1], path[i]);
+		}
+		return weight;
+	}
+
+	/**
+	 * Returns the shortest path between src to dest - as an ordered List of nodes:
+	 * src--> n1-->n2-->...dest
+	 * The shortcuts are unpacked, so the list holds the node_info objects of the original graph.
+	 * Note if no such path --> returns null;
+	 * @param src - start node
+	 * @param dest - end (target) node
+	 * @return List<node_info>
+	 */
+	public List<node_info> shortestPath(int src, int dest) {
+		int[] path = query(src, dest);
+		if (path == null) {
+			return null;
+		}
+		List<node_info> nodes = new ArrayList<>(path.length);
+		for (int i: path) {
+			nodes.add(graph.nodeAt(i));
+		}
+		return nodes;
+	}
+
+	/**
+	 * Private function that runs the upward bidirectional search and unpacks the path.
+	 * Each side only relaxes edges to higher ranked nodes, and stops when its lowest
+	 * heap distance is at least mu, the best distance through a node reached by both sides.
+	 * @param int src - key
+	 * @param int dest - key
+	 * @return int[] the node indices of the unpacked path, null if there is no path
+	 */
+	private int[] query(int src, int dest) {
+		int s = graph.indexOf(src);
+		int t = graph.indexOf(dest);
+		if (s < 0 || t < 0) {
+			return null;
+		}
+		if (s == t) {
+			return new int[] {s};
+		}
+		SearchWorkspace forward = workspaces.acquire();
+		try {
+			SearchWorkspace backward = forward.backward();
+			int n = graph.indexSize();
+			forward.begin(n);
+			backward.begin(n);
+			IndexedDaryHeap forwardHeap = forward.heap(HEAP_ARITY);
+			IndexedDaryHeap backwardHeap = backward.heap(HEAP_ARITY);
+			forward.reach(s, 0, -1);
+			backward.reach(t, 0, -1);
+			forwardHeap.pushOrDecrease(s, 0);
+			backwardHeap.pushOrDecrease(t, 0);
+
+			double mu = Double.POSITIVE_INFINITY;
+			int meet = -1;
+			boolean isForward = true;
+			while (true) {
+				boolean forwardDone = forwardHeap.isEmpty() || forwardHeap.peekPriority() >= mu;
+				boolean backwardDone = backwardHeap.isEmpty() || backwardHeap.peekPriority() >= mu;
+				if (forwardDone && backwardDone) {
+					break;
+				}
+				// Alternate the sides, skipping a side that is done
+				isForward = backwardDone || (!forwardDone && !isForward);
+				SearchWorkspace side = isForward ? forward : backward;
+				SearchWorkspace other = isForward ? backward : forward;
+				IndexedDaryHeap heap = isForward ? forwardHeap : backwardHeap;
+				int node = heap.poll();
+				side.settle(node);
+				double distance = side.distance(node);
+				if (other.isReached(node) && distance + other.distance(node) < mu) {
+					mu = distance + other.distance(node);
+					meet = node;
+				}
+				for (int e = upOffsets[node]; e < upOffsets[node + 1]; e++) {
+					int neighbor = upTargets[e];
+					double newDistance = distance + upWeights[e];
+					if (newDistance < side.distance(neighbor)) {
+						side.reach(neighbor, newDistance, node);
+						heap.pushOrDecrease(neighbor, newDistance);
+					}
+				}
+			}
+			if (meet == -1) {
+				return null;
+			}
+			// The hierarchy path: the forward parents up to meet, then the backward parents down to t
+			IntList hierarchyPath = new IntList();
+			for (int i = meet; i != -1; i = forward.parent(i)) {
+				hierarchyPath.add(i);
+			}
+			hierarchyPath.reverse();
+			for (int i = backward.parent(meet); i != -1; i = backward.parent(i)) {
+				hierarchyPath.add(i);
+			}
+			return unpack(hierarchyPath);
+		}
+		finally {
+			workspaces.release(forward);
+		}
+	}
+
+	/**
+	 * Private function that replaces every shortcut on the path with the two edges it skips,
+	 * until only original edges are left. It uses an explicit stack instead of recursion.
+	 * @param IntList hierarchyPath
+	 * @return int[] the unpacked path
+	 */
+	private int[] unpack(IntList hierarchyPath) {
+		IntList path = new IntList();
+		IntList stack = new IntList();
+		path.add(hierarchyPath.get(0));
+		for (int i = 1; i < hierarchyPath.size(); i++) {
+			// The stack holds the nodes still to be reached, the next one on top
+			stack.add(hierarchyPath.get(i));
+			while (stack.size() > 0) {
+				int from = path.get(path.size() - 1);
+				int to = stack.get(stack.size() - 1);
+				int middle = middleOf(from, to);
+				if (middle == -1) {
+					path.add(to);
+					stack.removeLast();
+				}
+				else {
+					stack.add(middle);
+				}
+			}
+		}
+		return path.toArray();
+	}
+
+	/**
+	 * Private function that returns the node skipped by the edge u-v of the hierarchy.
+	 * The edge is kept in the row of its lower ranked end.
+	 * @return int middle node index, -1 for an original edge
+	 */
+	private int middleOf(int u, int v) {
+		int position = Arrays.binarySearch(upTargets, upOffsets[u], upOffsets[u + 1], v);
+		if (position < 0) {
+			position = Arrays.binarySearch(upTargets, upOffsets[v], upOffsets[v + 1], u);
+		}
+		return upMiddles[position];
+	}
+
+	/**
+	 * This method saves this hierarchy to the given file name,
+	 * usually the graph file name + FILE_SUFFIX.
+	 * @param file - the file name (may include a relative path).
+	 * @return true - if and only if the file was successfully saved
+	 */
+	public boolean save(String file) {
+		if (file == null) {
+			return false;
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			int n = graph.indexSize();
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(FILE_VERSION);
+			out.writeInt(graph.getMC());
+			out.writeInt(n);
+			out.writeInt(upTargets.length);
+			for (int i = 0; i < n; i++) {
+				out.writeInt(graph.keyAt(i));
+			}
+			for (int offset: upOffsets) {
+				out.writeInt(offset);
+			}
+			for (int e = 0; e < upTargets.length; e++) {
+				out.writeInt(upTargets[e]);
+				out.writeDouble(upWeights[e]);
+				out.writeInt(upMiddles[e]);
+			}
+		}
+		catch(IOException ex) {
+			System.out.print("Error saving file\n" + ex);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * This method loads a hierarchy saved by save for the given graph.
+	 * The graph must be the one the hierarchy was built for:
+	 * the same node keys and the same Mode Count.
+	 * @param file - file name
+	 * @param graph - the graph of the hierarchy
+	 * @return WGraph_CH, null if the file could not be loaded or does not match the graph.
+	 */
+	public static WGraph_CH load(String file, weighted_graph graph) {
+		if (file == null || graph == null) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+				throw new IOException("not a hierarchy file");
+			}
+			indexed_graph indexed = indexed(graph);
+			int modeCounter = in.readInt();
+			int n = in.readInt();
+			int m = in.readInt();
+			if (modeCounter != indexed.getMC() || n != indexed.indexSize()) {
+				throw new IOException("the hierarchy was built for another graph");
+			}
+			for (int i = 0; i < n; i++) {
+				if (in.readInt() != indexed.keyAt(i)) {
+					throw new IOException("the hierarchy was built for another graph");
+				}
+			}
+			if (m < 0) {
+				throw new IOException("corrupt hierarchy file");
+			}
+			int[] upOffsets = new int[n + 1];
+			for (int i = 0; i <= n; i++) {
+				upOffsets[i] = in.readInt();
+				// The rows start at 0, never go back and end at m
+				if (i == 0 ? upOffsets[i] != 0 : upOffsets[i] < upOffsets[i - 1] || upOffsets[i] > m) {
+					throw new IOException("corrupt hierarchy file");
+				}
+			}
+			if (upOffsets[n] != m) {
+				throw new IOException("corrupt hierarchy file");
+			}
+			int[] upTargets = new int[m];
+			double[] upWeights = new double[m];
+			int[] upMiddles = new int[m];
+			for (int e = 0; e < m; e++) {
+				upTargets[e] = in.readInt();
+				upWeights[e] = in.readDouble();
+				upMiddles[e] = in.readInt();
+				if (upTargets[e] < 0 || upTargets[e] >= n || !(upWeights[e] >= 0)
+						|| upMiddles[e] < -1 || upMiddles[e] >= n) {
+					throw new IOException("corrupt hierarchy file");
+				}
+			}
+			checkHierarchy(n, upOffsets, upTargets, upMiddles);
+			return new WGraph_CH(indexed, upOffsets, upTargets, upWeights, upMiddles);
+		}
+		catch(IOException ex) {
+			System.out.print("Error loading file\n" + ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Private function that checks that a loaded upward graph is a hierarchy the queries can use:
+	 * the rows are sorted by target, the upward edges have no cycle (so some ranking orders them),
+	 * and the node skipped by a shortcut u-v has upward edges to both u and v, so it is ranked below them.
+	 * Otherwise middleOf could miss an edge, or unpack could replace shortcuts forever.
+	 * @throws IOException if the file does not hold such a hierarchy
+	 */
+	private static void checkHierarchy(int n, int[] upOffsets, int[] upTargets, int[] upMiddles) throws IOException {
+		int[] inDegree = new int[n];
+		for (int u = 0; u < n; u++) {
+			for (int e = upOffsets[u]; e < upOffsets[u + 1]; e++) {
+				if (upTargets[e] == u || (e > upOffsets[u] && upTargets[e] <= upTargets[e - 1])) {
+					throw new IOException("corrupt hierarchy file");
+				}
+				inDegree[upTargets[e]]++;
+			}
+		}
+		for (int u = 0; u < n; u++) {
+			for (int e = upOffsets[u]; e < upOffsets[u + 1]; e++) {
+				int middle = upMiddles[e];
+				if (middle != -1 && (Arrays.binarySearch(upTargets, upOffsets[middle], upOffsets[middle + 1], u) < 0
+						|| Arrays.binarySearch(upTargets, upOffsets[middle], upOffsets[middle + 1], upTargets[e]) < 0)) {
+					throw new IOException("corrupt hierarchy file");
+				}
+			}
+		}
+		// Kahn's algorithm: every node is removed in turn if and only if there is no cycle
+		int[] queue = new int[n];
+		int tail = 0;
+		for (int u = 0; u < n; u++) {
+			if (inDegree[u] == 0) {
+				queue[tail++] = u;
+			}
+		}
+		for (int head = 0; head < tail; head++) {
+			int u = queue[head];
+			for (int e = upOffsets[u]; e < upOffsets[u + 1]; e++) {
+				if (--inDegree[upTargets[e]] == 0) {
+					queue[tail++] = upTargets[e];
+				}
+			}
+		}
+		if (tail != n) {
+			throw new IOException("corrupt hierarchy file");
+		}
+	}
+
+	/**
+	 * This class copies the edges of a row of the graph into growable buffers.
+	 */
+	private static final class RowReader implements edge_visitor {
+
+		private int[] targets = new int[16];
+		private double[] weights = new double[16];
+		private int degree;
+
+		@Override
+		public void visit(int neighbor, double w) {
+			if (degree == targets.length) {
+				targets = Arrays.copyOf(targets, degree * 2);
+				weights = Arrays.copyOf(weights, degree * 2);
+			}
+			targets[degree] = neighbor;
+			weights[degree] = w;
+			degree++;
+		}
+	}
+
+	/**
+	 * This class runs the contraction of the nodes of an indexed graph without gaps (see indexed).
+	 * Each node has growable arrays of all the edges it ever had (original and shortcuts),
+	 * and the contracted flags tell which ends are still in the remaining graph.
+	 */
+	private static class Contraction {
+
+		private final int n;
+		private int[][] neighbors;
+		private double[][] weights;
+		private int[][] middles;
+		private final int[] degrees;
+		private final boolean[] contracted;
+		private final int[] rank;
+		// Number of contracted neighbors of each node, a term of its priority
+		private final int[] deletedNeighbors;
+		private final SearchWorkspace workspace = new SearchWorkspace();
+		// Reused buffers for the remaining neighbors of the node being contracted
+		private int[] pairNodes = new int[16];
+		private double[] pairWeights = new double[16];
+
+		private Contraction(indexed_graph graph) {
+			n = graph.indexSize();
+			neighbors = new int[n][];
+			weights = new double[n][];
+			middles = new int[n][];
+			degrees = new int[n];
+			contracted = new boolean[n];
+			rank = new int[n];
+			deletedNeighbors = new int[n];
+			RowReader reader = new RowReader();
+			for (int u = 0; u < n; u++) {
+				reader.degree = 0;
+				graph.forEachEdgeAt(u, reader);
+				int degree = reader.degree;
+				neighbors[u] = Arrays.copyOf(reader.targets, degree);
+				weights[u] = Arrays.copyOf(reader.weights, degree);
+				middles[u] = new int[degree];
+				Arrays.fill(middles[u], -1);
+				degrees[u] = degree;
+			}
+		}
+
+		/**
+		 * Contracts all the nodes, the one with the lowest priority first.
+		 * A priority is recomputed when the node is polled, and if it is no longer
+		 * the lowest the node is pushed back (lazy updates).
+		 */
+		private void run() {
+			IndexedDaryHeap order = new IndexedDaryHeap(HEAP_ARITY);
+			order.reset(n);
+			for (int v = 0; v < n; v++) {
+				order.pushOrDecrease(v, priority(v));
+			}
+			int nextRank = 0;
+			while (!order.isEmpty()) {
+				int v = order.poll();
+				double priority = priority(v);
+				if (!order.isEmpty() && priority > order.peekPriority()) {
+					order.pushOrDecrease(v, priority);
+					continue;
+				}
+				contract(v, true);
+				contracted[v] = true;
+				rank[v] = nextRank++;
+				for (int i = 0; i < degrees[v]; i++) {
+					deletedNeighbors[neighbors[v][i]]++;
+				}
+			}
+		}
+
+		/**
+		 * The priority of a node: the shortcuts its contraction adds minus the edges it removes,
+		 * plus its contracted neighbors so the contraction spreads evenly over the graph.
+		 */
+		private double priority(int v) {
+			int remainingDegree = 0;
+			for (int i = 0; i < degrees[v]; i++) {
+				if (!contracted[neighbors[v][i]]) {
+					remainingDegree++;
+				}
+			}
+			return contract(v, false) - remainingDegree + deletedNeighbors[v];
+		}
+
+		/**
+		 * Finds the shortcuts needed to contract v, and adds them if apply is true.
+		 * @return int number of shortcuts
+		 */
+		private int contract(int v, boolean apply) {
+			int count = 0;
+			for (int i = 0; i < degrees[v]; i++) {
+				int u = neighbors[v][i];
+				if (!contracted[u]) {
+					if (count == pairNodes.length) {
+						pairNodes = Arrays.copyOf(pairNodes, count << 1);
+						pairWeights = Arrays.copyOf(pairWeights, count << 1);
+					}
+					pairNodes[count] = u;
+					pairWeights[count++] = weights[v][i];
+				}
+			}
+			int shortcuts = 0;
+			for (int i = 0; i < count - 1; i++) {
+				int u = pairNodes[i];
+				double maxVia = 0;
+				for (int j = i + 1; j < count; j++) {
+					maxVia = Math.max(maxVia, pairWeights[i] + pairWeights[j]);
+				}
+				witnessSearch(u, v, maxVia);
+				for (int j = i + 1; j < count; j++) {
+					double via = pairWeights[i] + pairWeights[j];
+					// A shortcut is needed unless a witness path is not longer than the path via v
+					if (workspace.distance(pairNodes[j]) > via) {
+						shortcuts++;
+						if (apply) {
+							addEdge(u, pairNodes[j], via, v);
+							addEdge(pairNodes[j], u, via, v);
+						}
+					}
+				}
+			}
+			return shortcuts;
+		}
+
+		/**
+		 * Local Dijkstra from src in the remaining graph without the node excluded,
+		 * that stops at distance maxDistance or after WITNESS_SETTLED_LIMIT nodes.
+		 * Nodes it does not reach keep an infinite distance, so they get a shortcut.
+		 */
+		private void witnessSearch(int src, int excluded, double maxDistance) {
+			workspace.begin(n);
+			IndexedDaryHeap heap = workspace.heap(HEAP_ARITY);
+			workspace.reach(src, 0, -1);
+			heap.pushOrDecrease(src, 0);
+			int settled = 0;
+			while (!heap.isEmpty() && heap.peekPriority() <= maxDistance && settled < WITNESS_SETTLED_LIMIT) {
+				int node = heap.poll();
+				workspace.settle(node);
+				settled++;
+				double distance = workspace.distance(node);
+				for (int i = 0; i < degrees[node]; i++) {
+					int neighbor = neighbors[node][i];
+					if (neighbor == excluded || contracted[neighbor]) {
+						continue;
+					}
+					double newDistance = distance + weights[node][i];
+					if (newDistance < workspace.distance(neighbor)) {
+						workspace.reach(neighbor, newDistance, node);
+						heap.pushOrDecrease(neighbor, newDistance);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Adds the edge u-v, or lowers the weight of an existing one.
+		 */
+		private void addEdge(int u, int v, double w, int middle) {
+			for (int i = 0; i < degrees[u]; i++) {
+				if (neighbors[u][i] == v) {
+					if (w < weights[u][i]) {
+						weights[u][i] = w;
+						middles[u][i] = middle;
+					}
+					return;
+				}
+			}
+			int degree = degrees[u];
+			if (degree == neighbors[u].length) {
+				int capacity = Math.max(4, degree << 1);
+				neighbors[u] = Arrays.copyOf(neighbors[u], capacity);
+				weights[u] = Arrays.copyOf(weights[u], capacity);
+				middles[u] = Arrays.copyOf(middles[u], capacity);
+			}
+			neighbors[u][degree] = v;
+			weights[u][degree] = w;
+			middles[u][degree] = middle;
+			degrees[u] = degree + 1;
+		}
+
+		private int upwardDegree(int u) {
+			int degree = 0;
+			for (int i = 0; i < degrees[u]; i++) {
+				if (rank[neighbors[u][i]] > rank[u]) {
+					degree++;
+				}
+			}
+			return degree;
+		}
+
+		/**
+		 * Copies the edges of u to higher ranked nodes, sorted by target, from the given position.
+		 */
+		private void copyUpward(int u, int[] targets, double[] upWeights, int[] upMiddles, int from) {
+			int to = from;
+			for (int i = 0; i < degrees[u]; i++) {
+				int v = neighbors[u][i];
+				if (rank[v] <= rank[u]) {
+					continue;
+				}
+				// Insertion sort by target, the rows are short
+				int position = to++;
+				while (position > from && targets[position - 1] > v) {
+					targets[position] = targets[position - 1];
+					upWeights[position] = upWeights[position - 1];
+					upMiddles[position] = upMiddles[position - 1];
+					position--;
+				}
+				targets[position] = v;
+				upWeights[position] = weights[u][i];
+				upMiddles[position] = middles[u][i];
+			}
+		}
+	}
+
+	/**
+	 * This class is a minimal growable int array for building paths.
+	 */
+	private static class IntList {
+
+		private int[] items = new int[16];
+		private int size;
+
+		private void add(int item) {
+			if (size == items.length) {
+				items = Arrays.copyOf(items, size << 1);
+			}
+			items[size++] = item;
+		}
+
+		private int get(int i) {
+			return items[i];
+		}
+
+		private int size() {
+			return size;
+		}
+
+		private void removeLast() {
+			size--;
+		}
+
+		private void reverse() {
+			for (int i = 0, j = size - 1; i < j; i++, j--) {
+				int item = items[i];
+				items[i] = items[j];
+				items[j] = item;
+			}
+		}
+
+		private int[] toArray() {
+			return Arrays.copyOf(items, size);
+		}
+	}
+}
@@ -0,0 +1,407 @@
+package ex1.src;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements weighted_graph interface
+ * that represents an immutable compressed-sparse-row (CSR) snapshot
+ * of an undirected weighted graph.
+ * Each node gets a dense index 0..n-1 (in ascending key order), and the neighbors
+ * of index i are targets[offsets[i]..offsets[i+1]) with the matching weights,
+ * sorted by target index.
+ * The dense indexes are the ones of indexed_graph, with no free index.
+ * The node_info objects are shared with the graph the snapshot was taken from,
+ * so the snapshot freezes the structure and not the info/tag metadata.
+ * All the methods that change the graph throw UnsupportedOperationException.
+ */
+public class WGraph_CSR implements indexed_graph, Serializable {
+
+	private static final long serialVersionUID = 1L;
+	// The largest array the rows can be stored in, each undirected edge takes two entries
+	private static final int MAX_ROW_ENTRIES = Integer.MAX_VALUE - 8;
+
+	// This map holds the dense index of each node key
+	private final IntIntHashMap index;
+	private final int[] keys;
+	private final node_info[] nodes;
+	private final int[] offsets;
+	private final int[] targets;
+	private final double[] weights;
+	private final int modeCounter;
+
+	/**
+	 * Constructor that takes a snapshot of an existing graph.
+	 * The nodes are the ones getV() iterates, so a graph that other threads change
+	 * (see WGraph_Concurrent) gives a snapshot of whatever the iteration saw.
+	 * @param weighted_graph graph
+	 * @throws IllegalArgumentException if the graph has more edges than the int offsets can hold
+	 */
+	public WGraph_CSR(weighted_graph graph) {
+		if (2L * graph.edgeSize() > MAX_ROW_ENTRIES) {
+			throw new IllegalArgumentException("too many edges for a CSR snapshot: " + graph.edgeSize());
+		}
+		// The size is only a hint, the iteration decides how many nodes there are
+		int[] nodeKeys = new int[Math.max(graph.nodeSize(), 16)];
+		node_info[] nodeInfos = new node_info[nodeKeys.length];
+		int n = 0;
+		for (node_info node: graph.getV()) {
+			if (n == nodeKeys.length) {
+				nodeKeys = Arrays.copyOf(nodeKeys, 2 * n);
+				nodeInfos = Arrays.copyOf(nodeInfos, 2 * n);
+			}
+			nodeKeys[n] = node.getKey();
+			nodeInfos[n++] = node;
+		}
+		// Sort the nodes by key, taking the node objects along
+		long[] order = new long[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = ((long) nodeKeys[i] << 32) | i;
+		}
+		Arrays.sort(order);
+		keys = new int[n];
+		nodes = new node_info[n];
+		index = new IntIntHashMap(n);
+		for (int i = 0; i < n; i++) {
+			keys[i] = (int) (order[i] >> 32);
+			nodes[i] = nodeInfos[(int) order[i]];
+			index.put(keys[i], i);
+		}
+
+		// Fill the rows in one pass over the edges, growing the arrays if the edge count was off
+		RowFiller filler = new RowFiller(index, 2 * graph.edgeSize());
+		offsets = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			graph.forEachEdge(keys[i], filler);
+			// Sort the row so edges can be found by binary search
+			sortRow(filler.targets, filler.weights, offsets[i], filler.size);
+			offsets[i + 1] = filler.size;
+		}
+		targets = filler.size == filler.targets.length ? filler.targets : Arrays.copyOf(filler.targets, filler.size);
+		weights = filler.size == filler.weights.length ? filler.weights : Arrays.copyOf(filler.weights, filler.size);
+		modeCounter = graph.getMC();
+	}
+
+	/**
+	 * Private function that sorts targets[from..to) by target index, moving the weights with them.
+	 * Short rows are insertion sorted in place; long ones are sorted as (target, position) pairs packed in longs.
+	 */
+	private static void sortRow(int[] targets, double[] weights, int from, int to) {
+		if (to - from <= 32) {
+			for (int j = from + 1; j < to; j++) {
+				int target = targets[j];
+				double weight = weights[j];
+				int k = j - 1;
+				for (; k >= from && targets[k] > target; k--) {
+					targets[k + 1] = targets[k];
+					weights[k + 1] = weights[k];
+				}
+				targets[k + 1] = target;
+				weights[k + 1] = weight;
+			}
+			return;
+		}
+		long[] pairs = new long[to - from];
+		for (int j = from; j < to; j++) {
+			pairs[j - from] = ((long) targets[j] << 32) | (j - from);
+		}
+		Arrays.sort(pairs);
+		double[] rowWeights = Arrays.copyOfRange(weights, from, to);
+		for (int j = 0; j < pairs.length; j++) {
+			targets[from + j] = (int) (pairs[j] >>> 32);
+			weights[from + j] = rowWeights[(int) pairs[j]];
+		}
+	}
+
+	/**
+	 * This class is the edge_visitor that appends the edges of each row to the targets and weights arrays.
+	 */
+	private static final class RowFiller implements edge_visitor {
+
+		private final IntIntHashMap index;
+		private int[] targets;
+		private double[] weights;
+		private int size;
+
+		private RowFiller(IntIntHashMap index, int capacity) {
+			this.index = index;
+			targets = new int[capacity];
+			weights = new double[capacity];
+		}
+
+		@Override
+		public void visit(int neighborKey, double w) {
+			int target = index.get(neighborKey);
+			// A neighbor that was added after the nodes were read is not in the snapshot
+			if (target == IntIntHashMap.NO_VALUE) {
+				return;
+			}
+			if (size == targets.length) {
+				if (size == MAX_ROW_ENTRIES) {
+					throw new IllegalArgumentException("too many edges for a CSR snapshot");
+				}
+				targets = Arrays.copyOf(targets, (int) Math.min(MAX_ROW_ENTRIES, Math.max(16, 2L * size)));
+				weights = Arrays.copyOf(weights, targets.length);
+			}
+			targets[size] = target;
+			weights[size++] = w;
+		}
+	}
+
+	/**
+	 * Returns the dense index of the given key.
+	 * @param int key
+	 * @return int index, -1 if there is no such node.
+	 */
+	@Override
+	public int indexOf(int key) {
+		return index.get(key);
+	}
+
+	/**
+	 * Returns the key of the node at the given dense index.
+	 * @param int i - index in 0..nodeSize()-1
+	 * @return int key
+	 */
+	@Override
+	public int keyAt(int i) {
+		return keys[i];
+	}
+
+	/**
+	 * Returns the node_info at the given dense index.
+	 * @param int i - index in 0..nodeSize()-1
+	 * @return node_info, null if no node has this index.
+	 */
+	@Override
+	public node_info nodeAt(int i) {
+		return i >= 0 && i < nodes.length ? nodes[i] : null;
+	}
+
+	/**
+	 * Returns the number of dense indexes, which is the number of nodes.
+	 * @return int
+	 */
+	@Override
+	public int indexSize() {
+		return nodes.length;
+	}
+
+	/**
+	 * Calls the visitor with the index and the weight of each edge of the node at index i, from the row arrays.
+	 * @param int i - index
+	 * @param edge_visitor visitor
+	 */
+	@Override
+	public void forEachEdgeAt(int i, edge_visitor visitor) {
+		if (i < 0 || i >= nodes.length) {
+			return;
+		}
+		for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+			visitor.visit(targets[j], weights[j]);
+		}
+	}
+
+	/**
+	 * Returns the weight of the edge between the nodes at index i and index j,
+	 * by binary search over the row of i.
+	 * @param int i - index
+	 * @param int j - index
+	 * @return double weight, -1 if there is no such edge
+	 */
+	@Override
+	public double weightAt(int i, int j) {
+		if (i < 0 || i >= nodes.length) {
+			return -1;
+		}
+		int position = Arrays.binarySearch(targets, offsets[i], offsets[i + 1], j);
+		return position < 0 ? -1 : weights[position];
+	}
+
+	// The raw arrays are shared with the algorithms of this package, they must not be changed
+	int[] offsets() {
+		return offsets;
+	}
+
+	int[] targets() {
+		return targets;
+	}
+
+	double[] weights() {
+		return weights;
+	}
+
+	/**
+	 * Returns the node_info by the key.
+	 * @param int key
+	 * @return the node_info by the key, null if none.
+	 */
+	@Override
+	public node_info getNode(int key) {
+		int i = index.get(key);
+		return i == IntIntHashMap.NO_VALUE ? null : nodes[i];
+	}
+
+	/**
+	 * Returns true if and only if there
+	 * is an edge between node1 and node2.
+	 * Runs in O(log k), k - being the degree of node1.
+	 * @param int node1
+	 * @param int node2
+	 * @return boolean
+	 */
+	@Override
+	public boolean hasEdge(int node1, int node2) {
+		return findPosition(node1, node2) >= 0;
+	}
+
+	/**
+	 * Returns the weight of the edge between node1 and node2.
+	 * In case there is no such edge - returns -1
+	 * @param int node1
+	 * @param int node2
+	 * @return double
+	 */
+	@Override
+	public double getEdge(int node1, int node2) {
+		int position = findPosition(node1, node2);
+		return position < 0 ? -1 : weights[position];
+	}
+
+	/**
+	 * Private function that returns the position of the edge node1-node2 in the targets array.
+	 * @return int position, -1 if there is no such edge
+	 */
+	private int findPosition(int node1, int node2) {
+		int index1 = index.get(node1);
+		int index2 = index.get(node2);
+		if (node1 == node2 || index1 == IntIntHashMap.NO_VALUE || index2 == IntIntHashMap.NO_VALUE) {
+			return -1;
+		}
+		int position = Arrays.binarySearch(targets, offsets[index1], offsets[index1 + 1], index2);
+		return position < 0 ? -1 : position;
+	}
+
+	@Override
+	public void addNode(int key) {
+		throw new UnsupportedOperationException("WGraph_CSR is immutable");
+	}
+
+	@Override
+	public void connect(int node1, int node2, double w) {
+		throw new UnsupportedOperationException("WGraph_CSR is immutable");
+	}
+
+	/**
+	 * This method returns a read-only Collection representing all the nodes in the graph.
+	 * @return Collection<node_info>
+	 */
+	@Override
+	public Collection<node_info> getV() {
+		return Collections.unmodifiableList(Arrays.asList(nodes));
+	}
+
+	/**
+	 * This method returns a read-only Collection containing all the
+	 * nodes connected to node_id
+	 * @param int node_id - key
+	 * @return Collection<node_info>, null if there is no such node.
+	 */
+	@Override
+	public Collection<node_info> getV(int node_id) {
+		final int i = index.get(node_id);
+		if (i == IntIntHashMap.NO_VALUE) {
+			return null;
+		}
+		return new AbstractCollection<node_info>() {
+
+			@Override
+			public Iterator<node_info> iterator() {
+				return new Iterator<node_info>() {
+					private int position = offsets[i];
+
+					@Override
+					public boolean hasNext() {
+						return position < offsets[i + 1];
+					}
+
+					@Override
+					public node_info next() {
+						if (position >= offsets[i + 1]) {
+							throw new NoSuchElementException();
+						}
+						return nodes[targets[position++]];
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return offsets[i + 1] - offsets[i];
+			}
+		};
+	}
+
+	/**
+	 * Calls the visitor with the key and the weight of each edge of node_id, from the row arrays.
+	 * @param int node_id - key
+	 * @param edge_visitor visitor
+	 */
+	@Override
+	public void forEachEdge(int node_id, edge_visitor visitor) {
+		int i = index.get(node_id);
+		if (i == IntIntHashMap.NO_VALUE) {
+			return;
+		}
+		for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+			visitor.visit(keys[targets[j]], weights[j]);
+		}
+	}
+
+	@Override
+	public node_info removeNode(int key) {
+		throw new UnsupportedOperationException("WGraph_CSR is immutable");
+	}
+
+	@Override
+	public void removeEdge(int node1, int node2) {
+		throw new UnsupportedOperationException("WGraph_CSR is immutable");
+	}
+
+	/**
+	 * Returns the number of vertices (nodes) in the graph.
+	 * @return int node size
+	 */
+	@Override
+	public int nodeSize() {
+		return keys.length;
+	}
+
+	/**
+	 * Returns the number of edges (undirected graph).
+	 * @return int edge size
+	 */
+	@Override
+	public int edgeSize() {
+		return targets.length / 2;
+	}
+
+	/**
+	 * Returns the Mode Count of the graph at the time the snapshot was taken.
+	 * @return int mode count
+	 */
+	@Override
+	public int getMC() {
+		return modeCounter;
+	}
+
+	@Override
+	public String toString() {
+		return "nodesSize=" + keys.length + ", edgeSize=" + edgeSize() + ", modeCounter=" + modeCounter;
+	}
+}
@@ -0,0 +1,147 @@
+package ex1.src;
+
+/**
+ * This class implements graph_listener interface
+ * as a bounded log of the changes of a graph, kept in a ring buffer.
+ * Each change gets a sequence number (0, 1, 2...), and a consumer reads the changes
+ * from the sequence it saw last with read(sequence, listener), which replays them in order.
+ * The log keeps only the last capacity changes, so a consumer that falls
+ * too far behind is told (read returns -1) and should rebuild from the graph itself.
+ * The events are stored in primitive arrays, so logging a change allocates nothing.
+ * All the methods are synchronized, so a graph can log while other threads read.
+ */
+public class WGraph_ChangeLog implements graph_listener {
+
+	public static final byte NODE_ADDED = 0;
+	public static final byte NODE_REMOVED = 1;
+	public static final byte EDGE_ADDED = 2;
+	public static final byte EDGE_UPDATED = 3;
+	public static final byte EDGE_REMOVED = 4;
+
+	private final byte[] types;
+	private final int[] nodes1;
+	private final int[] nodes2;
+	private final double[] oldWeights;
+	private final double[] weights;
+	// The removed node_info objects, only for NODE_REMOVED entries
+	private final node_info[] removedNodes;
+	private long nextSequence;
+
+	/**
+	 * Constructor that sets the number of changes the log keeps.
+	 * @param int capacity - at least 1
+	 */
+	public WGraph_ChangeLog(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least 1");
+		}
+		types = new byte[capacity];
+		nodes1 = new int[capacity];
+		nodes2 = new int[capacity];
+		oldWeights = new double[capacity];
+		weights = new double[capacity];
+		removedNodes = new node_info[capacity];
+	}
+
+	/**
+	 * Returns the number of changes the log keeps.
+	 * @return int capacity
+	 */
+	public int capacity() {
+		return types.length;
+	}
+
+	/**
+	 * Returns the sequence number the next change will get.
+	 * @return long sequence
+	 */
+	public synchronized long nextSequence() {
+		return nextSequence;
+	}
+
+	/**
+	 * Returns the sequence number of the oldest change that is still in the log.
+	 * @return long sequence
+	 */
+	public synchronized long firstSequence() {
+		return Math.max(0, nextSequence - types.length);
+	}
+
+	/**
+	 * Replays the changes from the given sequence number to the newest one, in order.
+	 * @param long sequence - the first change to replay
+	 * @param graph_listener consumer
+	 * @return long the sequence to read from next time,
+	 * -1 if changes from the given sequence are no longer in the log (nothing is replayed)
+	 */
+	public synchronized long read(long sequence, graph_listener consumer) {
+		if (sequence < firstSequence() || sequence > nextSequence) {
+			return -1;
+		}
+		for (long s = sequence; s < nextSequence; s++) {
+			int i = (int) (s % types.length);
+			switch (types[i]) {
+			case NODE_ADDED:
+				consumer.nodeAdded(nodes1[i]);
+				break;
+			case NODE_REMOVED:
+				consumer.nodeRemoved(removedNodes[i]);
+				break;
+			case EDGE_ADDED:
+				consumer.edgeAdded(nodes1[i], nodes2[i], weights[i]);
+				break;
+			case EDGE_UPDATED:
+				consumer.edgeUpdated(nodes1[i], nodes2[i], oldWeights[i], weights[i]);
+				break;
+			default:
+				consumer.edgeRemoved(nodes1[i], nodes2[i], weights[i]);
+				break;
+			}
+		}
+		return nextSequence;
+	}
+
+	/**
+	 * Private function that writes a change in the next slot of the ring buffer.
+	 */
+	private void append(byte type, int node1, int node2, double oldWeight, double weight, node_info removed) {
+		int i = (int) (nextSequence % types.length);
+		types[i] = type;
+		nodes1[i] = node1;
+		nodes2[i] = node2;
+		oldWeights[i] = oldWeight;
+		weights[i] = weight;
+		removedNodes[i] = removed;
+		nextSequence++;
+	}
+
+	@Override
+	public synchronized void nodeAdded(int key) {
+		append(NODE_ADDED, key, key, 0, 0, null);
+	}
+
+	@Override
+	public synchronized void nodeRemoved(node_info node) {
+		append(NODE_REMOVED, node.getKey(), node.getKey(), 0, 0, node);
+	}
+
+	@Override
+	public synchronized void edgeAdded(int node1, int node2, double w) {
+		append(EDGE_ADDED, node1, node2, 0, w, null);
+	}
+
+	@Override
+	public synchronized void edgeUpdated(int node1, int node2, double oldWeight, double w) {
+		append(EDGE_UPDATED, node1, node2, oldWeight, w, null);
+	}
+
+	@Override
+	public synchronized void edgeRemoved(int node1, int node2, double w) {
+		append(EDGE_REMOVED, node1, node2, 0, w, null);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "firstSequence=" + firstSequence() + ", nextSequence=" + nextSequence + ", capacity=" + types.length;
+	}
+}
@@ -0,0 +1,618 @@
+package ex1.src;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements weighted_graph interface
+ * that represents an undirected weighted graph with a compact memory layout.
+ * Each node gets a dense slot, and the neighbors of each slot are held
+ * in parallel int[] (neighbor slots) and double[] (weights) arrays.
+ * Nodes with a high degree also get a small open-addressing index
+ * over their neighbor arrays, so edge lookups stay O(1).
+ * An edge costs 24 bytes (two half-edges of int + double) instead of
+ * the HashMap nodes and boxed Doubles that WGraph_DS uses.
+ */
+public class WGraph_Compact implements weighted_graph, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// Degree from which a node gets a hash index over its neighbor arrays
+	private static final int INDEX_THRESHOLD = 16;
+	private static final int[] NO_NEIGHBORS = new int[0];
+	private static final double[] NO_WEIGHTS = new double[0];
+
+	// This map holds the slot of each node key
+	private IntIntHashMap slots;
+	// These arrays are indexed by slot
+	private NodeInfo[] nodes;
+	private int[][] neighbors;
+	private double[][] weights;
+	private int[] degrees;
+	// Holds position + 1 of each neighbor, null for low degree nodes
+	private int[][] neighborIndex;
+	// Stack of slots freed by removeNode
+	private int[] freeSlots;
+	private int freeCount;
+	// Number of slots that were ever used
+	private int slotCount;
+
+	private int nodeSize;
+	private int edgeSize;
+	private int modeCounter;
+
+	/**
+	 * Default constructor.
+	 */
+	public WGraph_Compact() {
+		this(16);
+	}
+
+	/**
+	 * Constructor that presizes the graph for the expected number of nodes.
+	 * @param int expectedNodes
+	 */
+	public WGraph_Compact(int expectedNodes) {
+		int capacity = Math.max(expectedNodes, 16);
+		slots = new IntIntHashMap(capacity);
+		nodes = new NodeInfo[capacity];
+		neighbors = new int[capacity][];
+		weights = new double[capacity][];
+		degrees = new int[capacity];
+		neighborIndex = new int[capacity][];
+		freeSlots = new int[16];
+	}
+
+	/**
+	 * Deep copy constructor that copies
+	 * an existing graph and creates a new graph.
+	 */
+	public WGraph_Compact(weighted_graph graph) {
+		this(graph == null ? 16 : graph.nodeSize());
+		// Check if graph is null, if null do nothing
+		if (graph == null) {
+			return;
+		}
+		for (node_info node: graph.getV()) {
+			addNode(node.getKey());
+			node_info copy = getNode(node.getKey());
+			copy.setInfo(node.getInfo());
+			copy.setTag(node.getTag());
+		}
+		for (node_info node: graph.getV()) {
+			int nodeKey = node.getKey();
+			graph.forEachEdge(nodeKey, (neighborKey, w) -> {
+				// Connect each undirected edge once
+				if (nodeKey < neighborKey) {
+					connect(nodeKey, neighborKey, w);
+				}
+			});
+		}
+		// Set the mode counter to the same value as the copied graph
+		modeCounter = graph.getMC();
+	}
+
+	/**
+	 * Returns the node_info by the key.
+	 * @param int key
+	 * @return the node_info by the key, null if none.
+	 */
+	@Override
+	public node_info getNode(int key) {
+		int slot = slots.get(key);
+		return slot == IntIntHashMap.NO_VALUE ? null : nodes[slot];
+	}
+
+	/**
+	 * Returns true if and only if there
+	 * is an edge between node1 and node2
+	 * @param int node1
+	 * @param int node2
+	 * @return boolean
+	 */
+	@Override
+	public boolean hasEdge(int node1, int node2) {
+		if (node1 == node2) {
+			return false;
+		}
+		int slot1 = slots.get(node1);
+		int slot2 = slots.get(node2);
+		return slot1 != IntIntHashMap.NO_VALUE && slot2 != IntIntHashMap.NO_VALUE
+				&& findPosition(slot1, slot2) >= 0;
+	}
+
+	/**
+	 * Returns the weight of the edge between node1 and node2.
+	 * In case there is no such edge - returns -1
+	 * @param int node1
+	 * @param int node2
+	 * @return double
+	 */
+	@Override
+	public double getEdge(int node1, int node2) {
+		if (node1 == node2) {
+			return -1;
+		}
+		int slot1 = slots.get(node1);
+		int slot2 = slots.get(node2);
+		if (slot1 == IntIntHashMap.NO_VALUE || slot2 == IntIntHashMap.NO_VALUE) {
+			return -1;
+		}
+		int position = findPosition(slot1, slot2);
+		return position < 0 ? -1 : weights[slot1][position];
+	}
+
+	/**
+	 * Adds a new node to the graph with the given key.
+	 * If there is already a node with such a key -> no action is performed.
+	 * @param int key
+	 */
+	@Override
+	public void addNode(int key) {
+		if (slots.containsKey(key)) {
+			return;
+		}
+		int slot;
+		// Reuse a slot of a removed node if there is one
+		if (freeCount > 0) {
+			slot = freeSlots[--freeCount];
+		}
+		else {
+			if (slotCount == nodes.length) {
+				growSlots(slotCount << 1);
+			}
+			slot = slotCount++;
+		}
+		nodes[slot] = new NodeInfo(key);
+		neighbors[slot] = NO_NEIGHBORS;
+		weights[slot] = NO_WEIGHTS;
+		degrees[slot] = 0;
+		neighborIndex[slot] = null;
+		slots.put(key, slot);
+		nodeSize++;
+		modeCounter++;
+	}
+
+	/**
+	 * Connect an edge between node1 and node2, with an edge with weight >=0.
+	 * If the edge node1-node2 already exists
+	 * then the method simply updates the weight of the edge.
+	 * @param int node1
+	 * @param int node2
+	 * @param double w - weight
+	 */
+	@Override
+	public void connect(int node1, int node2, double w) {
+		if (node1 == node2 || w < 0) {
+			return;
+		}
+		int slot1 = slots.get(node1);
+		int slot2 = slots.get(node2);
+		if (slot1 == IntIntHashMap.NO_VALUE || slot2 == IntIntHashMap.NO_VALUE) {
+			return;
+		}
+		int position1 = findPosition(slot1, slot2);
+		// If node1 and node2 are neighbors then update the weight
+		if (position1 >= 0) {
+			weights[slot1][position1] = w;
+			weights[slot2][findPosition(slot2, slot1)] = w;
+		}
+		else {
+			append(slot1, slot2, w);
+			append(slot2, slot1, w);
+			edgeSize++;
+		}
+		modeCounter++;
+	}
+
+	/**
+	 * This method returns a pointer (shallow copy) for a
+	 * Collection representing all the nodes in the graph.
+	 * @return Collection<node_info>
+	 */
+	@Override
+	public Collection<node_info> getV() {
+		return new NodesView();
+	}
+
+	/**
+	 * This method returns a Collection containing all the
+	 * nodes connected to node_id
+	 * @param int node_id - key
+	 * @return Collection<node_info>, null if there is no such node.
+	 */
+	@Override
+	public Collection<node_info> getV(int node_id) {
+		int slot = slots.get(node_id);
+		return slot == IntIntHashMap.NO_VALUE ? null : new NeighborsView(slot);
+	}
+
+	/**
+	 * Calls the visitor with the key and the weight of each edge of node_id, from the arrays of its slot.
+	 * @param int node_id - key
+	 * @param edge_visitor visitor
+	 */
+	@Override
+	public void forEachEdge(int node_id, edge_visitor visitor) {
+		int slot = slots.get(node_id);
+		if (slot == IntIntHashMap.NO_VALUE) {
+			return;
+		}
+		int[] slotNeighbors = neighbors[slot];
+		double[] slotWeights = weights[slot];
+		for (int i = 0; i < degrees[slot]; i++) {
+			visitor.visit(nodes[slotNeighbors[i]].getKey(), slotWeights[i]);
+		}
+	}
+
+	/**
+	 * Deletes the node (with the given ID) from the graph -
+	 * and removes all edges which starts or ends at this node.
+	 * Runs in O(k), k - being the degree of the node.
+	 * @param int key
+	 * @return node_info - the data of the removed node (null if none).
+	 */
+	@Override
+	public node_info removeNode(int key) {
+		int slot = slots.get(key);
+		if (slot == IntIntHashMap.NO_VALUE) {
+			return null;
+		}
+		// Remove this node from the arrays of each of its neighbors
+		for (int i = degrees[slot] - 1; i >= 0; i--) {
+			int neighborSlot = neighbors[slot][i];
+			removeAt(neighborSlot, findPosition(neighborSlot, slot));
+			edgeSize--;
+			modeCounter++;
+		}
+		node_info nodeInfo = nodes[slot];
+		nodes[slot] = null;
+		neighbors[slot] = NO_NEIGHBORS;
+		weights[slot] = NO_WEIGHTS;
+		degrees[slot] = 0;
+		neighborIndex[slot] = null;
+		slots.remove(key);
+		if (freeCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, freeCount << 1);
+		}
+		freeSlots[freeCount++] = slot;
+		nodeSize--;
+		modeCounter++;
+		return nodeInfo;
+	}
+
+	/**
+	 * Deletes the edge from the graph.
+	 * @param int node1
+	 * @param int node2
+	 */
+	@Override
+	public void removeEdge(int node1, int node2) {
+		if (node1 == node2) {
+			return;
+		}
+		int slot1 = slots.get(node1);
+		int slot2 = slots.get(node2);
+		if (slot1 == IntIntHashMap.NO_VALUE || slot2 == IntIntHashMap.NO_VALUE) {
+			return;
+		}
+		int position1 = findPosition(slot1, slot2);
+		if (position1 < 0) {
+			return;
+		}
+		removeAt(slot1, position1);
+		removeAt(slot2, findPosition(slot2, slot1));
+		edgeSize--;
+		modeCounter++;
+	}
+
+	/**
+	 * Returns the number of vertices (nodes) in the graph.
+	 * @return int node size
+	 */
+	@Override
+	public int nodeSize() {
+		return nodeSize;
+	}
+
+	/**
+	 * Returns the number of edges (undirected graph).
+	 * @return int edge size
+	 */
+	@Override
+	public int edgeSize() {
+		return edgeSize;
+	}
+
+	/**
+	 * Returns the Mode Count - for testing changes in the graph.
+	 * Any change in the inner state of the graph causes an increment in the ModeCount.
+	 * @return int mode count
+	 */
+	@Override
+	public int getMC() {
+		return modeCounter;
+	}
+
+	@Override
+	public String toString() {
+		return "nodesSize=" + nodeSize + ", edgeSize=" + edgeSize + ", modeCounter=" + modeCounter;
+	}
+
+	/**
+	 * Private function that returns the position of neighborSlot
+	 * in the neighbor arrays of slot.
+	 * @param int slot
+	 * @param int neighborSlot
+	 * @return int position, -1 if they are not neighbors
+	 */
+	private int findPosition(int slot, int neighborSlot) {
+		int[] slotNeighbors = neighbors[slot];
+		int[] index = neighborIndex[slot];
+		// Low degree nodes are scanned, their arrays fit in a cache line or two
+		if (index == null) {
+			for (int i = degrees[slot] - 1; i >= 0; i--) {
+				if (slotNeighbors[i] == neighborSlot) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		int mask = index.length - 1;
+		int bucket = IntIntHashMap.hash(neighborSlot) & mask;
+		while (index[bucket] != 0) {
+			int position = index[bucket] - 1;
+			if (slotNeighbors[position] == neighborSlot) {
+				return position;
+			}
+			bucket = (bucket + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Private function that appends a half-edge to the arrays of slot.
+	 */
+	private void append(int slot, int neighborSlot, double w) {
+		int degree = degrees[slot];
+		if (degree == neighbors[slot].length) {
+			int capacity = Math.max(4, degree << 1);
+			neighbors[slot] = Arrays.copyOf(neighbors[slot], capacity);
+			weights[slot] = Arrays.copyOf(weights[slot], capacity);
+		}
+		neighbors[slot][degree] = neighborSlot;
+		weights[slot][degree] = w;
+		degrees[slot] = degree + 1;
+
+		int[] index = neighborIndex[slot];
+		if (index == null) {
+			if (degree + 1 > INDEX_THRESHOLD) {
+				rebuildIndex(slot);
+			}
+		}
+		// Keep the index at most half full
+		else if ((degree + 1) << 1 > index.length) {
+			rebuildIndex(slot);
+		}
+		else {
+			indexInsert(index, neighborSlot, degree);
+		}
+	}
+
+	/**
+	 * Private function that removes the half-edge at position from the arrays of slot,
+	 * by moving the last half-edge into its place.
+	 */
+	private void removeAt(int slot, int position) {
+		int last = degrees[slot] - 1;
+		int[] index = neighborIndex[slot];
+		if (index != null) {
+			indexDelete(slot, index, position);
+			if (position != last) {
+				indexMove(index, neighbors[slot][last], last, position);
+			}
+		}
+		neighbors[slot][position] = neighbors[slot][last];
+		weights[slot][position] = weights[slot][last];
+		degrees[slot] = last;
+		// Drop the index when the node becomes a low degree node again
+		if (index != null && last < INDEX_THRESHOLD / 2) {
+			neighborIndex[slot] = null;
+		}
+	}
+
+	private void rebuildIndex(int slot) {
+		int length = 16;
+		while (length < degrees[slot] << 2) {
+			length <<= 1;
+		}
+		int[] index = new int[length];
+		for (int i = 0; i < degrees[slot]; i++) {
+			indexInsert(index, neighbors[slot][i], i);
+		}
+		neighborIndex[slot] = index;
+	}
+
+	private static void indexInsert(int[] index, int neighborSlot, int position) {
+		int mask = index.length - 1;
+		int bucket = IntIntHashMap.hash(neighborSlot) & mask;
+		while (index[bucket] != 0) {
+			bucket = (bucket + 1) & mask;
+		}
+		index[bucket] = position + 1;
+	}
+
+	/**
+	 * Private function that redirects the index entry of neighborSlot from one position to another.
+	 */
+	private static void indexMove(int[] index, int neighborSlot, int from, int to) {
+		int mask = index.length - 1;
+		int bucket = IntIntHashMap.hash(neighborSlot) & mask;
+		while (index[bucket] != from + 1) {
+			bucket = (bucket + 1) & mask;
+		}
+		index[bucket] = to + 1;
+	}
+
+	/**
+	 * Private function that deletes the index entry of the given position
+	 * using backward-shift deletion.
+	 */
+	private void indexDelete(int slot, int[] index, int position) {
+		int[] slotNeighbors = neighbors[slot];
+		int mask = index.length - 1;
+		int gap = IntIntHashMap.hash(slotNeighbors[position]) & mask;
+		while (index[gap] != position + 1) {
+			gap = (gap + 1) & mask;
+		}
+		int bucket = gap;
+		while (true) {
+			bucket = (bucket + 1) & mask;
+			if (index[bucket] == 0) {
+				break;
+			}
+			int home = IntIntHashMap.hash(slotNeighbors[index[bucket] - 1]) & mask;
+			if (((bucket - home) & mask) >= ((bucket - gap) & mask)) {
+				index[gap] = index[bucket];
+				gap = bucket;
+			}
+		}
+		index[gap] = 0;
+	}
+
+	private void growSlots(int capacity) {
+		nodes = Arrays.copyOf(nodes, capacity);
+		neighbors = Arrays.copyOf(neighbors, capacity);
+		weights = Arrays.copyOf(weights, capacity);
+		degrees = Arrays.copyOf(degrees, capacity);
+		neighborIndex = Arrays.copyOf(neighborIndex, capacity);
+	}
+
+	/**
+	 * This class is a read-through Collection view of all the nodes in the graph.
+	 */
+	private class NodesView extends AbstractCollection<node_info> {
+
+		@Override
+		public Iterator<node_info> iterator() {
+			return new Iterator<node_info>() {
+				private int slot = advance(0);
+
+				private int advance(int from) {
+					while (from < slotCount && nodes[from] == null) {
+						from++;
+					}
+					return from;
+				}
+
+				@Override
+				public boolean hasNext() {
+					return slot < slotCount;
+				}
+
+				@Override
+				public node_info next() {
+					if (slot >= slotCount) {
+						throw new NoSuchElementException();
+					}
+					node_info node = nodes[slot];
+					slot = advance(slot + 1);
+					return node;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return nodeSize;
+		}
+	}
+
+	/**
+	 * This class is a read-through Collection view of the neighbors of one node.
+	 */
+	private class NeighborsView extends AbstractCollection<node_info> {
+
+		private final int slot;
+
+		private NeighborsView(int slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		public Iterator<node_info> iterator() {
+			return new Iterator<node_info>() {
+				private int position = 0;
+
+				@Override
+				public boolean hasNext() {
+					return position < degrees[slot];
+				}
+
+				@Override
+				public node_info next() {
+					if (position >= degrees[slot]) {
+						throw new NoSuchElementException();
+					}
+					return nodes[neighbors[slot][position++]];
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return degrees[slot];
+		}
+	}
+
+	/**
+	 * This class implements node_info interface
+	 * that represents the node information.
+	 */
+	private static class NodeInfo implements node_info, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int key;
+		private String info;
+		private double tag = 0;
+
+		private NodeInfo(int key) {
+			this.key = key;
+		}
+
+		@Override
+		public int getKey() {
+			return key;
+		}
+
+		@Override
+		public String getInfo() {
+			return info;
+		}
+
+		@Override
+		public void setInfo(String s) {
+			info = s;
+		}
+
+		@Override
+		public double getTag() {
+			return tag;
+		}
+
+		@Override
+		public void setTag(double t) {
+			tag = t;
+		}
+
+		@Override
+		public String toString() {
+			return "key=" + key;
+		}
+	}
+}
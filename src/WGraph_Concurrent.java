@@ -0,0 +1,400 @@
+package ex1.src;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class implements weighted_graph interface
+ * that represents an undirected weighted graph that many threads can change at once.
+ * The nodes and the neighbor weights of each node are held in ConcurrentHashMaps,
+ * and the writers are serialized per pair of nodes by lock striping:
+ * connect and removeEdge lock the stripes of both their nodes (in stripe order, so they cannot deadlock),
+ * so writers of unrelated edges run in parallel. The counters are LongAdders.
+ * The readers never lock. An edge is held in the maps of both its nodes, and the map of the smaller key
+ * is the one that counts: a new edge is written there last and a removed edge is removed there first,
+ * so hasEdge(a, b), hasEdge(b, a), getEdge(a, b) and getEdge(b, a) always agree.
+ * getV and getV(key) are weakly consistent views, like the iterators of ConcurrentHashMap;
+ * an edge that is being added or removed may show in the neighbors of one of its nodes only.
+ * removeNode removes the node first (no edge can be added to it after that) and then its edges one by one.
+ * The algorithms of WGraph_Algo read the graph through these views, so while writers keep changing it
+ * they run on a snapshot that may hold some of the concurrent changes and not others (and even one direction
+ * of an edge only); for exact results run them once the writers are done, or on a copy.
+ */
+public class WGraph_Concurrent implements weighted_graph, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int DEFAULT_STRIPES = 256;
+
+	// This map holds the nodes of this graph
+	private final ConcurrentHashMap<Integer, NodeInfo> nodes = new ConcurrentHashMap<>();
+	private final ReentrantLock[] stripes;
+	private final LongAdder edgeSize = new LongAdder();
+	private final LongAdder modeCounter = new LongAdder();
+
+	/**
+	 * Default constructor.
+	 */
+	public WGraph_Concurrent() {
+		this(DEFAULT_STRIPES);
+	}
+
+	/**
+	 * Constructor that sets the number of lock stripes, rounded up to a power of 2.
+	 * More stripes let more writers run at once.
+	 * @param int stripeCount - at least 1
+	 */
+	public WGraph_Concurrent(int stripeCount) {
+		if (stripeCount < 1) {
+			throw new IllegalArgumentException("stripeCount must be at least 1");
+		}
+		int size = Integer.highestOneBit(stripeCount);
+		stripes = new ReentrantLock[size < stripeCount ? size << 1 : size];
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Deep copy constructor that copies an existing graph.
+	 * @param weighted_graph graph - null makes an empty graph
+	 */
+	public WGraph_Concurrent(weighted_graph graph) {
+		this();
+		// Check if graph is null, if null do nothing
+		if (graph == null) {
+			return;
+		}
+		for (node_info node: graph.getV()) {
+			NodeInfo nodeInfo = new NodeInfo(node.getKey());
+			nodeInfo.info = node.getInfo();
+			nodeInfo.tag = node.getTag();
+			nodes.put(node.getKey(), nodeInfo);
+		}
+		for (node_info node: graph.getV()) {
+			int nodeKey = node.getKey();
+			graph.forEachEdge(nodeKey, (neighborKey, w) -> {
+				// Each edge once, from its smaller key
+				if (nodeKey < neighborKey) {
+					connect(nodeKey, neighborKey, w);
+				}
+			});
+		}
+		modeCounter.reset();
+		modeCounter.add(graph.getMC());
+	}
+
+	/**
+	 * Returns the index of the lock stripe of the given key.
+	 */
+	private int stripe(int key) {
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & (stripes.length - 1);
+	}
+
+	/**
+	 * Locks the stripes of both nodes, the lower stripe first.
+	 */
+	private void lock(int node1, int node2) {
+		int stripe1 = stripe(node1);
+		int stripe2 = stripe(node2);
+		stripes[Math.min(stripe1, stripe2)].lock();
+		if (stripe1 != stripe2) {
+			stripes[Math.max(stripe1, stripe2)].lock();
+		}
+	}
+
+	private void unlock(int node1, int node2) {
+		int stripe1 = stripe(node1);
+		int stripe2 = stripe(node2);
+		stripes[stripe1].unlock();
+		if (stripe1 != stripe2) {
+			stripes[stripe2].unlock();
+		}
+	}
+
+	/**
+	 * Returns the node_info by the key.
+	 * @param int key
+	 * @return the node_info by the key, null if none.
+	 */
+	@Override
+	public node_info getNode(int key) {
+		return nodes.get(key);
+	}
+
+	/**
+	 * Returns true if and only if there
+	 * is an edge between node1 and node2
+	 * @param int node1
+	 * @param int node2
+	 * @return boolean
+	 */
+	@Override
+	public boolean hasEdge(int node1, int node2) {
+		return getEdge(node1, node2) != -1;
+	}
+
+	/**
+	 * Returns the weight of the edge between node1 and node2.
+	 * In case there is no such edge - returns -1
+	 * @param int node1
+	 * @param int node2
+	 * @return double
+	 */
+	@Override
+	public double getEdge(int node1, int node2) {
+		if (node1 == node2) {
+			return -1;
+		}
+		NodeInfo nodeInfo1 = nodes.get(Math.min(node1, node2));
+		NodeInfo nodeInfo2 = nodes.get(Math.max(node1, node2));
+		if (nodeInfo1 == null || nodeInfo2 == null) {
+			return -1;
+		}
+		Double weight = nodeInfo1.neighbors.get(nodeInfo2);
+		return weight == null ? -1 : weight;
+	}
+
+	/**
+	 * Adds a new node to the graph with the given key.
+	 * If there is already a node with such a key -> no action is performed.
+	 * @param int key
+	 */
+	@Override
+	public void addNode(int key) {
+		if (!nodes.containsKey(key) && nodes.putIfAbsent(key, new NodeInfo(key)) == null) {
+			modeCounter.increment();
+		}
+	}
+
+	/**
+	 * Connect an edge between node1 and node2, with an edge with weight >=0.
+	 * If the edge node1-node2 already exists
+	 * then the method simply updates the weight of the edge.
+	 * @param int node1
+	 * @param int node2
+	 * @param double w - weight
+	 */
+	@Override
+	public void connect(int node1, int node2, double w) {
+		if (node1 == node2 || w < 0) {
+			return;
+		}
+		int low = Math.min(node1, node2);
+		int high = Math.max(node1, node2);
+		lock(low, high);
+		try {
+			// The nodes are checked under the locks, so removeNode cannot remove them in the meantime
+			NodeInfo lowNode = nodes.get(low);
+			NodeInfo highNode = nodes.get(high);
+			if (lowNode == null || highNode == null) {
+				return;
+			}
+			highNode.neighbors.put(lowNode, w);
+			// The map of the smaller key is written last, readers see the edge from here
+			if (lowNode.neighbors.put(highNode, w) == null) {
+				edgeSize.increment();
+			}
+			modeCounter.increment();
+		}
+		finally {
+			unlock(low, high);
+		}
+	}
+
+	/**
+	 * This method returns a pointer (shallow copy) for a
+	 * Collection representing all the nodes in the graph.
+	 * @return Collection<node_info>
+	 */
+	@Override
+	public Collection<node_info> getV() {
+		return Collections.unmodifiableCollection(nodes.values());
+	}
+
+	/**
+	 * This method returns a Collection containing all the
+	 * nodes connected to node_id
+	 * @param int node_id - key
+	 * @return Collection<node_info>, null if there is no such node
+	 */
+	@Override
+	public Collection<node_info> getV(int node_id) {
+		NodeInfo nodeInfo = nodes.get(node_id);
+		return nodeInfo == null ? null : Collections.unmodifiableSet(nodeInfo.neighbors.keySet());
+	}
+
+	/**
+	 * Calls the visitor with the key and the weight of each edge of node_id,
+	 * weakly consistent like getV(node_id).
+	 * @param int node_id - key
+	 * @param edge_visitor visitor
+	 */
+	@Override
+	public void forEachEdge(int node_id, edge_visitor visitor) {
+		NodeInfo nodeInfo = nodes.get(node_id);
+		if (nodeInfo != null) {
+			nodeInfo.neighbors.forEach((neighbor, w) -> visitor.visit(neighbor.key, w));
+		}
+	}
+
+	/**
+	 * Deletes the node (with the given ID) from the graph -
+	 * and removes all edges which starts or ends at this node.
+	 * Runs in O(k), k - being the degree of the node.
+	 * @param int key
+	 * @return node_info - the data of the removed node (null if none).
+	 */
+	@Override
+	public node_info removeNode(int key) {
+		NodeInfo nodeInfo;
+		ReentrantLock lock = stripes[stripe(key)];
+		lock.lock();
+		try {
+			// Every connect to this node holds this lock, so none can add an edge after the node is gone
+			nodeInfo = nodes.remove(key);
+		}
+		finally {
+			lock.unlock();
+		}
+		if (nodeInfo == null) {
+			return null;
+		}
+		for (NodeInfo neighbor: nodeInfo.neighbors.keySet()) {
+			removeEdge(nodeInfo, neighbor);
+		}
+		modeCounter.increment();
+		return nodeInfo;
+	}
+
+	/**
+	 * Deletes the edge from the graph.
+	 * @param int node1
+	 * @param int node2
+	 */
+	@Override
+	public void removeEdge(int node1, int node2) {
+		if (node1 == node2) {
+			return;
+		}
+		NodeInfo nodeInfo1 = nodes.get(node1);
+		NodeInfo nodeInfo2 = nodes.get(node2);
+		if (nodeInfo1 != null && nodeInfo2 != null) {
+			removeEdge(nodeInfo1, nodeInfo2);
+		}
+	}
+
+	/**
+	 * Private function that removes the edge between two node objects, if it is still there.
+	 * Working on the objects (not the keys) keeps a node that was removed and added again apart from the old one.
+	 */
+	private void removeEdge(NodeInfo nodeInfo1, NodeInfo nodeInfo2) {
+		NodeInfo lowNode = nodeInfo1.key < nodeInfo2.key ? nodeInfo1 : nodeInfo2;
+		NodeInfo highNode = lowNode == nodeInfo1 ? nodeInfo2 : nodeInfo1;
+		lock(lowNode.key, highNode.key);
+		try {
+			// The map of the smaller key is removed first, readers stop seeing the edge from here
+			if (lowNode.neighbors.remove(highNode) != null) {
+				highNode.neighbors.remove(lowNode);
+				edgeSize.decrement();
+				modeCounter.increment();
+			}
+		}
+		finally {
+			unlock(lowNode.key, highNode.key);
+		}
+	}
+
+	/**
+	 * Returns the number of vertices (nodes) in the graph.
+	 * @return int node size
+	 */
+	@Override
+	public int nodeSize() {
+		return nodes.size();
+	}
+
+	/**
+	 * Returns the number of edges (undirected graph).
+	 * @return int edge size
+	 */
+	@Override
+	public int edgeSize() {
+		return (int) edgeSize.sum();
+	}
+
+	/**
+	 * Returns the Mode Count - for testing changes in the graph.
+	 * Any change in the inner state of the graph causes an increment in the ModeCount.
+	 * While other threads change the graph the value is only a moment's estimate.
+	 * @return int mode count
+	 */
+	@Override
+	public int getMC() {
+		return (int) modeCounter.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "nodesSize=" + nodes.size() + ", edgeSize=" + edgeSize() + ", modeCounter=" + getMC();
+	}
+
+	/**
+	 * This class implements node_info interface
+	 * that represents the node information, with the neighbor weights of the node.
+	 * Nodes are equal only to themselves, so a node that was removed and added again is a new node.
+	 */
+	private static class NodeInfo implements node_info, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int key;
+		private volatile String info;
+		private volatile double tag;
+		private final Map<NodeInfo, Double> neighbors = new ConcurrentHashMap<>();
+
+		/**
+		 * Constructor that copies the key.
+		 * @param int key
+		 */
+		private NodeInfo(int key) {
+			this.key = key;
+		}
+
+		@Override
+		public int getKey() {
+			return key;
+		}
+
+		@Override
+		public String getInfo() {
+			return info;
+		}
+
+		@Override
+		public void setInfo(String s) {
+			info = s;
+		}
+
+		@Override
+		public double getTag() {
+			return tag;
+		}
+
+		@Override
+		public void setTag(double t) {
+			tag = t;
+		}
+
+		@Override
+		public String toString() {
+			return "key=" + key;
+		}
+	}
+}
@@ -1,24 +1,68 @@
 package ex1.src;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 /**
  * This class implements weighted_graph interface
  * that represents an undirected weighted graph.
+ * The nodes and their neighbor weights are spread over blocks of HashMaps by the hash of their keys
+ * (a block per 4096 nodes), so snapshot() can share them with a read-only view in O(1)
+ * and later changes copy only the block and the neighbor maps they touch.
+ * Each node also has a dense index (see indexOf), so algorithms can keep their
+ * per-node data in flat arrays instead of maps by key.
  */
-public class WGraph_DS implements weighted_graph, Serializable {
+public class WGraph_DS implements indexed_graph, Serializable {
 
 	private static final long serialVersionUID = 1L;
+	// The Java serialization form is the one of the original HashMap fields, see writeObject
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("nodes", HashMap.class),
+			new ObjectStreamField("neighborWeights", HashMap.class),
+			new ObjectStreamField("edgeSize", int.class),
+			new ObjectStreamField("modeCounter", int.class)};
 
-	// This HashMap holds the nodes of this graph
-	private HashMap<Integer, node_info> nodes = new HashMap<>();
-	// This HashMap holds the neighbor weights of each node 
-	private HashMap<Integer, HashMap<node_info, Double>> neighborWeights = new HashMap<>();
-	
+	// The number of nodes per block from which the blocks are split in two
+	private static final int BLOCK_SIZE = 4096;
+	private static final int MAX_BLOCKS = 1 << 16;
+	// The number of nodes from which the copy constructor copies the blocks in parallel
+	private static final int PARALLEL_COPY_THRESHOLD = 1 << 16;
+
+	// The blocks that hold the nodes of this graph and their neighbor weights
+	private transient Block[] blocks = {new Block(1, 16)};
+	// True if a snapshot holds the blocks array, then the next change copies it
+	private transient boolean isBlocksShared;
+	// snapshot() starts a new epoch; blocks and neighbor maps of older epochs may be shared with snapshots
+	private transient int epoch = 1;
+	private transient Collection<node_info> nodeView;
+	// The node of each dense index (null for a free index), and the free indexes that removeNode left
+	private transient NodeInfo[] indexNodes = new NodeInfo[16];
+	private transient int indexSize;
+	private transient int[] freeIndexes = new int[16];
+	private transient int freeIndexCount;
+
+	private int nodeSize;
 	private int edgeSize;
 	private int modeCounter;
+	// The registered listeners, null if there are none (they are not saved with the graph)
+	private transient graph_listener[] listeners;
 
 	/**
 	 * Default constructor.
@@ -31,36 +75,262 @@ public class WGraph_DS implements weighted_graph, Serializable {
 	/**
 	 * Deep copy constructor that copies
 	 * an existing graph and creates a new graph.
+	 * A WGraph_DS (or one of its snapshots) is copied block by block, see copyBlocks;
+	 * any other graph is copied through the weighted_graph interface, each edge once.
 	 */
 	public WGraph_DS(weighted_graph graph) {
 		// Check if graph is null, if null do nothing
 		if (graph == null) {
 			return;
 		}
+		if (graph instanceof WGraph_DS) {
+			copyBlocks(((WGraph_DS) graph).blocks, ((WGraph_DS) graph).indexSize);
+		}
+		else if (graph instanceof Snapshot) {
+			copyBlocks(((Snapshot) graph).blocks, ((Snapshot) graph).indexSize);
+		}
+		if (graph instanceof WGraph_DS || graph instanceof Snapshot) {
+			nodeSize = graph.nodeSize();
+			edgeSize = graph.edgeSize();
+			modeCounter = graph.getMC();
+			return;
+		}
 		// Loop over the graph nodes
 		for (node_info node: graph.getV()) {
-			int nodeKey = node.getKey();
 			// Create a new node and add it to the graph
-			nodes.put(nodeKey, new NodeInfo(node));
-			
-			// Check if this node has no neighbor, if not then continue to the next node
-			if (graph.getV(nodeKey) == null) {
-				continue;
-			}
-			// Loop over the neighbors of this node
-			for (node_info neighbor: graph.getV(nodeKey)) {
-				int neighborKey = neighbor.getKey();
-				// Check if keys are not the same and if they are neighbors
-				if (nodeKey != neighborKey && graph.hasEdge(nodeKey, neighborKey)) {
-					// Connect the nodes
-					connect(nodeKey, neighborKey, graph.getEdge(nodeKey, neighborKey));
+			putNode(new NodeInfo(node));
+		}
+		for (node_info node: graph.getV()) {
+			int nodeKey = node.getKey();
+			// Connect each edge once, from its smaller key
+			graph.forEachEdge(nodeKey, (neighborKey, w) -> {
+				if (nodeKey < neighborKey) {
+					connect(nodeKey, neighborKey, w);
 				}
-			}	
+			});
 		}
 		// Set the mode counter to the same value as the copied graph
 		modeCounter = graph.getMC();
 	}
 
+	/**
+	 * Private function that deep copies the blocks of another WGraph_DS, with the same block layout.
+	 * Every map is created with its final size, and each half-edge costs one lookup of the copied neighbor.
+	 * The nodes are copied first and then the neighbor maps, and each pass runs in parallel
+	 * over the blocks for large graphs, as a block is only written by its own task.
+	 * The copied nodes keep their dense indexes.
+	 */
+	private void copyBlocks(Block[] source, int sourceIndexSize) {
+		Block[] copy = new Block[source.length];
+		int nodes = 0;
+		for (Block block: source) {
+			nodes += block.nodes.size();
+		}
+		IntStream indices = IntStream.range(0, source.length);
+		if (nodes >= PARALLEL_COPY_THRESHOLD) {
+			indices = indices.parallel();
+		}
+		NodeInfo[] copyIndexNodes = new NodeInfo[Math.max(sourceIndexSize, 16)];
+		indices.forEach(b -> {
+			Block block = new Block(epoch, capacityFor(source[b].nodes.size()));
+			for (node_info node: source[b].nodes.values()) {
+				NodeInfo nodeInfo = new NodeInfo(node);
+				nodeInfo.index = ((NodeInfo) node).index;
+				copyIndexNodes[nodeInfo.index] = nodeInfo;
+				block.nodes.put(node.getKey(), nodeInfo);
+			}
+			copy[b] = block;
+		});
+		indices = IntStream.range(0, source.length);
+		if (nodes >= PARALLEL_COPY_THRESHOLD) {
+			indices = indices.parallel();
+		}
+		indices.forEach(b -> {
+			for (Map.Entry<Integer, Neighbors> entry: source[b].neighbors.entrySet()) {
+				Neighbors neighbors = new Neighbors(capacityFor(entry.getValue().size()), epoch);
+				entry.getValue().forEachEdge((key, w) -> neighbors.putWeight((NodeInfo) node(copy, key), w));
+				copy[b].neighbors.put(entry.getKey(), neighbors);
+			}
+		});
+		blocks = copy;
+		setIndexNodes(copyIndexNodes, sourceIndexSize);
+	}
+
+	/**
+	 * Private function that sets the node of each dense index, the null entries below indexSize become the free indexes.
+	 */
+	private void setIndexNodes(NodeInfo[] nodes, int size) {
+		indexNodes = nodes;
+		indexSize = size;
+		freeIndexCount = 0;
+		for (int i = size - 1; i >= 0; i--) {
+			if (nodes[i] == null) {
+				if (freeIndexCount == freeIndexes.length) {
+					freeIndexes = Arrays.copyOf(freeIndexes, 2 * freeIndexCount);
+				}
+				freeIndexes[freeIndexCount++] = i;
+			}
+		}
+	}
+
+	/**
+	 * Constructor that creates a graph from edges in CSR form, used by WGraph_Builder and WGraph_File.
+	 * The neighbors of keys[i] are the nodes keys[targets[j]] for j in offsets[i]..offsets[i+1]-1,
+	 * every edge must be in the rows of both its nodes, and there are no duplicates or self-loops.
+	 * All the maps are created with their final size, and the Mode Count is
+	 * the same as if every node and edge had been added once.
+	 */
+	WGraph_DS(int[] keys, int[] offsets, int[] targets, double[] weights) {
+		int n = keys.length;
+		blocks = newBlocks(n);
+		NodeInfo[] nodeInfos = new NodeInfo[Math.max(n, 16)];
+		for (int i = 0; i < n; i++) {
+			nodeInfos[i] = new NodeInfo(keys[i]);
+			nodeInfos[i].index = i;
+			blocks[blockOf(keys[i])].nodes.put(keys[i], nodeInfos[i]);
+		}
+		setIndexNodes(nodeInfos, n);
+		for (int i = 0; i < n; i++) {
+			int degree = offsets[i + 1] - offsets[i];
+			// Nodes without neighbors have no inner map, as after addNode
+			if (degree == 0) {
+				continue;
+			}
+			Neighbors neighbors = new Neighbors(capacityFor(degree), epoch);
+			for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+				neighbors.putWeight(nodeInfos[targets[j]], weights[j]);
+			}
+			blocks[blockOf(keys[i])].neighbors.put(keys[i], neighbors);
+		}
+		nodeSize = n;
+		edgeSize = offsets[n] / 2;
+		modeCounter = n + edgeSize;
+	}
+
+	/**
+	 * Returns a HashMap capacity that holds the given number of entries without rehashing.
+	 */
+	private static int capacityFor(int size) {
+		return (int) (size / 0.75f) + 1;
+	}
+
+	/**
+	 * Returns new empty blocks, as many as the given number of nodes needs.
+	 */
+	private Block[] newBlocks(int nodes) {
+		int count = 1;
+		while (count < MAX_BLOCKS && (long) count * BLOCK_SIZE < nodes) {
+			count <<= 1;
+		}
+		Block[] newBlocks = new Block[count];
+		for (int b = 0; b < count; b++) {
+			newBlocks[b] = new Block(epoch, capacityFor(nodes / count));
+		}
+		return newBlocks;
+	}
+
+	/**
+	 * Returns the index of the block of the given key in blocks of the given length.
+	 */
+	private static int blockOf(int key, int blockCount) {
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & (blockCount - 1);
+	}
+
+	private int blockOf(int key) {
+		return blockOf(key, blocks.length);
+	}
+
+	private static node_info node(Block[] blocks, int key) {
+		return blocks[blockOf(key, blocks.length)].nodes.get(key);
+	}
+
+	private static Neighbors neighbors(Block[] blocks, int key) {
+		return blocks[blockOf(key, blocks.length)].neighbors.get(key);
+	}
+
+	/**
+	 * Calls the visitor with each edge of the neighbors of the given key,
+	 * read from the arrays of the map with no iterator or lambda.
+	 */
+	private static void forEachEdge(Block[] blocks, int key, edge_visitor visitor) {
+		Neighbors neighbors = neighbors(blocks, key);
+		if (neighbors != null) {
+			neighbors.forEachEdge(visitor);
+		}
+	}
+
+	/**
+	 * Returns the block of the given key for a change, copying it first if a snapshot may share it.
+	 */
+	private Block writableBlock(int key) {
+		if (isBlocksShared) {
+			blocks = blocks.clone();
+			isBlocksShared = false;
+		}
+		int b = blockOf(key);
+		if (blocks[b].epoch != epoch) {
+			blocks[b] = new Block(blocks[b], epoch);
+		}
+		return blocks[b];
+	}
+
+	/**
+	 * Returns the neighbor weights of the given node for a change, copying them first if a snapshot may share them.
+	 * Creates them if the node has none.
+	 */
+	private Neighbors writableNeighbors(int key) {
+		Block block = writableBlock(key);
+		Neighbors neighbors = block.neighbors.get(key);
+		if (neighbors == null || neighbors.epoch != epoch) {
+			neighbors = neighbors == null ? new Neighbors(16, epoch) : new Neighbors(neighbors, epoch);
+			block.neighbors.put(key, neighbors);
+		}
+		return neighbors;
+	}
+
+	/**
+	 * Private function that adds a node object, splitting the blocks when they grow too large.
+	 * The node takes the last freed index, or the next new one.
+	 */
+	private void putNode(NodeInfo nodeInfo) {
+		if (freeIndexCount > 0) {
+			nodeInfo.index = freeIndexes[--freeIndexCount];
+		}
+		else {
+			if (indexSize == indexNodes.length) {
+				indexNodes = Arrays.copyOf(indexNodes, 2 * indexSize);
+			}
+			nodeInfo.index = indexSize++;
+		}
+		indexNodes[nodeInfo.index] = nodeInfo;
+		writableBlock(nodeInfo.getKey()).nodes.put(nodeInfo.getKey(), nodeInfo);
+		nodeSize++;
+		if (nodeSize > (long) blocks.length * BLOCK_SIZE && blocks.length < MAX_BLOCKS) {
+			splitBlocks();
+		}
+	}
+
+	/**
+	 * Private function that doubles the number of blocks. The neighbor maps are moved, not copied.
+	 */
+	private void splitBlocks() {
+		Block[] oldBlocks = blocks;
+		blocks = new Block[2 * oldBlocks.length];
+		isBlocksShared = false;
+		for (int b = 0; b < blocks.length; b++) {
+			blocks[b] = new Block(epoch, capacityFor(BLOCK_SIZE / 2));
+		}
+		for (Block block: oldBlocks) {
+			for (Map.Entry<Integer, node_info> node: block.nodes.entrySet()) {
+				blocks[blockOf(node.getKey())].nodes.put(node.getKey(), node.getValue());
+			}
+			for (Map.Entry<Integer, Neighbors> neighbors: block.neighbors.entrySet()) {
+				blocks[blockOf(neighbors.getKey())].neighbors.put(neighbors.getKey(), neighbors.getValue());
+			}
+		}
+	}
+
 	/**
 	 * Returns the node_info by the key.
 	 * @param int key
@@ -68,7 +338,7 @@ public class WGraph_DS implements weighted_graph, Serializable {
 	 */
 	@Override
 	public node_info getNode(int key) {
-		return nodes.get(key);
+		return node(blocks, key);
 	}
 
 	/**
@@ -80,12 +350,12 @@ public class WGraph_DS implements weighted_graph, Serializable {
 	 */
 	@Override
 	public boolean hasEdge(int node1, int node2) {
-		node_info nodeInfo1 = nodes.get(node1);
-		node_info nodeInfo2 = nodes.get(node2);
-		HashMap<node_info, Double> node1Neighbors = neighborWeights.get(node1);
-		HashMap<node_info, Double> node2Neighbors = neighborWeights.get(node2);
+		node_info nodeInfo1 = getNode(node1);
+		node_info nodeInfo2 = getNode(node2);
+		Neighbors node1Neighbors = neighbors(blocks, node1);
+		Neighbors node2Neighbors = neighbors(blocks, node2);
 		// Check if node1 is not equal to node2, if they exist in the graph and if they have neighbors
-		if (node1 != node2 && nodeInfo1 != null && nodeInfo2 != null 
+		if (node1 != node2 && nodeInfo1 != null && nodeInfo2 != null
 				&&  node1Neighbors != null && node2Neighbors != null) {
 			// Check if and only if node1 is neighbor of node2
 			if (node1Neighbors.containsKey(nodeInfo2) && node2Neighbors.containsKey(nodeInfo1)) {
@@ -105,16 +375,16 @@ public class WGraph_DS implements weighted_graph, Serializable {
 	@Override
 	public double getEdge(int node1, int node2) {
 		double weight = -1;
-		node_info nodeInfo1 = nodes.get(node1);
-		node_info nodeInfo2 = nodes.get(node2);
-		HashMap<node_info, Double> node1Neighbors = neighborWeights.get(node1);
-		HashMap<node_info, Double> node2Neighbors = neighborWeights.get(node2);
+		node_info nodeInfo1 = getNode(node1);
+		node_info nodeInfo2 = getNode(node2);
+		Neighbors node1Neighbors = neighbors(blocks, node1);
+		Neighbors node2Neighbors = neighbors(blocks, node2);
 		// Check if node1 is not equal to node2, if they exist in the graph and if they have neighbors
-				if (node1 != node2 && nodeInfo1 != null && nodeInfo2 != null 
+				if (node1 != node2 && nodeInfo1 != null && nodeInfo2 != null
 						&&  node1Neighbors != null && node2Neighbors != null) {
 			// Get the weight if and only if node1 is neighbor of node2
-			if (node1Neighbors.get(nodeInfo2) != null && node2Neighbors.get(nodeInfo1) != null) {
-				weight = node1Neighbors.get(nodeInfo2);
+			if (node1Neighbors.containsKey(nodeInfo2) && node2Neighbors.containsKey(nodeInfo1)) {
+				weight = node1Neighbors.weight(nodeInfo2);
 			}
 		}
 		return weight;
@@ -127,9 +397,14 @@ public class WGraph_DS implements weighted_graph, Serializable {
 	 */
 	@Override
 	public void addNode(int key) {
-		if (!nodes.containsKey(key)) {
-			nodes.put(key, new NodeInfo(key));
+		if (getNode(key) == null) {
+			putNode(new NodeInfo(key));
 			modeCounter++;
+			if (listeners != null) {
+				for (graph_listener listener: listeners) {
+					listener.nodeAdded(key);
+				}
+			}
 		}
 	}
 
@@ -143,42 +418,43 @@ public class WGraph_DS implements weighted_graph, Serializable {
 	 */
 	@Override
 	public void connect(int node1, int node2, double w) {
+		node_info nodeInfo1 = getNode(node1);
+		node_info nodeInfo2 = getNode(node2);
 		// If node1 is equal to node2 or if they are not in the graph
 		// or the weight is less then 0, then do nothing
-		if (node1 == node2 || nodes.get(node1) == null || nodes.get(node2) == null || w < 0) {
+		if (node1 == node2 || nodeInfo1 == null || nodeInfo2 == null || w < 0) {
 			return;
 		}
-		// Look for node1 neighbor weights
-		HashMap<node_info, Double> neighborWeights1 = neighborWeights.get(node1);
-		// If none exists then create a new inner hash map and put it in the hash map
-		if (neighborWeights1 == null) {
-			neighborWeights1 = new HashMap<>();
-			neighborWeights.put(node1, neighborWeights1);
-		}
-		// Look for node2 neighbor weights
-		HashMap<node_info, Double> neighborWeights2 = neighborWeights.get(node2);
-		// If none exists then create a new inner hash map and put it in the hash map
-		if (neighborWeights2 == null) {
-			neighborWeights2 = new HashMap<>();
-			neighborWeights.put(node2, neighborWeights2);
-		}
-		
-		node_info nodeInfo1 = nodes.get(node1);
-		node_info nodeInfo2 = nodes.get(node2);
+		// Look for node1 and node2 neighbor weights,
+		// if none exists then a new inner hash map is created and put in the block
+		Neighbors neighborWeights1 = writableNeighbors(node1);
+		Neighbors neighborWeights2 = writableNeighbors(node2);
+
 		// Check if node1 and node2 are not neighbors
-		if (neighborWeights1.get(nodeInfo2) == null && neighborWeights2.get(nodeInfo1) == null) {
+		if (!neighborWeights1.containsKey(nodeInfo2) && !neighborWeights2.containsKey(nodeInfo1)) {
 			// Connect between node1 and node2
-			neighborWeights1.put(nodeInfo2, w);
-			neighborWeights2.put(nodeInfo1, w);
+			neighborWeights1.putWeight((NodeInfo) nodeInfo2, w);
+			neighborWeights2.putWeight((NodeInfo) nodeInfo1, w);
 			edgeSize++;
 			modeCounter++;
+			if (listeners != null) {
+				for (graph_listener listener: listeners) {
+					listener.edgeAdded(node1, node2, w);
+				}
+			}
 		}
 		// If node1 and node2 are neighbors
 		else {
 			// Update the weight between node1 and node2
-			neighborWeights1.put(nodeInfo2, w);
-			neighborWeights2.put(nodeInfo1, w);
+			double oldWeight = neighborWeights1.weight(nodeInfo2);
+			neighborWeights1.putWeight((NodeInfo) nodeInfo2, w);
+			neighborWeights2.putWeight((NodeInfo) nodeInfo1, w);
 			modeCounter++;
+			if (listeners != null) {
+				for (graph_listener listener: listeners) {
+					listener.edgeUpdated(node1, node2, oldWeight, w);
+				}
+			}
 		}
 	}
 
@@ -189,7 +465,20 @@ public class WGraph_DS implements weighted_graph, Serializable {
 	 */
 	@Override
 	public Collection<node_info> getV() {
-		return nodes.values();
+		if (nodeView == null) {
+			nodeView = new NodeCollection() {
+				@Override
+				Block[] blocks() {
+					return blocks;
+				}
+
+				@Override
+				public int size() {
+					return nodeSize;
+				}
+			};
+		}
+		return nodeView;
 	}
 
 	/**
@@ -200,34 +489,137 @@ public class WGraph_DS implements weighted_graph, Serializable {
 	 */
 	@Override
 	public Collection<node_info> getV(int node_id) {
-		if (neighborWeights.get(node_id) != null) {
-			return neighborWeights.get(node_id).keySet();
+		Neighbors neighbors = neighbors(blocks, node_id);
+		if (neighbors != null) {
+			return neighbors.keySet();
 		}
 		return null;
 	}
 
+	/**
+	 * Calls the visitor with the key and the weight of each edge of node_id,
+	 * straight from the neighbors map of the node.
+	 * @param int node_id - key
+	 * @param edge_visitor visitor
+	 */
+	@Override
+	public void forEachEdge(int node_id, edge_visitor visitor) {
+		forEachEdge(blocks, node_id, visitor);
+	}
+
+	/**
+	 * Returns the dense index of the given node: an index in 0..indexSize()-1 that stays the same
+	 * while the node is in the graph. The index of a removed node is given to the next added node,
+	 * so the indexes stay dense and per-node arrays of indexSize() entries cover the whole graph.
+	 * @param int key
+	 * @return int index, -1 if there is no such node.
+	 */
+	@Override
+	public int indexOf(int key) {
+		node_info nodeInfo = getNode(key);
+		return nodeInfo == null ? -1 : ((NodeInfo) nodeInfo).index;
+	}
+
+	/**
+	 * Returns the node at the given dense index.
+	 * @param int index - in 0..indexSize()-1
+	 * @return node_info, null if no node has this index now.
+	 */
+	@Override
+	public node_info nodeAt(int index) {
+		return indexNodes[index];
+	}
+
+	/**
+	 * Returns the number of dense indexes in use or free, one more than the largest index:
+	 * at least nodeSize(), and nodeSize() plus the removed nodes whose index was not given again.
+	 * @return int
+	 */
+	@Override
+	public int indexSize() {
+		return indexSize;
+	}
+
+	/**
+	 * Calls the visitor with the dense index (in place of the key) and the weight of each edge
+	 * of the node at the given index, with no lookup per edge.
+	 * Nothing is done if no node has this index.
+	 * @param int index
+	 * @param edge_visitor visitor - gets the index of each neighbor as its neighborKey
+	 */
+	@Override
+	public void forEachEdgeAt(int index, edge_visitor visitor) {
+		NodeInfo nodeInfo = indexNodes[index];
+		Neighbors neighbors = nodeInfo == null ? null : neighbors(blocks, nodeInfo.key);
+		if (neighbors != null) {
+			neighbors.forEachEdgeAt(visitor);
+		}
+	}
+
 	/**
 	 * Deletes the node (with the given ID) from the graph -
 	 * and removes all edges which starts or ends at this node.
+	 * Runs in O(k), k - being the degree of the node,
+	 * and frees the neighbor map of the node.
 	 * @param int key
 	 * @return node_info - the data of the removed node (null if none).
 	 */
 	@Override
 	public node_info removeNode(int key) {
-		node_info nodeInfo = nodes.get(key);
-		if (nodeInfo != null) {
-			// Loop over the neighbors
-			for (int neighborKey: neighborWeights.keySet()) {
-				// Remove the edge between this node and this neighbor
-				removeEdge(key, neighborKey);
-			}
-			// Remove the node from the list of nodes in the graph
-			nodeInfo = nodes.remove(key);	
-			modeCounter++;
+		if (getNode(key) == null) {
+			return null;
+		}
+		Block block = writableBlock(key);
+		NodeInfo nodeInfo = (NodeInfo) block.nodes.remove(key);
+		nodeSize--;
+		indexNodes[nodeInfo.index] = null;
+		if (freeIndexCount == freeIndexes.length) {
+			freeIndexes = Arrays.copyOf(freeIndexes, 2 * freeIndexCount);
+		}
+		freeIndexes[freeIndexCount++] = nodeInfo.index;
+		Neighbors neighbors = block.neighbors.remove(key);
+		if (neighbors != null) {
+			// Loop over the neighbors of this node only
+			for (node_info neighbor: neighbors.keySet()) {
+				// Remove the edge between this node and this neighbor from the neighbor side
+				writableNeighbors(neighbor.getKey()).removeWeight(nodeInfo);
+				edgeSize--;
+				modeCounter++;
+			}
+		}
+		modeCounter++;
+		if (listeners != null) {
+			// The listeners are called when the node and all its edges are gone
+			for (graph_listener listener: listeners) {
+				if (neighbors != null) {
+					for (Map.Entry<node_info, Double> edge: neighbors.entrySet()) {
+						listener.edgeRemoved(key, edge.getKey().getKey(), edge.getValue());
+					}
+				}
+				listener.nodeRemoved(nodeInfo);
+			}
 		}
 		return nodeInfo;
 	}
 
+	/**
+	 * Deletes all the nodes with the given IDs from the graph -
+	 * and removes all edges which starts or ends at these nodes.
+	 * Runs in O(sum of the degrees of the removed nodes).
+	 * @param Collection<Integer> keys
+	 * @return List<node_info> - the data of the removed nodes (keys that are not in the graph are skipped).
+	 */
+	public List<node_info> removeNodes(Collection<Integer> keys) {
+		List<node_info> removed = new ArrayList<>(keys.size());
+		for (int key: keys) {
+			node_info nodeInfo = removeNode(key);
+			if (nodeInfo != null) {
+				removed.add(nodeInfo);
+			}
+		}
+		return removed;
+	}
+
 	/**
 	 * Deletes the edge from the graph.
 	 * @param int node1
@@ -235,35 +627,40 @@ public class WGraph_DS implements weighted_graph, Serializable {
 	 */
 	@Override
 	public void removeEdge(int node1, int node2) {
+		node_info nodeInfo1 = getNode(node1);
+		node_info nodeInfo2 = getNode(node2);
 		// If node1 is equal to node2 or if they are not in the graph then do nothing
-		if (node1 == node2 || nodes.get(node1) == null || nodes.get(node2) == null) {
+		if (node1 == node2 || nodeInfo1 == null || nodeInfo2 == null) {
 			return;
 		}
-		HashMap<node_info, Double> neighborWeights1 = neighborWeights.get(node1);
-		HashMap<node_info, Double> neighborWeights2 = neighborWeights.get(node2);
-		node_info nodeInfo1 = nodes.get(node1);
-		node_info nodeInfo2 = nodes.get(node2);
-		
+		Neighbors neighborWeights1 = neighbors(blocks, node1);
+		Neighbors neighborWeights2 = neighbors(blocks, node2);
+
 		// If node1 and node2 have neighbors
 		if (neighborWeights1 != null && neighborWeights2 != null) {
-			// If and only if node1 is neighbor of node2 
-			if (neighborWeights1.get(nodeInfo2) != null && neighborWeights2.get(nodeInfo1) != null) {
-				// Remove the edge between node1 and node2 from the hash maps
-				neighborWeights1.remove(nodeInfo2);
-				neighborWeights2.remove(nodeInfo1);
+			// If and only if node1 is neighbor of node2
+			if (neighborWeights1.containsKey(nodeInfo2) && neighborWeights2.containsKey(nodeInfo1)) {
+				// Remove the edge between node1 and node2 from the neighbor maps
+				double weight = writableNeighbors(node1).removeWeight(nodeInfo2);
+				writableNeighbors(node2).removeWeight(nodeInfo1);
 				edgeSize--;
 				modeCounter++;
+				if (listeners != null) {
+					for (graph_listener listener: listeners) {
+						listener.edgeRemoved(node1, node2, weight);
+					}
+				}
 			}
 		}
 	}
 
-	/** 
+	/**
 	 * Returns the number of vertices (nodes) in the graph.
 	 * @return int node size
 	 */
 	@Override
 	public int nodeSize() {
-		return nodes.size();
+		return nodeSize;
 	}
 
 	/**
@@ -285,12 +682,541 @@ public class WGraph_DS implements weighted_graph, Serializable {
 		return modeCounter;
 	}
 
+	/**
+	 * Registers a listener that is called after every change of this graph.
+	 * @param graph_listener listener
+	 */
+	public void addListener(graph_listener listener) {
+		if (listeners == null) {
+			listeners = new graph_listener[] {listener};
+		}
+		else {
+			listeners = Arrays.copyOf(listeners, listeners.length + 1);
+			listeners[listeners.length - 1] = listener;
+		}
+	}
+
+	/**
+	 * Removes a listener that was registered by addListener.
+	 * @param graph_listener listener
+	 * @return true - if the listener was registered
+	 */
+	public boolean removeListener(graph_listener listener) {
+		if (listeners == null) {
+			return false;
+		}
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				if (listeners.length == 1) {
+					listeners = null;
+				}
+				else {
+					graph_listener[] remaining = new graph_listener[listeners.length - 1];
+					System.arraycopy(listeners, 0, remaining, 0, i);
+					System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+					listeners = remaining;
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sets the Mode Count, used when a graph is read back from a file
+	 * so it keeps the Mode Count it was saved with.
+	 * @param int mc
+	 */
+	void setMC(int mc) {
+		modeCounter = mc;
+	}
+
+	/**
+	 * Returns an immutable compressed-sparse-row snapshot of this graph,
+	 * which the algorithms in WGraph_Algo can run on without any HashMap lookups.
+	 * @return WGraph_CSR
+	 */
+	public WGraph_CSR freeze() {
+		return new WGraph_CSR(this);
+	}
+
+	/**
+	 * Returns a read-only view of this graph as it is now, in O(1).
+	 * The view shares the blocks of the graph, and the graph copies a block (or the neighbor map of a node)
+	 * before it changes one that a view may share, so a change costs at most one block and two neighbor maps more.
+	 * A view is never changed afterwards, so other threads can read it (once it is safely published)
+	 * while this graph keeps changing, and it is freed when it is no longer referenced.
+	 * The view shares the node_info objects, so their info and tag are not versioned.
+	 * @return weighted_graph - the mutators throw UnsupportedOperationException
+	 */
+	public weighted_graph snapshot() {
+		isBlocksShared = true;
+		epoch++;
+		return new Snapshot(blocks, nodeSize, edgeSize, modeCounter, indexSize);
+	}
+
+	/**
+	 * Writes the graph in the serialization form of the original HashMap fields.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		HashMap<Integer, node_info> nodes = new HashMap<>(capacityFor(nodeSize));
+		HashMap<Integer, HashMap<node_info, Double>> neighborWeights = new HashMap<>(capacityFor(nodeSize));
+		for (Block block: blocks) {
+			nodes.putAll(block.nodes);
+			// The neighbor maps are written as HashMaps, the form the original class had
+			for (Map.Entry<Integer, Neighbors> neighbors: block.neighbors.entrySet()) {
+				neighborWeights.put(neighbors.getKey(), new HashMap<>(neighbors.getValue()));
+			}
+		}
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("nodes", nodes);
+		fields.put("neighborWeights", neighborWeights);
+		fields.put("edgeSize", edgeSize);
+		fields.put("modeCounter", modeCounter);
+		out.writeFields();
+	}
+
+	/**
+	 * Reads a graph that was written by writeObject, or by the original HashMap based class.
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		HashMap<Integer, node_info> nodes = (HashMap<Integer, node_info>) fields.get("nodes", null);
+		HashMap<Integer, HashMap<node_info, Double>> neighborWeights =
+				(HashMap<Integer, HashMap<node_info, Double>>) fields.get("neighborWeights", null);
+		epoch = 1;
+		nodeSize = nodes.size();
+		blocks = newBlocks(nodeSize);
+		// The indexes are not saved, the nodes are given new ones
+		NodeInfo[] nodeInfos = new NodeInfo[Math.max(nodeSize, 16)];
+		int index = 0;
+		for (Map.Entry<Integer, node_info> node: nodes.entrySet()) {
+			NodeInfo nodeInfo = (NodeInfo) node.getValue();
+			nodeInfo.index = index;
+			nodeInfos[index++] = nodeInfo;
+			blocks[blockOf(node.getKey())].nodes.put(node.getKey(), node.getValue());
+		}
+		freeIndexes = new int[16];
+		setIndexNodes(nodeInfos, nodeSize);
+		for (Map.Entry<Integer, HashMap<node_info, Double>> neighbors: neighborWeights.entrySet()) {
+			// Read back with epoch 0, an epoch no graph has, so the map is copied before its first change
+			blocks[blockOf(neighbors.getKey())].neighbors.put(neighbors.getKey(), new Neighbors(neighbors.getValue(), 0));
+		}
+		edgeSize = fields.get("edgeSize", 0);
+		modeCounter = fields.get("modeCounter", 0);
+	}
+
 	@Override
 	public String toString() {
-		return "nodesSize=" + nodes.size() //+ ", neighborWeights=" + neighborWeights
+		return "nodesSize=" + nodeSize //+ ", neighborWeights=" + neighborWeights
 				+ ", edgeSize=" + edgeSize + ", modeCounter=" + modeCounter;
 	}
 
+	/**
+	 * This class holds the nodes whose keys hash to one block, and their neighbor weights,
+	 * with the epoch it was created (or copied) in.
+	 */
+	private static final class Block {
+
+		private final HashMap<Integer, node_info> nodes;
+		private final HashMap<Integer, Neighbors> neighbors;
+		private final int epoch;
+
+		private Block(int epoch, int capacity) {
+			nodes = new HashMap<>(capacity);
+			neighbors = new HashMap<>(capacity);
+			this.epoch = epoch;
+		}
+
+		/**
+		 * Shallow copy constructor, the neighbor maps are still shared.
+		 */
+		private Block(Block block, int epoch) {
+			nodes = new HashMap<>(block.nodes);
+			neighbors = new HashMap<>(block.neighbors);
+			this.epoch = epoch;
+		}
+	}
+
+	/**
+	 * This class holds the neighbor weights of a node, with the epoch it was created (or copied) in.
+	 * It is an open addressing table with linear probing: the neighbor nodes and their weights
+	 * are in two parallel arrays, so forEachEdge reads them in place with no iterator, entry, lambda
+	 * or boxed weight. The nodes are compared by identity, as the nodes of a graph are unique.
+	 * The Map methods are there for the views and the copies (getV, writeObject).
+	 */
+	private static final class Neighbors extends AbstractMap<node_info, Double> {
+
+		private final int epoch;
+		// The neighbor in each slot of the table, null for an empty slot, and the weight of its edge
+		private NodeInfo[] nodes;
+		private double[] weights;
+		private int size;
+		private Set<Map.Entry<node_info, Double>> entries;
+
+		/**
+		 * Constructor of an empty map that holds up to 3/4 of the given capacity with no resize.
+		 */
+		private Neighbors(int capacity, int epoch) {
+			int length = 4;
+			while (length < capacity) {
+				length <<= 1;
+			}
+			nodes = new NodeInfo[length];
+			weights = new double[length];
+			this.epoch = epoch;
+		}
+
+		/**
+		 * Copy constructor, the nodes of the given map must be NodeInfo objects.
+		 */
+		private Neighbors(Map<node_info, Double> neighbors, int epoch) {
+			this.epoch = epoch;
+			if (neighbors instanceof Neighbors) {
+				nodes = ((Neighbors) neighbors).nodes.clone();
+				weights = ((Neighbors) neighbors).weights.clone();
+				size = neighbors.size();
+				return;
+			}
+			int length = 4;
+			while (length < capacityFor(neighbors.size())) {
+				length <<= 1;
+			}
+			nodes = new NodeInfo[length];
+			weights = new double[length];
+			for (Map.Entry<node_info, Double> edge: neighbors.entrySet()) {
+				putWeight((NodeInfo) edge.getKey(), edge.getValue());
+			}
+		}
+
+		/**
+		 * Returns the first slot to probe for the given node.
+		 */
+		private int home(NodeInfo node) {
+			int h = node.key * 0x85EBCA6B;
+			return (h ^ (h >>> 15)) & (nodes.length - 1);
+		}
+
+		/**
+		 * Returns the slot of the given node, -1 if it is not a neighbor.
+		 */
+		private int find(Object node) {
+			if (!(node instanceof NodeInfo)) {
+				return -1;
+			}
+			int mask = nodes.length - 1;
+			for (int i = home((NodeInfo) node); nodes[i] != null; i = (i + 1) & mask) {
+				if (nodes[i] == node) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Returns the weight of the edge to the given node, -1 if it is not a neighbor.
+		 */
+		private double weight(node_info node) {
+			int i = find(node);
+			return i < 0 ? -1 : weights[i];
+		}
+
+		/**
+		 * Sets the weight of the edge to the given node, adding the node if it is not a neighbor.
+		 */
+		private void putWeight(NodeInfo node, double w) {
+			int i = find(node);
+			if (i >= 0) {
+				weights[i] = w;
+				return;
+			}
+			if (4 * (size + 1) > 3 * nodes.length) {
+				resize(2 * nodes.length);
+			}
+			int mask = nodes.length - 1;
+			i = home(node);
+			while (nodes[i] != null) {
+				i = (i + 1) & mask;
+			}
+			nodes[i] = node;
+			weights[i] = w;
+			size++;
+		}
+
+		/**
+		 * Removes the edge to the given node.
+		 * @return double - the weight of the removed edge, -1 if it is not a neighbor
+		 */
+		private double removeWeight(node_info node) {
+			int i = find(node);
+			if (i < 0) {
+				return -1;
+			}
+			double w = weights[i];
+			// Shift the following entries of the run back, so no probe sequence is cut
+			int mask = nodes.length - 1;
+			int j = i;
+			while (true) {
+				j = (j + 1) & mask;
+				if (nodes[j] == null) {
+					break;
+				}
+				int k = home(nodes[j]);
+				// Move the entry at j to i unless its home lies cyclically in (i, j]
+				if (i <= j ? (i < k && k <= j) : (i < k || k <= j)) {
+					continue;
+				}
+				nodes[i] = nodes[j];
+				weights[i] = weights[j];
+				i = j;
+			}
+			nodes[i] = null;
+			size--;
+			return w;
+		}
+
+		private void resize(int length) {
+			NodeInfo[] oldNodes = nodes;
+			double[] oldWeights = weights;
+			nodes = new NodeInfo[length];
+			weights = new double[length];
+			int mask = length - 1;
+			for (int j = 0; j < oldNodes.length; j++) {
+				if (oldNodes[j] != null) {
+					int i = home(oldNodes[j]);
+					while (nodes[i] != null) {
+						i = (i + 1) & mask;
+					}
+					nodes[i] = oldNodes[j];
+					weights[i] = oldWeights[j];
+				}
+			}
+		}
+
+		/**
+		 * Calls the visitor with the key and the weight of each edge.
+		 */
+		private void forEachEdge(edge_visitor visitor) {
+			for (int i = 0; i < nodes.length; i++) {
+				if (nodes[i] != null) {
+					visitor.visit(nodes[i].key, weights[i]);
+				}
+			}
+		}
+
+		/**
+		 * Calls the visitor with the dense index and the weight of each edge.
+		 */
+		private void forEachEdgeAt(edge_visitor visitor) {
+			for (int i = 0; i < nodes.length; i++) {
+				if (nodes[i] != null) {
+					visitor.visit(nodes[i].index, weights[i]);
+				}
+			}
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean containsKey(Object node) {
+			return find(node) >= 0;
+		}
+
+		@Override
+		public Double get(Object node) {
+			int i = find(node);
+			return i < 0 ? null : weights[i];
+		}
+
+		@Override
+		public Set<Map.Entry<node_info, Double>> entrySet() {
+			if (entries == null) {
+				entries = new AbstractSet<Map.Entry<node_info, Double>>() {
+
+					@Override
+					public Iterator<Map.Entry<node_info, Double>> iterator() {
+						return new Iterator<Map.Entry<node_info, Double>>() {
+							private int next = skip(0);
+
+							private int skip(int i) {
+								while (i < nodes.length && nodes[i] == null) {
+									i++;
+								}
+								return i;
+							}
+
+							@Override
+							public boolean hasNext() {
+								return next < nodes.length;
+							}
+
+							@Override
+							public Map.Entry<node_info, Double> next() {
+								if (next >= nodes.length) {
+									throw new NoSuchElementException();
+								}
+								Map.Entry<node_info, Double> entry = new SimpleImmutableEntry<>(nodes[next], weights[next]);
+								next = skip(next + 1);
+								return entry;
+							}
+						};
+					}
+
+					@Override
+					public int size() {
+						return size;
+					}
+				};
+			}
+			return entries;
+		}
+	}
+
+	/**
+	 * This class is a Collection of the nodes of a set of blocks.
+	 */
+	private abstract static class NodeCollection extends AbstractCollection<node_info> {
+
+		abstract Block[] blocks();
+
+		@Override
+		public Iterator<node_info> iterator() {
+			Block[] blocks = blocks();
+			return new Iterator<node_info>() {
+				private int nextBlock;
+				private Iterator<node_info> current = Collections.emptyIterator();
+
+				@Override
+				public boolean hasNext() {
+					while (!current.hasNext() && nextBlock < blocks.length) {
+						current = blocks[nextBlock++].nodes.values().iterator();
+					}
+					return current.hasNext();
+				}
+
+				@Override
+				public node_info next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return current.next();
+				}
+			};
+		}
+	}
+
+	/**
+	 * This class implements weighted_graph interface
+	 * as a read-only view of a WGraph_DS at the moment snapshot() was called.
+	 * It holds the blocks of that moment, which the graph never changes again.
+	 */
+	private static final class Snapshot implements weighted_graph {
+
+		private final Block[] blocks;
+		private final int nodeSize;
+		private final int edgeSize;
+		private final int modeCounter;
+		// Above the dense index of every node of the snapshot, for the copy constructor
+		private final int indexSize;
+		private final Collection<node_info> nodeView;
+
+		private Snapshot(Block[] blocks, int nodeSize, int edgeSize, int modeCounter, int indexSize) {
+			this.blocks = blocks;
+			this.nodeSize = nodeSize;
+			this.edgeSize = edgeSize;
+			this.modeCounter = modeCounter;
+			this.indexSize = indexSize;
+			nodeView = new NodeCollection() {
+				@Override
+				Block[] blocks() {
+					return blocks;
+				}
+
+				@Override
+				public int size() {
+					return nodeSize;
+				}
+			};
+		}
+
+		@Override
+		public node_info getNode(int key) {
+			return node(blocks, key);
+		}
+
+		@Override
+		public boolean hasEdge(int node1, int node2) {
+			return getEdge(node1, node2) != -1;
+		}
+
+		@Override
+		public double getEdge(int node1, int node2) {
+			node_info nodeInfo2 = node(blocks, node2);
+			Neighbors node1Neighbors = neighbors(blocks, node1);
+			return node1 == node2 || nodeInfo2 == null || node1Neighbors == null ? -1 : node1Neighbors.weight(nodeInfo2);
+		}
+
+		@Override
+		public Collection<node_info> getV() {
+			return nodeView;
+		}
+
+		@Override
+		public Collection<node_info> getV(int node_id) {
+			Neighbors neighbors = neighbors(blocks, node_id);
+			return neighbors == null ? null : Collections.unmodifiableSet(neighbors.keySet());
+		}
+
+		@Override
+		public void forEachEdge(int node_id, edge_visitor visitor) {
+			WGraph_DS.forEachEdge(blocks, node_id, visitor);
+		}
+
+		@Override
+		public int nodeSize() {
+			return nodeSize;
+		}
+
+		@Override
+		public int edgeSize() {
+			return edgeSize;
+		}
+
+		@Override
+		public int getMC() {
+			return modeCounter;
+		}
+
+		@Override
+		public void addNode(int key) {
+			throw new UnsupportedOperationException("snapshots of WGraph_DS are read-only");
+		}
+
+		@Override
+		public void connect(int node1, int node2, double w) {
+			throw new UnsupportedOperationException("snapshots of WGraph_DS are read-only");
+		}
+
+		@Override
+		public node_info removeNode(int key) {
+			throw new UnsupportedOperationException("snapshots of WGraph_DS are read-only");
+		}
+
+		@Override
+		public void removeEdge(int node1, int node2) {
+			throw new UnsupportedOperationException("snapshots of WGraph_DS are read-only");
+		}
+
+		@Override
+		public String toString() {
+			return "nodesSize=" + nodeSize + ", edgeSize=" + edgeSize + ", modeCounter=" + modeCounter;
+		}
+	}
+
 	/**
 	 * This class implements node_info interface
 	 * that represents the node information.
@@ -302,6 +1228,8 @@ public class WGraph_DS implements weighted_graph, Serializable {
 		private int key = 0;
 		private String info;
 		private double tag = 0;
+		// The dense index of the node, given when it is added (see indexOf)
+		private transient int index;
 
 		/**
 		 * Constructor that copies the key.
@@ -373,4 +1301,4 @@ public class WGraph_DS implements weighted_graph, Serializable {
 			return "key=" + key;
 		}
 	}
-}
\ No newline at end of file
+}
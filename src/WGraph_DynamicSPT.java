@@ -0,0 +1,539 @@
+package ex1.src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class keeps a shortest path tree from one source node up to date
+ * while the graph changes (dynamic single source shortest paths).
+ * On a WGraph_DS it registers itself as a graph_listener, so any change of the graph is repaired;
+ * the graph holds it through a WeakGraphListener, so a tree that is no longer used stops listening by itself.
+ * on other graphs the changes must be made through this class (connect, removeEdge, addNode, removeNode).
+ * Each change repairs only the part of the tree it affects, in the style of Ramalingam and Reps:
+ * - a new or lighter edge u-v can only lower distances, so a Dijkstra search starts at v
+ * and continues only through the nodes whose distance it lowers;
+ * - a heavier or deleted edge only matters if it is a tree edge u-v (parent of v is u),
+ * then the subtree of v is the affected set: its distances are reset, each affected node
+ * takes its best distance through the unaffected neighbors, and a Dijkstra search
+ * restricted to the affected set finishes the repair.
+ * So an update costs about the size of the part of the tree it changes
+ * (and the degrees of its nodes), and not O(|E|).
+ * The per-node data is kept in arrays by slot. On a WGraph_DS the slots are the dense indexes
+ * of the graph (WGraph_DS.indexOf), so the edges are visited with no lookup per edge;
+ * on other graphs this class gives the slots itself.
+ */
+public class WGraph_DynamicSPT implements graph_listener {
+
+	private final weighted_graph graph;
+	// The graph if it is a WGraph_DS, then its dense indexes are the slots (and slots, keys and freeSlots are not used)
+	private final WGraph_DS indexed;
+	private final int src;
+	// This map holds the slot of each node key, slots of removed nodes are reused
+	private final IntIntHashMap slots = new IntIntHashMap();
+	private int[] keys = new int[0];
+	private double[] distances = new double[0];
+	private int[] parents = new int[0];
+	// Affected set marks of the current repair, by generation
+	private int[] marks = new int[0];
+	private int generation;
+	private int slotSize;
+	private int[] freeSlots = new int[4];
+	private int freeSize;
+	private final IndexedDaryHeap heap = new IndexedDaryHeap(4);
+	private int lastRepairSize;
+	private boolean isListening;
+	// The listener that the graph holds, null when the tree does not listen
+	private WeakGraphListener listener;
+	// The slot whose edges are being visited, and the visitors that work on them (kept to visit with no allocation)
+	private int visitedSlot;
+	private boolean isRestricted;
+	private List<Integer> visitedSubtree;
+	private final edge_visitor relaxEdge = this::relaxEdge;
+	private final edge_visitor relaxFromNeighbor = this::relaxFromNeighbor;
+	private final edge_visitor addChild = this::addChild;
+	// On other graphs forEachEdge visits the keys with visitKey, which passes the slots on to slotVisitor
+	private edge_visitor slotVisitor;
+	private final edge_visitor visitKey = this::visitKey;
+
+	/**
+	 * Constructor that computes the shortest path tree from src.
+	 * @param weighted_graph graph
+	 * @param int src - key of the source node
+	 */
+	public WGraph_DynamicSPT(weighted_graph graph, int src) {
+		this.graph = graph;
+		this.src = src;
+		indexed = graph instanceof WGraph_DS ? (WGraph_DS) graph : null;
+		grow(16);
+		if (indexed == null) {
+			for (node_info node: graph.getV()) {
+				slotOf(node.getKey());
+			}
+		}
+		if (graph.getNode(src) != null) {
+			int s = slotOf(src);
+			distances[s] = 0;
+			heap.reset(slotSize());
+			heap.pushOrDecrease(s, 0);
+			lastRepairSize = propagate(false);
+		}
+		if (indexed != null) {
+			listener = WeakGraphListener.register(indexed, this);
+			isListening = true;
+		}
+	}
+
+	/**
+	 * Returns the slot of the given key, giving the node a new unreached slot if it has none.
+	 * On a WGraph_DS returns the index of the node, which must be in the graph.
+	 */
+	private int slotOf(int key) {
+		if (indexed != null) {
+			grow(indexed.indexSize());
+			return indexed.indexOf(key);
+		}
+		int slot = slots.get(key);
+		if (slot != IntIntHashMap.NO_VALUE) {
+			return slot;
+		}
+		if (freeSize > 0) {
+			slot = freeSlots[--freeSize];
+		}
+		else {
+			grow(slotSize + 1);
+			slot = slotSize++;
+		}
+		keys[slot] = key;
+		distances[slot] = Double.POSITIVE_INFINITY;
+		parents[slot] = -1;
+		marks[slot] = 0;
+		slots.put(key, slot);
+		return slot;
+	}
+
+	/**
+	 * Returns the slot of the given key.
+	 * @return int slot, -1 if it has none
+	 */
+	private int slot(int key) {
+		return indexed != null ? indexed.indexOf(key) : slots.get(key);
+	}
+
+	/**
+	 * Returns the number of slots (on a WGraph_DS the index size of the graph, the arrays are grown to it).
+	 */
+	private int slotSize() {
+		if (indexed != null) {
+			grow(indexed.indexSize());
+			return indexed.indexSize();
+		}
+		return slotSize;
+	}
+
+	/**
+	 * Grows the arrays to at least the given number of slots, the new slots are unreached.
+	 */
+	private void grow(int capacity) {
+		int length = distances.length;
+		if (capacity <= length) {
+			return;
+		}
+		capacity = Math.max(capacity, 2 * length);
+		keys = Arrays.copyOf(keys, capacity);
+		distances = Arrays.copyOf(distances, capacity);
+		parents = Arrays.copyOf(parents, capacity);
+		marks = Arrays.copyOf(marks, capacity);
+		Arrays.fill(distances, length, capacity, Double.POSITIVE_INFINITY);
+		Arrays.fill(parents, length, capacity, -1);
+	}
+
+	/**
+	 * Returns the node of the given slot.
+	 */
+	private node_info node(int slot) {
+		return indexed != null ? indexed.nodeAt(slot) : graph.getNode(keys[slot]);
+	}
+
+	/**
+	 * Calls the visitor with the slot (in place of the key) and the weight of each edge of the given slot.
+	 */
+	private void forEachEdge(int slot, edge_visitor visitor) {
+		if (indexed != null) {
+			indexed.forEachEdgeAt(slot, visitor);
+		}
+		else {
+			slotVisitor = visitor;
+			graph.forEachEdge(keys[slot], visitKey);
+		}
+	}
+
+	/**
+	 * The edge_visitor of forEachEdge on other graphs: passes the slot of the neighbor on to slotVisitor.
+	 */
+	private void visitKey(int neighborKey, double w) {
+		int neighborSlot = slots.get(neighborKey);
+		if (neighborSlot != IntIntHashMap.NO_VALUE) {
+			slotVisitor.visit(neighborSlot, w);
+		}
+	}
+
+	/**
+	 * Returns the source node key.
+	 * @return int src
+	 */
+	public int getSrc() {
+		return src;
+	}
+
+	/**
+	 * Returns the graph this tree is kept for.
+	 * @return weighted_graph
+	 */
+	public weighted_graph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Returns the number of nodes whose distance was recomputed by the last update.
+	 * @return int
+	 */
+	public int getLastRepairSize() {
+		return lastRepairSize;
+	}
+
+	/**
+	 * Returns the shortest path distance between src and dest.
+	 * @param int dest - key
+	 * @return double distance, -1 if dest is not reachable or is not in the graph
+	 */
+	public double distance(int dest) {
+		int slot = slot(dest);
+		// A node added to a WGraph_DS after detach may have an index past the arrays
+		if (slot == -1 || slot >= distances.length || distances[slot] == Double.POSITIVE_INFINITY) {
+			return -1;
+		}
+		return distances[slot];
+	}
+
+	/**
+	 * Returns the shortest path between src and dest as a list of nodes: src--> n1-->n2-->...dest.
+	 * @param int dest - key
+	 * @return List<node_info>, null if there is no path
+	 */
+	public List<node_info> path(int dest) {
+		if (distance(dest) < 0) {
+			return null;
+		}
+		List<node_info> path = new ArrayList<>();
+		for (int slot = slot(dest); slot != -1; slot = parents[slot]) {
+			path.add(node(slot));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Stops listening to the changes of the graph (if it is a WGraph_DS),
+	 * the tree is not repaired after that.
+	 */
+	public void detach() {
+		if (isListening) {
+			((WGraph_DS) graph).removeListener(listener);
+			listener = null;
+			isListening = false;
+		}
+	}
+
+	/**
+	 * Adds a node to the graph, the new node is not reachable until it is connected (unless it is src).
+	 * @param int key
+	 */
+	public void addNode(int key) {
+		if (isListening || graph.getNode(key) != null) {
+			graph.addNode(key);
+			return;
+		}
+		graph.addNode(key);
+		nodeAdded(key);
+	}
+
+	/**
+	 * Connects (or changes the weight of) the edge node1-node2 in the graph and repairs the tree.
+	 * @param int node1
+	 * @param int node2
+	 * @param double w - weight
+	 */
+	public void connect(int node1, int node2, double w) {
+		if (isListening) {
+			graph.connect(node1, node2, w);
+			return;
+		}
+		double before = graph.getEdge(node1, node2);
+		graph.connect(node1, node2, w);
+		double after = graph.getEdge(node1, node2);
+		if (after < 0) {
+			lastRepairSize = 0;
+		}
+		else if (before < 0) {
+			edgeAdded(node1, node2, after);
+		}
+		else {
+			edgeUpdated(node1, node2, before, after);
+		}
+	}
+
+	/**
+	 * Removes the edge node1-node2 from the graph and repairs the tree.
+	 * @param int node1
+	 * @param int node2
+	 */
+	public void removeEdge(int node1, int node2) {
+		if (isListening) {
+			graph.removeEdge(node1, node2);
+			return;
+		}
+		double weight = graph.getEdge(node1, node2);
+		graph.removeEdge(node1, node2);
+		if (weight < 0) {
+			lastRepairSize = 0;
+			return;
+		}
+		edgeRemoved(node1, node2, weight);
+	}
+
+	/**
+	 * Removes the node from the graph and repairs the subtree that hung from it.
+	 * @param int key
+	 * @return node_info - the removed node (null if none)
+	 */
+	public node_info removeNode(int key) {
+		if (isListening) {
+			return graph.removeNode(key);
+		}
+		List<Integer> neighbors = new ArrayList<>();
+		List<Double> weights = new ArrayList<>();
+		graph.forEachEdge(key, (neighborKey, w) -> {
+			neighbors.add(neighborKey);
+			weights.add(w);
+		});
+		node_info removed = graph.removeNode(key);
+		if (removed == null) {
+			lastRepairSize = 0;
+			return null;
+		}
+		int repairSize = 0;
+		for (int i = 0; i < neighbors.size(); i++) {
+			edgeRemoved(key, neighbors.get(i), weights.get(i));
+			repairSize += lastRepairSize;
+		}
+		nodeRemoved(removed);
+		lastRepairSize = repairSize;
+		return removed;
+	}
+
+	/**
+	 * Called after a node was added, the new node is not reachable (unless it is src).
+	 * @param int key
+	 */
+	@Override
+	public void nodeAdded(int key) {
+		int slot = slotOf(key);
+		// The index of a removed node may be given again, the new node is unreached
+		distances[slot] = key == src ? 0 : Double.POSITIVE_INFINITY;
+		parents[slot] = -1;
+		lastRepairSize = 0;
+	}
+
+	/**
+	 * Called after a node was removed (its edges were already repaired), frees its slot.
+	 * On a WGraph_DS the graph frees the index, and nodeAdded resets it when it is given again.
+	 * @param node_info node
+	 */
+	@Override
+	public void nodeRemoved(node_info node) {
+		if (indexed != null) {
+			lastRepairSize = 0;
+			return;
+		}
+		int slot = slots.remove(node.getKey());
+		if (slot == IntIntHashMap.NO_VALUE) {
+			return;
+		}
+		distances[slot] = Double.POSITIVE_INFINITY;
+		parents[slot] = -1;
+		if (freeSize == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, 2 * freeSize);
+		}
+		freeSlots[freeSize++] = slot;
+		lastRepairSize = 0;
+	}
+
+	/**
+	 * Called after an edge was added, repairs the tree.
+	 */
+	@Override
+	public void edgeAdded(int node1, int node2, double w) {
+		decrease(slotOf(node1), slotOf(node2), w);
+	}
+
+	/**
+	 * Called after the weight of an edge was set, repairs the tree.
+	 */
+	@Override
+	public void edgeUpdated(int node1, int node2, double oldWeight, double w) {
+		if (w < oldWeight) {
+			decrease(slotOf(node1), slotOf(node2), w);
+		}
+		else if (w > oldWeight) {
+			increase(slotOf(node1), slotOf(node2));
+		}
+		else {
+			lastRepairSize = 0;
+		}
+	}
+
+	/**
+	 * Called after an edge was removed, repairs the tree.
+	 */
+	@Override
+	public void edgeRemoved(int node1, int node2, double w) {
+		int slot1 = slot(node1);
+		int slot2 = slot(node2);
+		if (indexed != null && (slot1 == -1) != (slot2 == -1)) {
+			// An edge of a removed node, whose index is already free: only the subtree of a child needs a repair
+			int slot = Math.max(slot1, slot2);
+			if (parents[slot] != -1 && indexed.nodeAt(parents[slot]) == null) {
+				repair(subtree(slot));
+			}
+			else {
+				lastRepairSize = 0;
+			}
+			return;
+		}
+		if (slot1 == -1 || slot2 == -1) {
+			lastRepairSize = 0;
+			return;
+		}
+		increase(slot1, slot2);
+	}
+
+	/**
+	 * Repairs the tree after the edge between the given slots became lighter or was added.
+	 */
+	private void decrease(int slot1, int slot2, double w) {
+		heap.reset(slotSize());
+		relax(slot1, slot2, w);
+		relax(slot2, slot1, w);
+		lastRepairSize = propagate(false);
+	}
+
+	private void relax(int from, int to, double w) {
+		double distance = distances[from] + w;
+		if (distance < distances[to]) {
+			distances[to] = distance;
+			parents[to] = from;
+			heap.pushOrDecrease(to, distance);
+		}
+	}
+
+	/**
+	 * Repairs the tree after the edge between the given slots became heavier or was removed.
+	 */
+	private void increase(int slot1, int slot2) {
+		int child;
+		if (parents[slot2] == slot1) {
+			child = slot2;
+		}
+		else if (parents[slot1] == slot2) {
+			child = slot1;
+		}
+		else {
+			// Not a tree edge, no distance can change
+			lastRepairSize = 0;
+			return;
+		}
+		repair(subtree(child));
+	}
+
+	/**
+	 * Returns the slots of the subtree of the given slot (itself first),
+	 * found through the graph edges to the nodes whose parent is in the subtree.
+	 */
+	private List<Integer> subtree(int root) {
+		List<Integer> subtree = new ArrayList<>();
+		subtree.add(root);
+		visitedSubtree = subtree;
+		for (int i = 0; i < subtree.size(); i++) {
+			visitedSlot = subtree.get(i);
+			forEachEdge(visitedSlot, addChild);
+		}
+		visitedSubtree = null;
+		return subtree;
+	}
+
+	/**
+	 * The edge_visitor of subtree: adds the neighbor if its parent is the visited slot.
+	 */
+	private void addChild(int neighborSlot, double w) {
+		if (parents[neighborSlot] == visitedSlot) {
+			visitedSubtree.add(neighborSlot);
+		}
+	}
+
+	/**
+	 * Recomputes the distances of the affected slots: each takes its best distance
+	 * through an unaffected neighbor, and a search restricted to the affected slots finishes.
+	 */
+	private void repair(List<Integer> affected) {
+		generation++;
+		for (int slot: affected) {
+			marks[slot] = generation;
+			distances[slot] = Double.POSITIVE_INFINITY;
+			parents[slot] = -1;
+		}
+		heap.reset(slotSize());
+		for (int slot: affected) {
+			visitedSlot = slot;
+			forEachEdge(slot, relaxFromNeighbor);
+		}
+		propagate(true);
+		lastRepairSize = affected.size();
+	}
+
+	/**
+	 * The edge_visitor of repair: relaxes the edge into the visited (affected) slot
+	 * from a reached neighbor outside the affected set.
+	 */
+	private void relaxFromNeighbor(int neighborSlot, double w) {
+		if (marks[neighborSlot] != generation && distances[neighborSlot] != Double.POSITIVE_INFINITY) {
+			relax(neighborSlot, visitedSlot, w);
+		}
+	}
+
+	/**
+	 * Runs Dijkstra from the slots in the heap, relaxing the edges of every settled slot.
+	 * @param boolean isRestricted - relax only the slots of the affected set
+	 * @return int the number of settled slots
+	 */
+	private int propagate(boolean isRestricted) {
+		this.isRestricted = isRestricted;
+		int settled = 0;
+		while (!heap.isEmpty()) {
+			visitedSlot = heap.poll();
+			settled++;
+			forEachEdge(visitedSlot, relaxEdge);
+		}
+		return settled;
+	}
+
+	/**
+	 * The edge_visitor of propagate: relaxes the edge from the visited (settled) slot.
+	 */
+	private void relaxEdge(int neighborSlot, double w) {
+		if (!isRestricted || marks[neighborSlot] == generation) {
+			relax(visitedSlot, neighborSlot, w);
+		}
+	}
+}
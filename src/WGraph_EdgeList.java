@@ -0,0 +1,368 @@
+package ex1.src;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class imports and exports graphs as text edge lists.
+ * Each line is an edge "u,v,w" (the separator can also be spaces or tabs)
+ * or a single key "u" for a node without edges;
+ * empty lines and lines that start with '#' are skipped.
+ * The file is read through a FileChannel in blocks of 1MB and parsed in place in the byte buffer,
+ * without a String per line: keys are parsed digit by digit, and weights whose digits
+ * fit in 2^53 and have no exponent are computed exactly as mantissa / 10^k
+ * (both exact doubles, so the division is correctly rounded like Double.parseDouble);
+ * any other weight falls back to Double.parseDouble.
+ * The edges go to a WGraph_Builder, so duplicates follow its rules (the last weight wins).
+ */
+public final class WGraph_EdgeList {
+
+	private static final int BUFFER_SIZE = 1 << 20;
+	// The largest mantissa that is an exact double
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	// The powers of ten that are exact doubles
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+	private WGraph_EdgeList() {
+	}
+
+	/**
+	 * Reads an edge list file into a new graph.
+	 * @param String file
+	 * @param edge_list_listener listener - may be null, then invalid lines are skipped silently
+	 * @return WGraph_DS
+	 * @throws IOException
+	 */
+	public static WGraph_DS read(String file, edge_list_listener listener) throws IOException {
+		WGraph_Builder builder = new WGraph_Builder();
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			LineParser parser = new LineParser(builder, listener);
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			long bytesRead = 0;
+			int limit = 0;
+			boolean isEnd = false;
+			while (!isEnd) {
+				buffer.limit(buffer.capacity()).position(limit);
+				int count = channel.read(buffer);
+				if (count < 0) {
+					isEnd = true;
+				}
+				else {
+					limit += count;
+					bytesRead += count;
+				}
+				byte[] bytes = buffer.array();
+				int lineStart = 0;
+				for (int i = 0; i < limit; i++) {
+					if (bytes[i] == '\n') {
+						parser.parseLine(bytes, lineStart, i);
+						lineStart = i + 1;
+					}
+				}
+				if (isEnd && lineStart < limit) {
+					// The last line has no line break
+					parser.parseLine(bytes, lineStart, limit);
+					lineStart = limit;
+				}
+				// Keep the unfinished line at the start of the buffer, grow it for very long lines
+				int leftover = limit - lineStart;
+				if (leftover == buffer.capacity()) {
+					ByteBuffer larger = ByteBuffer.allocate(2 * buffer.capacity());
+					larger.put(bytes, 0, leftover);
+					buffer = larger;
+				}
+				else {
+					System.arraycopy(bytes, lineStart, bytes, 0, leftover);
+				}
+				limit = leftover;
+				if (listener != null && count > 0) {
+					listener.progress(bytesRead, fileSize);
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Writes the given graph as an edge list, each edge once (the smaller key first),
+	 * and each node without edges as a single key.
+	 * A CSR or a graph searched in place (like WGraph_Mapped) is written as it is,
+	 * any other graph through a CSR snapshot.
+	 * @param weighted_graph graph
+	 * @param String file
+	 * @throws IOException
+	 */
+	public static void write(weighted_graph graph, String file) throws IOException {
+		if (graph instanceof WGraph_CSR
+				|| graph instanceof indexed_graph && ((indexed_graph) graph).isSearchedInPlace()) {
+			write((indexed_graph) graph, file);
+		}
+		else {
+			write(new WGraph_CSR(graph), file);
+		}
+	}
+
+	/**
+	 * Writes the given graph as an edge list in index order, the indexes must have no gaps and be in key order.
+	 */
+	static void write(indexed_graph graph, String file) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			RowWriter writer = new RowWriter(graph, channel);
+			for (int i = 0; i < graph.indexSize(); i++) {
+				writer.write(i);
+			}
+			flush(channel, writer.buffer);
+		}
+	}
+
+	private static void ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush(channel, buffer);
+		}
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the decimal digits of an int without creating a String.
+	 */
+	private static void putInt(ByteBuffer buffer, int value) {
+		long v = value;
+		if (v < 0) {
+			buffer.put((byte) '-');
+			v = -v;
+		}
+		int length = 1;
+		for (long power = 10; power <= v; power *= 10) {
+			length++;
+		}
+		int position = buffer.position();
+		for (int i = position + length - 1; i >= position; i--) {
+			buffer.put(i, (byte) ('0' + v % 10));
+			v /= 10;
+		}
+		buffer.position(position + length);
+	}
+
+	/**
+	 * This class writes the rows of an indexed graph, as the edge visitor of each row.
+	 * A write error is kept and thrown after the row, since a visitor cannot throw it.
+	 */
+	private static final class RowWriter implements edge_visitor {
+
+		private final indexed_graph graph;
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		private int index;
+		private int key;
+		private boolean hasEdges;
+		private IOException error;
+
+		private RowWriter(indexed_graph graph, FileChannel channel) {
+			this.graph = graph;
+			this.channel = channel;
+		}
+
+		private void write(int i) throws IOException {
+			index = i;
+			key = graph.keyAt(i);
+			hasEdges = false;
+			graph.forEachEdgeAt(i, this);
+			if (error != null) {
+				throw error;
+			}
+			if (!hasEdges) {
+				ensure(channel, buffer, 12);
+				putInt(buffer, key);
+				buffer.put((byte) '\n');
+			}
+		}
+
+		@Override
+		public void visit(int neighbor, double w) {
+			hasEdges = true;
+			// The indexes are in key order, so u < v for the edges with a larger index
+			if (error != null || neighbor < index) {
+				return;
+			}
+			String weight = Double.toString(w);
+			try {
+				ensure(channel, buffer, 26 + weight.length());
+			}
+			catch(IOException ex) {
+				error = ex;
+				return;
+			}
+			putInt(buffer, key);
+			buffer.put((byte) ',');
+			putInt(buffer, graph.keyAt(neighbor));
+			buffer.put((byte) ',');
+			for (int c = 0; c < weight.length(); c++) {
+				buffer.put((byte) weight.charAt(c));
+			}
+			buffer.put((byte) '\n');
+		}
+	}
+
+	/**
+	 * This class parses the lines of an edge list in place and adds them to a builder.
+	 */
+	private static final class LineParser {
+
+		private final WGraph_Builder builder;
+		private final edge_list_listener listener;
+		private long lineNumber;
+		// The parse position in the current line, and the end of the line
+		private int position;
+		private int end;
+		private byte[] bytes;
+
+		private LineParser(WGraph_Builder builder, edge_list_listener listener) {
+			this.builder = builder;
+			this.listener = listener;
+		}
+
+		private void parseLine(byte[] bytes, int start, int end) {
+			lineNumber++;
+			this.bytes = bytes;
+			this.position = start;
+			this.end = end > start && bytes[end - 1] == '\r' ? end - 1 : end;
+			skipSpaces();
+			if (position == this.end || bytes[position] == '#') {
+				return;
+			}
+			long node1 = parseKey();
+			if (node1 != Long.MIN_VALUE) {
+				if (!skipSeparator()) {
+					builder.addNode((int) node1);
+					return;
+				}
+				long node2 = parseKey();
+				if (node2 != Long.MIN_VALUE && skipSeparator()) {
+					double weight = parseWeight();
+					skipSpaces();
+					// A negative weight is not a valid edge, the line is reported like any other invalid line
+					if (weight >= 0 && position == this.end) {
+						builder.addEdge((int) node1, (int) node2, weight);
+						return;
+					}
+				}
+			}
+			if (listener != null) {
+				listener.errorLine(lineNumber, new String(bytes, start, this.end - start, StandardCharsets.UTF_8));
+			}
+		}
+
+		private void skipSpaces() {
+			while (position < end && (bytes[position] == ' ' || bytes[position] == '\t')) {
+				position++;
+			}
+		}
+
+		/**
+		 * Skips the separator between two values.
+		 * @return false if the line ends instead
+		 */
+		private boolean skipSeparator() {
+			int start = position;
+			skipSpaces();
+			if (position < end && bytes[position] == ',') {
+				position++;
+				skipSpaces();
+			}
+			return position < end && position > start;
+		}
+
+		/**
+		 * Parses an int key.
+		 * @return long key, Long.MIN_VALUE if there is no valid key
+		 */
+		private long parseKey() {
+			boolean isNegative = false;
+			if (position < end && (bytes[position] == '-' || bytes[position] == '+')) {
+				isNegative = bytes[position++] == '-';
+			}
+			int start = position;
+			long value = 0;
+			while (position < end && bytes[position] >= '0' && bytes[position] <= '9') {
+				value = value * 10 + (bytes[position++] - '0');
+				if (value > Integer.MAX_VALUE + 1L) {
+					return Long.MIN_VALUE;
+				}
+			}
+			if (position == start) {
+				return Long.MIN_VALUE;
+			}
+			value = isNegative ? -value : value;
+			return value > Integer.MAX_VALUE ? Long.MIN_VALUE : value;
+		}
+
+		/**
+		 * Parses a weight.
+		 * @return double weight, NaN if there is no valid weight
+		 */
+		private double parseWeight() {
+			int start = position;
+			boolean isNegative = false;
+			if (position < end && (bytes[position] == '-' || bytes[position] == '+')) {
+				isNegative = bytes[position++] == '-';
+			}
+			long mantissa = 0;
+			int digits = 0;
+			int fractionDigits = 0;
+			boolean isExact = true;
+			boolean isFraction = false;
+			for (; position < end; position++) {
+				byte b = bytes[position];
+				if (b >= '0' && b <= '9') {
+					digits++;
+					if (mantissa > (MAX_EXACT_MANTISSA - 9) / 10) {
+						isExact = false;
+					}
+					else {
+						mantissa = mantissa * 10 + (b - '0');
+						if (isFraction) {
+							fractionDigits++;
+						}
+					}
+				}
+				else if (b == '.' && !isFraction) {
+					isFraction = true;
+				}
+				else {
+					break;
+				}
+			}
+			boolean isTokenEnd = position == end || bytes[position] == ' ' || bytes[position] == '\t'
+					|| bytes[position] == ',';
+			if (digits > 0 && isExact && isTokenEnd && fractionDigits < POWERS_OF_TEN.length) {
+				double value = mantissa / POWERS_OF_TEN[fractionDigits];
+				return isNegative ? -value : value;
+			}
+			// Exponents, long mantissas and special values take the slow path
+			while (position < end && bytes[position] != ' ' && bytes[position] != '\t' && bytes[position] != ',') {
+				position++;
+			}
+			try {
+				return Double.parseDouble(new String(bytes, start, position - start, StandardCharsets.US_ASCII));
+			}
+			catch (NumberFormatException ex) {
+				return Double.NaN;
+			}
+		}
+	}
+}
@@ -0,0 +1,449 @@
+package ex1.src;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class reads and writes the binary graph file format of WGraph_Algo.save/load.
+ * The file is little-endian, and after a 48 bytes header it holds the graph in CSR form,
+ * one section per array, each section aligned to 8 bytes:
+ * 0. header: magic "WGRF", version, node count, mode count, half-edge count (2 * edges), info bytes;
+ * 1. keys int[n] - the node keys in ascending order (node index = position);
+ * 2. tags double[n];
+ * 3. offsets long[n+1] - the neighbors of node i are at offsets[i]..offsets[i+1];
+ * 4. targets int[2E] - neighbor indices, sorted within each node;
+ * 5. weights double[2E];
+ * 6. infoOffsets long[n+1] - the UTF-8 info of node i is at infoOffsets[i]..infoOffsets[i+1];
+ * 7. infoNull byte[n] - 1 if the info of node i is null;
+ * 8. infoBytes byte[].
+ * Writing streams the sections through a FileChannel, and reading memory-maps them
+ * (in windows of up to 1GB) and copies them out with bulk gets.
+ */
+public final class WGraph_File {
+
+	static final int MAGIC = 0x46524757; // "WGRF" in little-endian order
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 48;
+	// The largest mapped window, a multiple of 8 so no element crosses windows
+	static final int WINDOW_SHIFT = 30;
+	static final long WINDOW_SIZE = 1L << WINDOW_SHIFT;
+	private static final int BUFFER_SIZE = 1 << 20;
+	// The largest array the heap graph of read can hold
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	private WGraph_File() {
+	}
+
+	/**
+	 * Returns true if and only if the file starts with the header of this format.
+	 * @param String file
+	 * @return boolean
+	 */
+	public static boolean isGraphFile(String file) {
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+				// Read until the buffer is full or the file ends
+			}
+			return buffer.position() == 8 && buffer.getInt(0) == MAGIC;
+		}
+		catch (IOException | RuntimeException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the given graph to the given file.
+	 * @param weighted_graph graph
+	 * @param String file
+	 * @throws IOException
+	 */
+	public static void write(weighted_graph graph, String file) throws IOException {
+		WGraph_CSR csr = graph instanceof WGraph_CSR ? (WGraph_CSR) graph : new WGraph_CSR(graph);
+		int n = csr.nodeSize();
+		byte[][] infos = new byte[n][];
+		long infoSize = 0;
+		for (int i = 0; i < n; i++) {
+			String info = csr.nodeAt(i).getInfo();
+			if (info != null) {
+				infos[i] = info.getBytes(StandardCharsets.UTF_8);
+				infoSize += infos[i].length;
+			}
+		}
+		int[] offsets = csr.offsets();
+		int[] targets = csr.targets();
+		double[] weights = csr.weights();
+		Layout layout = new Layout(n, targets.length, infoSize);
+
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ChannelWriter out = new ChannelWriter(channel);
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			out.putInt(n);
+			out.putInt(csr.getMC());
+			out.putLong(targets.length);
+			out.putLong(infoSize);
+			out.pad(HEADER_SIZE);
+			for (int i = 0; i < n; i++) {
+				out.putInt(csr.keyAt(i));
+			}
+			out.pad(layout.tags);
+			for (int i = 0; i < n; i++) {
+				out.putDouble(csr.nodeAt(i).getTag());
+			}
+			out.pad(layout.offsets);
+			for (int offset: offsets) {
+				out.putLong(offset);
+			}
+			out.pad(layout.targets);
+			for (int target: targets) {
+				out.putInt(target);
+			}
+			out.pad(layout.weights);
+			for (double weight: weights) {
+				out.putDouble(weight);
+			}
+			out.pad(layout.infoOffsets);
+			long infoOffset = 0;
+			out.putLong(0);
+			for (int i = 0; i < n; i++) {
+				infoOffset += infos[i] == null ? 0 : infos[i].length;
+				out.putLong(infoOffset);
+			}
+			out.pad(layout.infoNull);
+			for (int i = 0; i < n; i++) {
+				out.putByte(infos[i] == null ? (byte) 1 : (byte) 0);
+			}
+			out.pad(layout.infoBytes);
+			for (int i = 0; i < n; i++) {
+				if (infos[i] != null) {
+					out.putBytes(infos[i]);
+				}
+			}
+			out.flush();
+		}
+	}
+
+	/**
+	 * Reads a graph written by write into a new WGraph_DS,
+	 * with the same node keys, tags, info, edges and Mode Count.
+	 * The sections are copied to arrays and checked, and the graph is built on the heap;
+	 * WGraph_Mapped opens the same file without copying it.
+	 * @param String file
+	 * @return WGraph_DS
+	 * @throws IOException if the file is not a valid graph file
+	 */
+	public static WGraph_DS read(String file) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			Layout layout = readLayout(channel);
+			// The heap graph is built from arrays, so the sections must fit in them
+			if (layout.halfEdgeSize > MAX_ARRAY_SIZE || layout.infoSize > MAX_ARRAY_SIZE) {
+				throw new IOException("graph file too large to read to the heap");
+			}
+			int n = layout.nodeSize;
+			int[] keys = new int[n];
+			double[] tags = new double[n];
+			long[] offsets = new long[n + 1];
+			long[] infoOffsets = new long[n + 1];
+			byte[] infoNull = new byte[n];
+			readSection(channel, layout.keys, keys);
+			readSection(channel, layout.tags, tags);
+			readSection(channel, layout.offsets, offsets);
+			readSection(channel, layout.infoOffsets, infoOffsets);
+			readSection(channel, layout.infoNull, infoNull);
+			int halfEdges = (int) layout.halfEdgeSize;
+			int[] targets = new int[halfEdges];
+			double[] weights = new double[halfEdges];
+			readSection(channel, layout.targets, targets);
+			readSection(channel, layout.weights, weights);
+			byte[] infoBytes = new byte[(int) layout.infoSize];
+			readSection(channel, layout.infoBytes, infoBytes);
+
+			checkSections(keys, offsets, targets, weights, infoOffsets, infoNull, infoBytes.length);
+
+			int[] intOffsets = new int[n + 1];
+			for (int i = 0; i <= n; i++) {
+				intOffsets[i] = (int) offsets[i];
+			}
+			WGraph_DS graph = new WGraph_DS(keys, intOffsets, targets, weights);
+			for (int i = 0; i < n; i++) {
+				node_info node = graph.getNode(keys[i]);
+				node.setTag(tags[i]);
+				if (infoNull[i] == 0) {
+					node.setInfo(new String(infoBytes, (int) infoOffsets[i],
+							(int) (infoOffsets[i + 1] - infoOffsets[i]), StandardCharsets.UTF_8));
+				}
+			}
+			graph.setMC(layout.modeCounter);
+			return graph;
+		}
+	}
+
+	/**
+	 * Private function that checks the sections read by read, so a corrupt file
+	 * throws IOException instead of building a broken graph:
+	 * the keys ascend, the offsets of both kinds go from 0 to the section size and never back,
+	 * the targets of each row ascend and are other nodes that have the same edge back with the same weight,
+	 * and the weights are not negative.
+	 * @throws IOException if a section is not valid
+	 */
+	private static void checkSections(int[] keys, long[] offsets, int[] targets, double[] weights,
+			long[] infoOffsets, byte[] infoNull, long infoSize) throws IOException {
+		int n = keys.length;
+		if (offsets[0] != 0 || offsets[n] != targets.length || infoOffsets[0] != 0 || infoOffsets[n] != infoSize) {
+			throw new IOException("corrupt graph file");
+		}
+		for (int i = 0; i < n; i++) {
+			if ((i > 0 && keys[i] <= keys[i - 1]) || offsets[i + 1] < offsets[i]
+					|| infoOffsets[i + 1] < infoOffsets[i] || (infoNull[i] != 0 && infoNull[i] != 1)) {
+				throw new IOException("corrupt graph file");
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			int start = (int) offsets[i];
+			int end = (int) offsets[i + 1];
+			for (int e = start; e < end; e++) {
+				int target = targets[e];
+				if (target < 0 || target >= n || target == i || (e > start && target <= targets[e - 1])
+						|| !(weights[e] >= 0)) {
+					throw new IOException("corrupt graph file");
+				}
+				int back = Arrays.binarySearch(targets, (int) offsets[target], (int) offsets[target + 1], i);
+				if (back < 0 || Double.compare(weights[back], weights[e]) != 0) {
+					throw new IOException("corrupt graph file");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads and checks the header of an open graph file.
+	 * @param FileChannel channel
+	 * @return Layout
+	 * @throws IOException if the header is not valid
+	 */
+	static Layout readLayout(FileChannel channel) throws IOException {
+		if (channel.size() < HEADER_SIZE) {
+			throw new IOException("not a graph file");
+		}
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		if (header.getInt(0) != MAGIC) {
+			throw new IOException("not a graph file");
+		}
+		if (header.getInt(4) != VERSION) {
+			throw new IOException("unsupported graph file version " + header.getInt(4));
+		}
+		int nodeSize = header.getInt(8);
+		long halfEdgeSize = header.getLong(16);
+		long infoSize = header.getLong(24);
+		// Every edge is stored in the rows of both its nodes
+		if (nodeSize < 0 || halfEdgeSize < 0 || halfEdgeSize % 2 != 0 || infoSize < 0) {
+			throw new IOException("corrupt graph file");
+		}
+		Layout layout = new Layout(nodeSize, halfEdgeSize, infoSize);
+		layout.modeCounter = header.getInt(12);
+		if (channel.size() < layout.size) {
+			throw new IOException("truncated graph file");
+		}
+		return layout;
+	}
+
+	/**
+	 * Maps the given section of the file in windows of up to WINDOW_SIZE bytes.
+	 * @return MappedByteBuffer[] little-endian windows
+	 */
+	static MappedByteBuffer[] map(FileChannel channel, long position, long size) throws IOException {
+		int count = (int) ((size + WINDOW_SIZE - 1) / WINDOW_SIZE);
+		MappedByteBuffer[] windows = new MappedByteBuffer[Math.max(count, 1)];
+		for (int w = 0; w < windows.length; w++) {
+			long start = w * WINDOW_SIZE;
+			long length = Math.min(WINDOW_SIZE, size - start);
+			windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, position + start, Math.max(length, 0));
+			windows[w].order(ByteOrder.LITTLE_ENDIAN);
+		}
+		return windows;
+	}
+
+	private static void readSection(FileChannel channel, long position, int[] array) throws IOException {
+		copy(map(channel, position, 4L * array.length), array);
+	}
+
+	private static void readSection(FileChannel channel, long position, long[] array) throws IOException {
+		copy(map(channel, position, 8L * array.length), array);
+	}
+
+	private static void readSection(FileChannel channel, long position, double[] array) throws IOException {
+		copy(map(channel, position, 8L * array.length), array);
+	}
+
+	private static void readSection(FileChannel channel, long position, byte[] array) throws IOException {
+		copy(map(channel, position, array.length), array);
+	}
+
+	// The copy methods use bulk gets on views, so the positions of the shared windows never move
+
+	static void copy(MappedByteBuffer[] windows, int[] array) {
+		int done = 0;
+		for (MappedByteBuffer window: windows) {
+			IntBuffer ints = window.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			int count = Math.min(ints.remaining(), array.length - done);
+			ints.get(array, done, count);
+			done += count;
+		}
+	}
+
+	static void copy(MappedByteBuffer[] windows, long[] array) {
+		int done = 0;
+		for (MappedByteBuffer window: windows) {
+			LongBuffer longs = window.duplicate().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+			int count = Math.min(longs.remaining(), array.length - done);
+			longs.get(array, done, count);
+			done += count;
+		}
+	}
+
+	static void copy(MappedByteBuffer[] windows, double[] array) {
+		int done = 0;
+		for (MappedByteBuffer window: windows) {
+			DoubleBuffer doubles = window.duplicate().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			int count = Math.min(doubles.remaining(), array.length - done);
+			doubles.get(array, done, count);
+			done += count;
+		}
+	}
+
+	static void copy(MappedByteBuffer[] windows, byte[] array) {
+		int done = 0;
+		for (MappedByteBuffer window: windows) {
+			ByteBuffer bytes = window.duplicate();
+			int count = Math.min(bytes.remaining(), array.length - done);
+			bytes.get(array, done, count);
+			done += count;
+		}
+	}
+
+	/**
+	 * This class holds the sizes from the header and the position of each section.
+	 */
+	static final class Layout {
+
+		final int nodeSize;
+		final long halfEdgeSize;
+		final long infoSize;
+		int modeCounter;
+		final long keys;
+		final long tags;
+		final long offsets;
+		final long targets;
+		final long weights;
+		final long infoOffsets;
+		final long infoNull;
+		final long infoBytes;
+		final long size;
+
+		Layout(int nodeSize, long halfEdgeSize, long infoSize) {
+			this.nodeSize = nodeSize;
+			this.halfEdgeSize = halfEdgeSize;
+			this.infoSize = infoSize;
+			keys = HEADER_SIZE;
+			tags = align(keys + 4L * nodeSize);
+			offsets = align(tags + 8L * nodeSize);
+			targets = align(offsets + 8L * (nodeSize + 1));
+			weights = align(targets + 4L * halfEdgeSize);
+			infoOffsets = align(weights + 8L * halfEdgeSize);
+			infoNull = align(infoOffsets + 8L * (nodeSize + 1));
+			infoBytes = align(infoNull + nodeSize);
+			size = infoBytes + infoSize;
+		}
+
+		private static long align(long position) {
+			return (position + 7) & ~7L;
+		}
+	}
+
+	/**
+	 * This class buffers little-endian values and writes them to a channel in large blocks.
+	 */
+	private static final class ChannelWriter {
+
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		private long position;
+
+		private ChannelWriter(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		private void ensure(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+			}
+		}
+
+		private void putByte(byte value) throws IOException {
+			ensure(1);
+			buffer.put(value);
+			position++;
+		}
+
+		private void putInt(int value) throws IOException {
+			ensure(4);
+			buffer.putInt(value);
+			position += 4;
+		}
+
+		private void putLong(long value) throws IOException {
+			ensure(8);
+			buffer.putLong(value);
+			position += 8;
+		}
+
+		private void putDouble(double value) throws IOException {
+			ensure(8);
+			buffer.putDouble(value);
+			position += 8;
+		}
+
+		private void putBytes(byte[] bytes) throws IOException {
+			int done = 0;
+			while (done < bytes.length) {
+				ensure(1);
+				int count = Math.min(buffer.remaining(), bytes.length - done);
+				buffer.put(bytes, done, count);
+				done += count;
+			}
+			position += bytes.length;
+		}
+
+		/**
+		 * Writes zero bytes up to the given section position.
+		 */
+		private void pad(long sectionPosition) throws IOException {
+			while (position < sectionPosition) {
+				putByte((byte) 0);
+			}
+			if (position != sectionPosition) {
+				throw new IllegalStateException("section written past its end");
+			}
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+}
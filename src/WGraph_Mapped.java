@@ -0,0 +1,464 @@
+package ex1.src;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements indexed_graph interface
+ * that represents a read-only graph stored off-heap, in a memory-mapped file
+ * written by WGraph_File (or WGraph_Algo.save).
+ * Nothing is copied to the heap when the graph is opened: getNode, getV, hasEdge and getEdge
+ * read the mapped keys, offsets, targets and weights directly,
+ * finding a node by binary search over the sorted keys
+ * and an edge by binary search over the sorted row of its node.
+ * The node_info objects are small views that are created on access
+ * (two views of the same node are equal), and their tag and info are read from the file.
+ * The dense index of a node is its position in the file, so WGraph_Algo searches the paths
+ * over the mapped sections themselves (see isSearchedInPlace).
+ * All the methods that change the graph or a node throw UnsupportedOperationException.
+ */
+public class WGraph_Mapped implements indexed_graph {
+
+	private static final long WINDOW_MASK = WGraph_File.WINDOW_SIZE - 1;
+
+	private final int nodeSize;
+	private final int edgeSize;
+	private final int modeCounter;
+	private final MappedByteBuffer[] keys;
+	private final MappedByteBuffer[] tags;
+	private final MappedByteBuffer[] offsets;
+	private final MappedByteBuffer[] targets;
+	private final MappedByteBuffer[] weights;
+	private final MappedByteBuffer[] infoOffsets;
+	private final MappedByteBuffer[] infoNull;
+	private final MappedByteBuffer[] infoBytes;
+
+	/**
+	 * Constructor that maps the given graph file.
+	 * The file can be closed or deleted afterwards on most systems, but must not be changed.
+	 * @param String file
+	 * @throws IOException if the file is not a valid graph file
+	 */
+	public WGraph_Mapped(String file) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			WGraph_File.Layout layout = WGraph_File.readLayout(channel);
+			nodeSize = layout.nodeSize;
+			edgeSize = (int) (layout.halfEdgeSize / 2);
+			modeCounter = layout.modeCounter;
+			keys = WGraph_File.map(channel, layout.keys, 4L * nodeSize);
+			tags = WGraph_File.map(channel, layout.tags, 8L * nodeSize);
+			offsets = WGraph_File.map(channel, layout.offsets, 8L * (nodeSize + 1));
+			targets = WGraph_File.map(channel, layout.targets, 4L * layout.halfEdgeSize);
+			weights = WGraph_File.map(channel, layout.weights, 8L * layout.halfEdgeSize);
+			infoOffsets = WGraph_File.map(channel, layout.infoOffsets, 8L * (nodeSize + 1));
+			infoNull = WGraph_File.map(channel, layout.infoNull, nodeSize);
+			infoBytes = WGraph_File.map(channel, layout.infoBytes, layout.infoSize);
+		}
+	}
+
+	// Absolute reads, so the mapped windows can be shared by any number of threads
+
+	private static int intAt(MappedByteBuffer[] section, long i) {
+		long position = i << 2;
+		return section[(int) (position >>> WGraph_File.WINDOW_SHIFT)].getInt((int) (position & WINDOW_MASK));
+	}
+
+	private static long longAt(MappedByteBuffer[] section, long i) {
+		long position = i << 3;
+		return section[(int) (position >>> WGraph_File.WINDOW_SHIFT)].getLong((int) (position & WINDOW_MASK));
+	}
+
+	private static double doubleAt(MappedByteBuffer[] section, long i) {
+		long position = i << 3;
+		return section[(int) (position >>> WGraph_File.WINDOW_SHIFT)].getDouble((int) (position & WINDOW_MASK));
+	}
+
+	private static byte byteAt(MappedByteBuffer[] section, long i) {
+		return section[(int) (i >>> WGraph_File.WINDOW_SHIFT)].get((int) (i & WINDOW_MASK));
+	}
+
+	/**
+	 * Returns the dense index of the given key, by binary search over the sorted keys.
+	 * @param int key
+	 * @return int index, -1 if there is no such node.
+	 */
+	@Override
+	public int indexOf(int key) {
+		int low = 0;
+		int high = nodeSize - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int middleKey = intAt(keys, middle);
+			if (middleKey < key) {
+				low = middle + 1;
+			}
+			else if (middleKey > key) {
+				high = middle - 1;
+			}
+			else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Private function that returns the position of the edge between index1 and index2
+	 * in the targets section.
+	 * @return long position, -1 if there is no such edge
+	 */
+	private long findPosition(int index1, int index2) {
+		long low = longAt(offsets, index1);
+		long high = longAt(offsets, index1 + 1) - 1;
+		while (low <= high) {
+			long middle = (low + high) >>> 1;
+			int target = intAt(targets, middle);
+			if (target < index2) {
+				low = middle + 1;
+			}
+			else if (target > index2) {
+				high = middle - 1;
+			}
+			else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the node_info by the key.
+	 * @param int key
+	 * @return a view of the node, null if none.
+	 */
+	@Override
+	public node_info getNode(int key) {
+		int i = indexOf(key);
+		return i < 0 ? null : new MappedNode(i);
+	}
+
+	/**
+	 * Returns true if and only if there
+	 * is an edge between node1 and node2.
+	 * Runs in O(log n + log k), k - being the degree of node1.
+	 * @param int node1
+	 * @param int node2
+	 * @return boolean
+	 */
+	@Override
+	public boolean hasEdge(int node1, int node2) {
+		return getEdge(node1, node2) >= 0;
+	}
+
+	/**
+	 * Returns the weight of the edge between node1 and node2.
+	 * In case there is no such edge - returns -1
+	 * @param int node1
+	 * @param int node2
+	 * @return double
+	 */
+	@Override
+	public double getEdge(int node1, int node2) {
+		int index1 = indexOf(node1);
+		int index2 = indexOf(node2);
+		if (node1 == node2 || index1 < 0 || index2 < 0) {
+			return -1;
+		}
+		long position = findPosition(index1, index2);
+		return position < 0 ? -1 : doubleAt(weights, position);
+	}
+
+	/**
+	 * Returns the weight of the edge between the nodes at the given indexes,
+	 * by binary search over the mapped row of index1.
+	 * @param int index1
+	 * @param int index2
+	 * @return double weight, -1 if there is no such edge
+	 */
+	@Override
+	public double weightAt(int index1, int index2) {
+		if (index1 < 0 || index1 >= nodeSize || index2 < 0 || index2 >= nodeSize) {
+			return -1;
+		}
+		long position = findPosition(index1, index2);
+		return position < 0 ? -1 : doubleAt(weights, position);
+	}
+
+	@Override
+	public void addNode(int key) {
+		throw new UnsupportedOperationException("WGraph_Mapped is read-only");
+	}
+
+	@Override
+	public void connect(int node1, int node2, double w) {
+		throw new UnsupportedOperationException("WGraph_Mapped is read-only");
+	}
+
+	/**
+	 * This method returns a read-only Collection of views of all the nodes in the graph,
+	 * in ascending key order. The views are created while iterating.
+	 * @return Collection<node_info>
+	 */
+	@Override
+	public Collection<node_info> getV() {
+		return new AbstractCollection<node_info>() {
+
+			@Override
+			public Iterator<node_info> iterator() {
+				return new RangeIterator(0, nodeSize, false);
+			}
+
+			@Override
+			public int size() {
+				return nodeSize;
+			}
+		};
+	}
+
+	/**
+	 * This method returns a read-only Collection of views of all the
+	 * nodes connected to node_id, in ascending key order.
+	 * @param int node_id - key
+	 * @return Collection<node_info>, null if there is no such node.
+	 */
+	@Override
+	public Collection<node_info> getV(int node_id) {
+		int i = indexOf(node_id);
+		if (i < 0) {
+			return null;
+		}
+		final long start = longAt(offsets, i);
+		final long end = longAt(offsets, i + 1);
+		return new AbstractCollection<node_info>() {
+
+			@Override
+			public Iterator<node_info> iterator() {
+				return new RangeIterator(start, end, true);
+			}
+
+			@Override
+			public int size() {
+				return (int) (end - start);
+			}
+		};
+	}
+
+	/**
+	 * Calls the visitor with the key and the weight of each edge of node_id, read straight from the file.
+	 * @param int node_id - key
+	 * @param edge_visitor visitor
+	 */
+	@Override
+	public void forEachEdge(int node_id, edge_visitor visitor) {
+		int i = indexOf(node_id);
+		if (i < 0) {
+			return;
+		}
+		for (long j = longAt(offsets, i), end = longAt(offsets, i + 1); j < end; j++) {
+			visitor.visit(intAt(keys, intAt(targets, j)), doubleAt(weights, j));
+		}
+	}
+
+	@Override
+	public node_info removeNode(int key) {
+		throw new UnsupportedOperationException("WGraph_Mapped is read-only");
+	}
+
+	@Override
+	public void removeEdge(int node1, int node2) {
+		throw new UnsupportedOperationException("WGraph_Mapped is read-only");
+	}
+
+	/**
+	 * Returns the number of vertices (nodes) in the graph.
+	 * @return int node size
+	 */
+	@Override
+	public int nodeSize() {
+		return nodeSize;
+	}
+
+	/**
+	 * Returns the number of edges (undirected graph).
+	 * @return int edge size
+	 */
+	@Override
+	public int edgeSize() {
+		return edgeSize;
+	}
+
+	/**
+	 * Returns the Mode Count the graph was saved with.
+	 * @return int mode count
+	 */
+	@Override
+	public int getMC() {
+		return modeCounter;
+	}
+
+	/**
+	 * Returns a view of the node at the given dense index.
+	 * @param int index - in 0..nodeSize()-1
+	 * @return node_info, null if the index is out of range.
+	 */
+	@Override
+	public node_info nodeAt(int index) {
+		return index < 0 || index >= nodeSize ? null : new MappedNode(index);
+	}
+
+	/**
+	 * Returns the key at the given dense index, read straight from the keys section.
+	 * @param int index - in 0..nodeSize()-1
+	 * @return int key
+	 */
+	@Override
+	public int keyAt(int index) {
+		return intAt(keys, index);
+	}
+
+	/**
+	 * Returns the number of dense indexes, the indexes of a file have no gaps.
+	 * @return int node size
+	 */
+	@Override
+	public int indexSize() {
+		return nodeSize;
+	}
+
+	/**
+	 * Calls the visitor with the index and the weight of each edge of the node at the given index,
+	 * read straight from the targets and weights sections (the positions are long, so rows
+	 * beyond 2^31 entries of the file are read as well).
+	 * @param int index
+	 * @param edge_visitor visitor - gets the index of each neighbor as its neighborKey
+	 */
+	@Override
+	public void forEachEdgeAt(int index, edge_visitor visitor) {
+		if (index < 0 || index >= nodeSize) {
+			return;
+		}
+		for (long j = longAt(offsets, index), end = longAt(offsets, index + 1); j < end; j++) {
+			visitor.visit(intAt(targets, j), doubleAt(weights, j));
+		}
+	}
+
+	/**
+	 * Returns true: the path searches run over the mapped sections, nothing is copied to the heap.
+	 * @return boolean
+	 */
+	@Override
+	public boolean isSearchedInPlace() {
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "nodesSize=" + nodeSize + ", edgeSize=" + edgeSize + ", modeCounter=" + modeCounter;
+	}
+
+	/**
+	 * This class iterates over a range of node indices,
+	 * or over a range of the targets section, creating node views.
+	 */
+	private class RangeIterator implements Iterator<node_info> {
+
+		private long position;
+		private final long end;
+		private final boolean isTargets;
+
+		private RangeIterator(long start, long end, boolean isTargets) {
+			this.position = start;
+			this.end = end;
+			this.isTargets = isTargets;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return position < end;
+		}
+
+		@Override
+		public node_info next() {
+			if (position >= end) {
+				throw new NoSuchElementException();
+			}
+			int i = isTargets ? intAt(targets, position) : (int) position;
+			position++;
+			return new MappedNode(i);
+		}
+	}
+
+	/**
+	 * This class implements node_info interface
+	 * as a read-only view of the node at a dense index of the mapped file.
+	 */
+	private class MappedNode implements node_info {
+
+		private final int index;
+
+		private MappedNode(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public int getKey() {
+			return intAt(keys, index);
+		}
+
+		@Override
+		public String getInfo() {
+			if (byteAt(infoNull, index) != 0) {
+				return null;
+			}
+			long start = longAt(infoOffsets, index);
+			byte[] bytes = new byte[(int) (longAt(infoOffsets, index + 1) - start)];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = byteAt(infoBytes, start + i);
+			}
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public void setInfo(String s) {
+			throw new UnsupportedOperationException("WGraph_Mapped is read-only");
+		}
+
+		@Override
+		public double getTag() {
+			return doubleAt(tags, index);
+		}
+
+		@Override
+		public void setTag(double t) {
+			throw new UnsupportedOperationException("WGraph_Mapped is read-only");
+		}
+
+		private WGraph_Mapped graph() {
+			return WGraph_Mapped.this;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof MappedNode && ((MappedNode) other).index == index
+					&& ((MappedNode) other).graph() == WGraph_Mapped.this;
+		}
+
+		@Override
+		public int hashCode() {
+			return index;
+		}
+
+		@Override
+		public String toString() {
+			return "key=" + getKey();
+		}
+	}
+}
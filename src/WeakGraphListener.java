@@ -0,0 +1,83 @@
+package ex1.src;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * This class is the graph_listener that a WGraph_DS holds for a structure that follows its changes
+ * (ConnectedComponents, WGraph_DynamicSPT) without keeping it alive:
+ * it forwards the changes while the structure is in use, and removes itself from the graph
+ * on the first change after the structure was collected.
+ */
+final class WeakGraphListener implements graph_listener {
+
+	private final WGraph_DS graph;
+	private final WeakReference<graph_listener> target;
+
+	private WeakGraphListener(WGraph_DS graph, graph_listener target) {
+		this.graph = graph;
+		this.target = new WeakReference<>(target);
+	}
+
+	/**
+	 * Registers a weak listener of the given target on the graph.
+	 * @param WGraph_DS graph
+	 * @param graph_listener target
+	 * @return WeakGraphListener - the registered listener, to remove it with graph.removeListener
+	 */
+	static WeakGraphListener register(WGraph_DS graph, graph_listener target) {
+		WeakGraphListener listener = new WeakGraphListener(graph, target);
+		graph.addListener(listener);
+		return listener;
+	}
+
+	/**
+	 * Returns the target, or null after removing this listener if it was collected.
+	 */
+	private graph_listener target() {
+		graph_listener result = target.get();
+		if (result == null) {
+			graph.removeListener(this);
+		}
+		return result;
+	}
+
+	@Override
+	public void nodeAdded(int key) {
+		graph_listener result = target();
+		if (result != null) {
+			result.nodeAdded(key);
+		}
+	}
+
+	@Override
+	public void nodeRemoved(node_info node) {
+		graph_listener result = target();
+		if (result != null) {
+			result.nodeRemoved(node);
+		}
+	}
+
+	@Override
+	public void edgeAdded(int node1, int node2, double w) {
+		graph_listener result = target();
+		if (result != null) {
+			result.edgeAdded(node1, node2, w);
+		}
+	}
+
+	@Override
+	public void edgeUpdated(int node1, int node2, double oldWeight, double w) {
+		graph_listener result = target();
+		if (result != null) {
+			result.edgeUpdated(node1, node2, oldWeight, w);
+		}
+	}
+
+	@Override
+	public void edgeRemoved(int node1, int node2, double w) {
+		graph_listener result = target();
+		if (result != null) {
+			result.edgeRemoved(node1, node2, w);
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package ex1.src;
+
+/**
+ * This interface represents a heuristic for the A* search of WGraph_Algo.
+ * It should be admissible: it never returns more than the real
+ * shortest path distance between the two nodes.
+ * The closer it is to the real distance, the fewer nodes A* settles.
+ */
+public interface distance_heuristic {
+    /**
+     * return a lower bound of the shortest path distance between node and target.
+     * @param node - the key of the node that is estimated
+     * @param target - the key of the dest node of the search
+     * @return
+     */
+    public double estimate(int node, int target);
+}
@@ -0,0 +1,23 @@
+package ex1.src;
+
+/**
+ * This interface represents a listener of an edge list import
+ * (WGraph_Algo.importEdgeList), that is told about the progress
+ * and about every line that could not be parsed.
+ */
+public interface edge_list_listener {
+    /**
+     * Called after each block of the file is read.
+     * @param bytesRead - the number of bytes read so far
+     * @param fileSize - the size of the file in bytes
+     */
+    public void progress(long bytesRead, long fileSize);
+
+    /**
+     * Called for each line that is not a valid "u,v,w" or "u" line (including a negative or NaN weight),
+     * the line is skipped.
+     * @param lineNumber - starting at 1
+     * @param line - the text of the line
+     */
+    public void errorLine(long lineNumber, String line);
+}
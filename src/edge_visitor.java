@@ -0,0 +1,15 @@
+package ex1.src;
+
+/**
+ * This interface represents a visitor of the edges of a node (see weighted_graph.forEachEdge),
+ * that gets each neighbor key with the weight of its edge, without any node_info or iterator.
+ * A visitor object can be kept and reused for any number of calls.
+ */
+public interface edge_visitor {
+    /**
+     * Called once for each edge of the visited node.
+     * @param neighborKey - the key of the node at the other end of the edge
+     * @param w - the weight of the edge
+     */
+    public void visit(int neighborKey, double w);
+}
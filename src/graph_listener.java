@@ -0,0 +1,46 @@
+package ex1.src;
+
+/**
+ * This interface represents a listener of the changes of a graph (see WGraph_DS.addListener).
+ * Each method is called after the change was made, so the graph already shows it.
+ * Removing a node calls edgeRemoved for each of its edges and then nodeRemoved,
+ * all after the node and its edges were removed.
+ */
+public interface graph_listener {
+    /**
+     * A node was added to the graph.
+     * @param key
+     */
+    public void nodeAdded(int key);
+
+    /**
+     * A node was removed from the graph (after the edgeRemoved calls of its edges).
+     * @param node - the removed node
+     */
+    public void nodeRemoved(node_info node);
+
+    /**
+     * A new edge was added to the graph.
+     * @param node1
+     * @param node2
+     * @param w - weight
+     */
+    public void edgeAdded(int node1, int node2, double w);
+
+    /**
+     * The weight of an existing edge was set by connect (it may be the same weight).
+     * @param node1
+     * @param node2
+     * @param oldWeight - the weight before the change
+     * @param w - the new weight
+     */
+    public void edgeUpdated(int node1, int node2, double oldWeight, double w);
+
+    /**
+     * An edge was removed from the graph.
+     * @param node1
+     * @param node2
+     * @param w - the weight the edge had
+     */
+    public void edgeRemoved(int node1, int node2, double w);
+}
@@ -0,0 +1,60 @@
+package ex1.src;
+
+/**
+ * This interface represents a weighted graph whose nodes have dense indexes,
+ * so algorithms can search it in place with flat per-node arrays instead of maps by key.
+ */
+public interface indexed_graph extends weighted_graph {
+    /**
+     * Returns the dense index of the given node, in 0..indexSize()-1.
+     * @param key
+     * @return the index, -1 if there is no such node.
+     */
+    public int indexOf(int key);
+    /**
+     * Returns the node at the given dense index.
+     * @param index - in 0..indexSize()-1
+     * @return node_info, null if no node has this index.
+     */
+    public node_info nodeAt(int index);
+    /**
+     * Returns the key of the node at the given dense index, without a node_info.
+     * @param index - the index of a node
+     * @return the key
+     */
+    public default int keyAt(int index) {
+        return nodeAt(index).getKey();
+    }
+    /**
+     * Returns one more than the largest dense index, at least nodeSize().
+     * @return
+     */
+    public int indexSize();
+    /**
+     * Calls the visitor with the dense index (in place of the key) and the weight
+     * of each edge of the node at the given index.
+     * Nothing is done if no node has this index. The visitor must not change the graph.
+     * @param index
+     * @param visitor - gets the index of each neighbor as its neighborKey
+     */
+    public void forEachEdgeAt(int index, edge_visitor visitor);
+    /**
+     * Returns the weight of the edge between the nodes at the given dense indexes.
+     * @param index1
+     * @param index2
+     * @return the weight, -1 if there is no such edge.
+     */
+    public default double weightAt(int index1, int index2) {
+        node_info node1 = nodeAt(index1);
+        node_info node2 = nodeAt(index2);
+        return node1 == null || node2 == null ? -1 : getEdge(node1.getKey(), node2.getKey());
+    }
+    /**
+     * Returns true if the path searches should always run on this graph in place,
+     * and never on a CSR copy of it: a graph that is not kept on the heap is not copied there.
+     * @return false by default
+     */
+    public default boolean isSearchedInPlace() {
+        return false;
+    }
+}
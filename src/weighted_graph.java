@@ -60,6 +60,24 @@ public interface weighted_graph {
      * @return Collection<node_data>
      */
     public Collection<node_info> getV(int node_id);
+    /**
+     * Calls the visitor with the key and the weight of each edge of node_id, in one pass.
+     * Unlike getV(node_id) followed by getEdge, the graphs of this package read each weight
+     * where the neighbor is stored, with no lookup per edge and no per-edge allocation.
+     * Nothing is done if there is no such node. The visitor must not change the graph.
+     * Note: this method should run in O(k) time, k - being the degree of node_id.
+     * @param node_id - key
+     * @param visitor
+     */
+    public default void forEachEdge(int node_id, edge_visitor visitor) {
+        Collection<node_info> neighbors = getV(node_id);
+        if (neighbors == null) {
+            return;
+        }
+        for (node_info neighbor: neighbors) {
+            visitor.visit(neighbor.getKey(), getEdge(node_id, neighbor.getKey()));
+        }
+    }
     /**
      * Delete the node (with the given ID) from the graph -
      * and removes all edges which starts or ends at this node.
@@ -0,0 +1,61 @@
+package ex1.tests;
+
+import java.util.Random;
+
+import ex1.src.WGraph_DS;
+
+/**
+ * This class creates the random graphs that the tests share.
+ */
+final class TestGraphs {
+
+	private TestGraphs() {
+	}
+
+	/**
+	 * Returns a graph with the nodes 0..nodeSize-1 and edgeSize random edges
+	 * with weights in 0..99.9 (in steps of 0.1).
+	 * @param int nodeSize
+	 * @param int edgeSize
+	 * @param long seed
+	 * @return WGraph_DS
+	 */
+	static WGraph_DS randomGraph(int nodeSize, int edgeSize, long seed) {
+		Random random = new Random(seed);
+		WGraph_DS graph = new WGraph_DS();
+		for (int i = 0; i < nodeSize; i++) {
+			graph.addNode(i);
+		}
+		while (graph.edgeSize() < edgeSize) {
+			graph.connect(random.nextInt(nodeSize), random.nextInt(nodeSize), random.nextInt(1000) / 10.0);
+		}
+		return graph;
+	}
+
+	/**
+	 * Returns a size x size grid graph, node x * size + y is connected to its left and upper neighbors
+	 * with random weights in 1..5.75 (in steps of 0.25).
+	 * @param int size
+	 * @param long seed
+	 * @return WGraph_DS
+	 */
+	static WGraph_DS gridGraph(int size, long seed) {
+		Random random = new Random(seed);
+		WGraph_DS graph = new WGraph_DS();
+		for (int i = 0; i < size * size; i++) {
+			graph.addNode(i);
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				int node = x * size + y;
+				if (x > 0) {
+					graph.connect(node, node - size, 1 + random.nextInt(20) / 4.0);
+				}
+				if (y > 0) {
+					graph.connect(node, node - 1, 1 + random.nextInt(20) / 4.0);
+				}
+			}
+		}
+		return graph;
+	}
+}
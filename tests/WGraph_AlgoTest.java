@@ -1,28 +1,60 @@
 package ex1.tests;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import ex1.src.LandmarkHeuristic;
+import ex1.src.ShortestPathTree;
 import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_Builder;
+import ex1.src.WGraph_Compact;
 import ex1.src.WGraph_DS;
+import ex1.src.WGraph_File;
+import ex1.src.distance_heuristic;
+import ex1.src.edge_list_listener;
 import ex1.src.node_info;
 import ex1.src.weighted_graph;
 
 class WGraph_AlgoTest {
 
+	// The number of misses that makes a src hot in the query cache
+	private static final int HOT_SOURCE_QUERIES = 8;
+
 	private WGraph_DS graph = new WGraph_DS();
 	private WGraph_Algo algoGraph;
 
+	@TempDir
+	Path directory;
+
 	@BeforeEach
 	void initGraph() {
 		algoGraph = createGraph(false);
@@ -108,18 +140,560 @@ class WGraph_AlgoTest {
 		assertEquals(null, emptyAlgoGraph.shortestPath(0, 1));
 	}
 
+	@Test
+	void testFrozenGraph() {
+		WGraph_Algo frozenAlgoGraph = new WGraph_Algo(graph.freeze());
+		assertFalse(frozenAlgoGraph.isConnected());
+		assertEquals(9.8, frozenAlgoGraph.shortestPathDist(2, 9));
+		assertEquals(-1.0, frozenAlgoGraph.shortestPathDist(2, 10));
+		assertEquals(Arrays.asList(graph.getNode(2), graph.getNode(5), graph.getNode(1), graph.getNode(9)),
+				frozenAlgoGraph.shortestPath(2, 9));
+		assertNull(frozenAlgoGraph.shortestPath(2, 10));
+
+		createGraph(true);
+		frozenAlgoGraph = new WGraph_Algo(graph.freeze());
+		assertTrue(frozenAlgoGraph.isConnected());
+	}
+
+	@Test
+	void testQueriesKeepNodeData() {
+		graph.getNode(5).setInfo("x=3,y=4");
+		graph.getNode(5).setTag(1.5);
+		algoGraph.shortestPath(2, 9);
+		algoGraph.isConnected();
+		assertEquals("x=3,y=4", graph.getNode(5).getInfo());
+		assertEquals(1.5, graph.getNode(5).getTag());
+	}
+
+	@Test
+	void testConcurrentQueries() throws Exception {
+		algoGraph = createGraph(true);
+		double expected = algoGraph.shortestPathDist(0, 8);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<Double>> results = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			results.add(executor.submit(() -> algoGraph.shortestPathDist(0, 8)));
+		}
+		for (Future<Double> result: results) {
+			assertEquals(expected, result.get());
+		}
+		executor.shutdown();
+	}
+
+	@Test
+	void testQueriesAfterGraphChange() {
+		assertEquals(9.8, algoGraph.shortestPathDist(2, 9));
+		graph.connect(2, 9, 1.25);
+		assertEquals(1.25, algoGraph.shortestPathDist(2, 9));
+		graph.removeNode(9);
+		assertEquals(-1.0, algoGraph.shortestPathDist(2, 9));
+	}
+
+	@Test
+	void testLiveSearchAfterChanges() {
+		WGraph_DS randomGraph = TestGraphs.randomGraph(300, 700, 21);
+		WGraph_Algo liveAlgoGraph = new WGraph_Algo(randomGraph);
+		// The lazy queue always searches the CSR snapshot
+		WGraph_Algo snapshotAlgoGraph = new WGraph_Algo(randomGraph);
+		snapshotAlgoGraph.setHeapArity(WGraph_Algo.LAZY_PRIORITY_QUEUE);
+		Random random = new Random(21);
+		for (int change = 0; change < 30; change++) {
+			int key = random.nextInt(300);
+			switch (change % 3) {
+			case 0:
+				randomGraph.connect(key, random.nextInt(300), random.nextInt(1000) / 10.0);
+				break;
+			case 1:
+				randomGraph.removeNode(key);
+				break;
+			default:
+				randomGraph.addNode(key);
+			}
+			// More queries than the live ones, so the last ones run on the rebuilt snapshot
+			for (int query = 0; query < 6; query++) {
+				int src = random.nextInt(300);
+				int dest = random.nextInt(300);
+				double expected = snapshotAlgoGraph.shortestPathDist(src, dest);
+				assertEquals(expected, liveAlgoGraph.shortestPathDist(src, dest));
+				List<node_info> path = liveAlgoGraph.shortestPath(src, dest);
+				if (expected == -1) {
+					assertNull(path);
+					continue;
+				}
+				double weight = 0;
+				for (int i = 1; i < path.size(); i++) {
+					weight += randomGraph.getEdge(path.get(i - 1).getKey(), path.get(i).getKey());
+				}
+				assertEquals(expected, weight);
+			}
+		}
+	}
+
+	@Test
+	void testHeapArity() {
+		WGraph_DS randomGraph = TestGraphs.randomGraph(300, 1500, 11);
+		WGraph_Algo lazyAlgoGraph = new WGraph_Algo(randomGraph);
+		lazyAlgoGraph.setHeapArity(WGraph_Algo.LAZY_PRIORITY_QUEUE);
+		for (int arity: new int[] {2, 4, 8}) {
+			WGraph_Algo heapAlgoGraph = new WGraph_Algo(randomGraph);
+			heapAlgoGraph.setHeapArity(arity);
+			assertEquals(arity, heapAlgoGraph.getHeapArity());
+			for (int dest = 0; dest < 300; dest += 7) {
+				assertEquals(lazyAlgoGraph.shortestPathDist(3, dest), heapAlgoGraph.shortestPathDist(3, dest));
+			}
+		}
+		assertThrows(IllegalArgumentException.class, () -> algoGraph.setHeapArity(1));
+	}
+
+	@Test
+	void testBidirectional() {
+		algoGraph.setBidirectional(true);
+		assertTrue(algoGraph.isBidirectional());
+		assertEquals(9.8, algoGraph.shortestPathDist(2, 9));
+		assertEquals(-1.0, algoGraph.shortestPathDist(2, 10));
+		assertEquals(Arrays.asList(graph.getNode(2), graph.getNode(5), graph.getNode(1), graph.getNode(9)),
+				algoGraph.shortestPath(2, 9));
+		assertNull(algoGraph.shortestPath(2, 10));
+
+		WGraph_DS randomGraph = TestGraphs.randomGraph(400, 900, 5);
+		WGraph_Algo oneSided = new WGraph_Algo(randomGraph);
+		WGraph_Algo twoSided = new WGraph_Algo(randomGraph);
+		twoSided.setBidirectional(true);
+		for (int src = 0; src < 400; src += 37) {
+			for (int dest = 1; dest < 400; dest += 13) {
+				double expected = oneSided.shortestPathDist(src, dest);
+				assertEquals(expected, twoSided.shortestPathDist(src, dest));
+				List<node_info> path = twoSided.shortestPath(src, dest);
+				if (expected == -1) {
+					assertNull(path);
+					continue;
+				}
+				assertEquals(src, path.get(0).getKey());
+				assertEquals(dest, path.get(path.size() - 1).getKey());
+				double weight = 0;
+				for (int i = 1; i < path.size(); i++) {
+					weight += randomGraph.getEdge(path.get(i - 1).getKey(), path.get(i).getKey());
+				}
+				assertEquals(expected, weight);
+			}
+		}
+	}
+
+	@Test
+	void testAStar() {
+		assertEquals(9.8, algoGraph.shortestPathDist(2, 9, (node, target) -> 0));
+		assertEquals(-1.0, algoGraph.shortestPathDist(2, 10, (node, target) -> 0));
+		assertNull(algoGraph.shortestPath(2, 10, (node, target) -> 0));
+
+		// A grid whose nodes hold their coordinates in the info, with diagonal edges of weight sqrt(2)
+		WGraph_DS grid = new WGraph_DS();
+		for (int x = 0; x < 20; x++) {
+			for (int y = 0; y < 20; y++) {
+				grid.addNode(x * 20 + y);
+				grid.getNode(x * 20 + y).setInfo(x + "," + y);
+				if (x > 0) {
+					grid.connect(x * 20 + y, (x - 1) * 20 + y, 1 + (x * y) % 3);
+				}
+				if (y > 0) {
+					grid.connect(x * 20 + y, x * 20 + y - 1, 1 + (x + y) % 2);
+				}
+				if (x > 0 && y > 0) {
+					grid.connect(x * 20 + y, (x - 1) * 20 + y - 1, Math.sqrt(2));
+				}
+			}
+		}
+		distance_heuristic euclidean = (node, target) -> {
+			String[] p = grid.getNode(node).getInfo().split(",");
+			String[] q = grid.getNode(target).getInfo().split(",");
+			return Math.hypot(Integer.parseInt(p[0]) - Integer.parseInt(q[0]),
+					Integer.parseInt(p[1]) - Integer.parseInt(q[1]));
+		};
+		WGraph_Algo gridAlgo = new WGraph_Algo(grid);
+		LandmarkHeuristic landmarks = gridAlgo.landmarkHeuristic(4);
+		assertEquals(4, landmarks.getLandmarks().length);
+		for (int src = 0; src < 400; src += 41) {
+			for (int dest = 3; dest < 400; dest += 29) {
+				double expected = gridAlgo.shortestPathDist(src, dest);
+				assertEquals(expected, gridAlgo.shortestPathDist(src, dest, euclidean), 1e-9);
+				assertEquals(expected, gridAlgo.shortestPathDist(src, dest, landmarks), 1e-9);
+				List<node_info> path = gridAlgo.shortestPath(src, dest, landmarks);
+				assertEquals(src, path.get(0).getKey());
+				assertEquals(dest, path.get(path.size() - 1).getKey());
+			}
+		}
+	}
+
+	@Test
+	void testLandmarkHeuristicAfterChange() {
+		WGraph_DS randomGraph = TestGraphs.randomGraph(300, 900, 23);
+		WGraph_Algo randomAlgo = new WGraph_Algo(randomGraph);
+		LandmarkHeuristic landmarks = randomAlgo.landmarkHeuristic(4);
+		// Short edges between the landmarks make the old distances overestimate
+		int[] keys = landmarks.getLandmarks();
+		for (int i = 0; i < keys.length; i++) {
+			for (int j = i + 1; j < keys.length; j++) {
+				randomGraph.connect(keys[i], keys[j], 0.001);
+			}
+		}
+		Random random = new Random(23);
+		for (int k = 0; k < 100; k++) {
+			randomGraph.connect(random.nextInt(300), random.nextInt(300), 0.01);
+		}
+		WGraph_Algo dijkstra = new WGraph_Algo(randomGraph);
+		for (int src = 0; src < 300; src += 31) {
+			for (int dest = 5; dest < 300; dest += 17) {
+				assertEquals(dijkstra.shortestPathDist(src, dest), randomAlgo.shortestPathDist(src, dest, landmarks));
+				List<node_info> path = randomAlgo.shortestPath(src, dest, landmarks);
+				assertEquals(dijkstra.shortestPathDist(src, dest), pathWeight(randomGraph, path), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	void testLandmarkHeuristicOnDisconnectedGraph() {
+		LandmarkHeuristic landmarks = algoGraph.landmarkHeuristic(3);
+		assertEquals(Double.POSITIVE_INFINITY, landmarks.estimate(2, 4));
+		assertEquals(-1.0, algoGraph.shortestPathDist(2, 4, landmarks));
+		assertEquals(9.8, algoGraph.shortestPathDist(2, 9, landmarks));
+		assertTrue(landmarks.estimate(2, 9) <= 9.8);
+		assertNull(new WGraph_Algo(null).landmarkHeuristic(3));
+	}
+
+	@Test
+	void testShortestPathTree() {
+		ShortestPathTree tree = algoGraph.shortestPathTree(2);
+		assertEquals(2, tree.getSrc());
+		assertEquals(graph.nodeSize(), tree.nodeSize());
+		for (node_info node: graph.getV()) {
+			assertEquals(algoGraph.shortestPathDist(2, node.getKey()), tree.distance(node.getKey()));
+			assertEquals(algoGraph.shortestPath(2, node.getKey()), tree.path(node.getKey()));
+		}
+		assertEquals(Double.POSITIVE_INFINITY, tree.distances()[tree.indexOf(10)]);
+		assertEquals(-1, tree.parents()[tree.indexOf(2)]);
+		assertEquals(tree.indexOf(5), tree.parents()[tree.indexOf(1)]);
+		assertEquals(-1.0, tree.distance(15));
+		assertNull(algoGraph.shortestPathTree(15));
+	}
+
+	@Test
+	void testShortestPathTreeToTargets() {
+		ShortestPathTree tree = algoGraph.shortestPathTree(2, new int[] {5, 3, 15});
+		assertEquals(1.0, tree.distance(5));
+		assertEquals(3.0, tree.distance(3));
+		// The search stopped before reaching node 9
+		assertEquals(-1.0, tree.distance(9));
+
+		tree = algoGraph.shortestPathTree(2, new int[] {9, 10});
+		assertEquals(9.8, tree.distance(9));
+		assertEquals(-1.0, tree.distance(10));
+
+		tree = algoGraph.shortestPathTree(2, new int[0]);
+		assertEquals(0.0, tree.distance(2));
+		assertEquals(-1.0, tree.distance(5));
+	}
+
+	@Test
+	void testDistanceMatrix() {
+		int[] sources = {2, 9, 15, 10};
+		int[] targets = {9, 2, 10, 3, 15};
+		double[] matrix = algoGraph.distanceMatrix(sources, targets);
+		assertEquals(sources.length * targets.length, matrix.length);
+		for (int i = 0; i < sources.length; i++) {
+			for (int j = 0; j < targets.length; j++) {
+				assertEquals(algoGraph.shortestPathDist(sources[i], targets[j]), matrix[i * targets.length + j]);
+			}
+		}
+
+		WGraph_DS randomGraph = TestGraphs.randomGraph(500, 1200, 3);
+		WGraph_Algo randomAlgoGraph = new WGraph_Algo(randomGraph);
+		sources = new int[60];
+		targets = new int[40];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = i * 8;
+		}
+		for (int j = 0; j < targets.length; j++) {
+			targets[j] = j * 12 + 1;
+		}
+		matrix = randomAlgoGraph.distanceMatrix(sources, targets, new ForkJoinPool(4));
+		for (int i = 0; i < sources.length; i += 7) {
+			for (int j = 0; j < targets.length; j++) {
+				assertEquals(randomAlgoGraph.shortestPathDist(sources[i], targets[j]), matrix[i * targets.length + j]);
+			}
+		}
+		assertNull(new WGraph_Algo(null).distanceMatrix(sources, targets));
+	}
+
 	@Test
 	void testSaveAndLoad() {
 		
-		assertTrue(algoGraph.save("fileName"));
-		assertTrue(algoGraph.load("fileName"));
+		assertTrue(algoGraph.save(file("fileName")));
+		assertTrue(algoGraph.load(file("fileName")));
 		assertEqualGraphs(graph, algoGraph.getGraph());
 
 		assertFalse(algoGraph.save(null));
 		assertFalse(algoGraph.load(null));
+		assertFalse(new WGraph_Algo().save(file("fileName")));
+
+		// A file in a missing directory can not be written or read on any system
+		assertFalse(algoGraph.save(file("missingDirectory/fileName")));
+		assertFalse(algoGraph.load(file("missingDirectory/fileName")));
+	}
+
+	@Test
+	void testBinaryFile() throws IOException {
+		WGraph_DS randomGraph = TestGraphs.randomGraph(500, 2000, 11);
+		randomGraph.getNode(3).setInfo("info \u05e9\u05dc\u05d5\u05dd");
+		randomGraph.getNode(4).setInfo(null);
+		randomGraph.getNode(5).setTag(-2.5);
+		randomGraph.addNode(-7);
+		WGraph_Algo randomAlgo = new WGraph_Algo(randomGraph);
+		assertTrue(randomAlgo.save(file("binaryFile")));
+		assertTrue(WGraph_File.isGraphFile(file("binaryFile")));
+		assertTrue(randomAlgo.load(file("binaryFile")));
+		assertEqualGraphs(randomGraph, randomAlgo.getGraph());
+		assertEquals(randomGraph.getNode(3).getInfo(), randomAlgo.getGraph().getNode(3).getInfo());
+		assertEquals(randomAlgo.shortestPathDist(0, 499), new WGraph_Algo(randomGraph).shortestPathDist(0, 499));
+
+		// A file with a serialized graph object still loads
+		try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file("serializedFile")))) {
+			out.writeObject(graph);
+		}
+		assertFalse(WGraph_File.isGraphFile(file("serializedFile")));
+		assertTrue(randomAlgo.load(file("serializedFile")));
+		assertEqualGraphs(graph, randomAlgo.getGraph());
+
+		// A file that is neither does not change the graph
+		weighted_graph before = randomAlgo.getGraph();
+		try (FileOutputStream out = new FileOutputStream(file("otherFile"))) {
+			out.write(new byte[] {1, 2, 3});
+		}
+		assertFalse(randomAlgo.load(file("otherFile")));
+		assertSame(before, randomAlgo.getGraph());
+
+		// Corrupt graph files do not load: a negative node count, offsets that go back,
+		// a target out of range, and an edge without its reverse (10 nodes: offsets at 168, targets at 256)
+		WGraph_File.write(TestGraphs.randomGraph(10, 20, 1), file("binaryFile"));
+		byte[] bytes = Files.readAllBytes(Paths.get(file("binaryFile")));
+		assertNotNull(WGraph_File.read(file("binaryFile")));
+		int[][] corruptions = {{8, -1}, {176, -1}, {256, 10}, {256, 9}};
+		for (int[] corruption: corruptions) {
+			ByteBuffer corrupt = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+			corrupt.putInt(corruption[0], corruption[1]);
+			Files.write(Paths.get(file("corruptFile")), corrupt.array());
+			assertThrows(IOException.class, () -> WGraph_File.read(file("corruptFile")));
+			assertFalse(randomAlgo.load(file("corruptFile")));
+			assertSame(before, randomAlgo.getGraph());
+		}
+	}
+
+	@Test
+	void testEdgeListExportAndImport() {
+		WGraph_DS randomGraph = TestGraphs.randomGraph(300, 900, 17);
+		Random random = new Random(17);
+		for (node_info node: randomGraph.getV()) {
+			if (randomGraph.getV(node.getKey()) != null) {
+				for (node_info neighbor: randomGraph.getV(node.getKey())) {
+					// Full precision weights take the slow parse path, short ones the fast path
+					double weight = random.nextBoolean() ? random.nextDouble() * 100 : random.nextInt(1000) / 8.0;
+					randomGraph.connect(node.getKey(), neighbor.getKey(), weight);
+				}
+			}
+		}
+		randomGraph.addNode(-5);
+		WGraph_Algo randomAlgo = new WGraph_Algo(randomGraph);
+		assertTrue(randomAlgo.exportEdgeList(file("edgeList.csv")));
+		assertTrue(randomAlgo.importEdgeList(file("edgeList.csv")));
+		weighted_graph imported = randomAlgo.getGraph();
+		assertNotSame(randomGraph, imported);
+		assertEquals(randomGraph.nodeSize(), imported.nodeSize());
+		assertEquals(randomGraph.edgeSize(), imported.edgeSize());
+		for (node_info node: randomGraph.getV()) {
+			assertEquals(node.getKey(), imported.getNode(node.getKey()).getKey());
+			if (randomGraph.getV(node.getKey()) == null) {
+				continue;
+			}
+			for (node_info neighbor: randomGraph.getV(node.getKey())) {
+				assertEquals(randomGraph.getEdge(node.getKey(), neighbor.getKey()),
+						imported.getEdge(node.getKey(), neighbor.getKey()));
+			}
+		}
+		assertFalse(randomAlgo.exportEdgeList(null));
+		assertFalse(new WGraph_Algo().exportEdgeList(file("edgeList.csv")));
+		assertFalse(randomAlgo.importEdgeList(null));
+		assertFalse(randomAlgo.importEdgeList(file("missingFile.csv")));
+		assertSame(imported, randomAlgo.getGraph());
+	}
+
+	@Test
+	void testEdgeListParsing() throws IOException {
+		try (FileOutputStream out = new FileOutputStream(file("edgeList.txt"))) {
+			out.write(("# u,v,w\n1,2,0.5\r\n2 3 1e1\n\n3\t4\t-0.25\n7\n"
+					+ "x,1,2\n1,2,abc\n4, 5 ,2.75 \n5,6\n1,2,3.5").getBytes());
+		}
+		List<Long> errorLines = new ArrayList<>();
+		long[] lastProgress = new long[2];
+		edge_list_listener listener = new edge_list_listener() {
+
+			@Override
+			public void progress(long bytesRead, long fileSize) {
+				lastProgress[0] = bytesRead;
+				lastProgress[1] = fileSize;
+			}
+
+			@Override
+			public void errorLine(long lineNumber, String line) {
+				errorLines.add(lineNumber);
+			}
+		};
+		assertTrue(algoGraph.importEdgeList("edgeList.txt", listener));
+		weighted_graph imported = algoGraph.getGraph();
+		assertEquals(Arrays.asList(5L, 7L, 8L, 10L), errorLines);
+		assertEquals(lastProgress[1], lastProgress[0]);
+		assertEquals(6, imported.nodeSize());
+		assertEquals(3, imported.edgeSize());
+		assertEquals(3.5, imported.getEdge(1, 2));
+		assertEquals(10, imported.getEdge(3, 2));
+		assertFalse(imported.hasEdge(3, 4));
+		assertEquals(2.75, imported.getEdge(4, 5));
+		assertNull(imported.getV(7));
+	}
+
+	@Test
+	void testQueryCache() {
+		WGraph_DS randomGraph = TestGraphs.randomGraph(300, 900, 23);
+		WGraph_Algo cached = new WGraph_Algo(randomGraph);
+		WGraph_Algo plain = new WGraph_Algo(randomGraph);
+		cached.setCache(100, 2);
+		assertEquals(100, cached.getCacheCapacity());
+
+		assertEquals(plain.shortestPathDist(1, 2), cached.shortestPathDist(1, 2));
+		assertEquals(plain.shortestPathDist(1, 2), cached.shortestPathDist(1, 2));
+		assertEquals(1, cached.getCacheHits());
+		assertEquals(1, cached.getCacheMisses());
+		// Only the distance was cached, the path is a miss and then a hit
+		List<node_info> path = cached.shortestPath(1, 2);
+		assertEquals(plain.shortestPath(1, 2), path);
+		path.clear();
+		assertEquals(plain.shortestPath(1, 2), cached.shortestPath(1, 2));
+		assertEquals(2, cached.getCacheHits());
+		assertEquals(2, cached.getCacheMisses());
+
+		// A change of the graph empties the cache
+		randomGraph.connect(1, 2, 0.01);
+		assertEquals(0.01, cached.shortestPathDist(1, 2));
+		assertEquals(3, cached.getCacheMisses());
+
+		// A hot src gets its whole tree cached
+		for (int dest = 10; dest < 10 + HOT_SOURCE_QUERIES; dest++) {
+			cached.shortestPathDist(5, dest);
+		}
+		long misses = cached.getCacheMisses();
+		for (int dest = 0; dest < 300; dest += 7) {
+			assertEquals(plain.shortestPathDist(5, dest), cached.shortestPathDist(5, dest));
+			assertEquals(plain.shortestPath(5, dest), cached.shortestPath(5, dest));
+		}
+		assertEquals(misses, cached.getCacheMisses());
+
+		cached.setCache(0, 0);
+		assertEquals(0, cached.getCacheCapacity());
+		assertEquals(0, cached.getCacheHits());
+		assertThrows(IllegalArgumentException.class, () -> cached.setCache(-1, 0));
+	}
+
+	@Test
+	void testComponents() {
+		// The graph of createGraph has the components {1,2,3,5,9} {0,6} {4,7,8} {10}
+		assertEquals(4, algoGraph.componentCount());
+		assertArrayEquals(new int[] {5, 3, 2, 1}, algoGraph.componentSizes());
+		assertTrue(algoGraph.sameComponent(2, 9));
+		assertFalse(algoGraph.sameComponent(2, 4));
+		assertFalse(algoGraph.sameComponent(2, 15));
+		assertEquals(algoGraph.componentOf(1), algoGraph.componentOf(3));
+		assertNotEquals(algoGraph.componentOf(1), algoGraph.componentOf(10));
+		assertEquals(-1, algoGraph.componentOf(15));
+		assertEquals(-1, algoGraph.shortestPathDist(2, 4));
+		assertNull(algoGraph.shortestPath(2, 4));
+
+		// New nodes and edges join components as they come
+		graph.connect(6, 10, 1);
+		graph.connect(10, 4, 1);
+		graph.addNode(11);
+		assertEquals(3, algoGraph.componentCount());
+		assertTrue(algoGraph.sameComponent(0, 7));
+		assertEquals(2, algoGraph.shortestPathDist(6, 4));
+
+		// Removing edges and nodes splits them again
+		graph.removeEdge(10, 4);
+		graph.removeNode(5);
+		assertArrayEquals(new int[] {3, 3, 2, 1, 1, 1}, algoGraph.componentSizes());
+		assertFalse(algoGraph.sameComponent(0, 7));
+		assertFalse(algoGraph.isConnected());
+
+		// Graphs that are not WGraph_DS are rebuilt when their Mode Count moves
+		WGraph_Compact compact = new WGraph_Compact(graph);
+		algoGraph.init(compact);
+		assertEquals(6, algoGraph.componentCount());
+		compact.connect(2, 9, 1);
+		assertEquals(5, algoGraph.componentCount());
+	}
+
+	@Test
+	void testParallelComponents() {
+		// Large enough for the parallel labelling: 100 blocks of 1000 nodes, each a path plus random chords
+		int blocks = 100;
+		int blockSize = 1000;
+		Random random = new Random(7);
+		WGraph_Builder builder = new WGraph_Builder(blocks * blockSize, 2 * blocks * blockSize);
+		for (int b = 0; b < blocks; b++) {
+			int first = b * blockSize;
+			for (int i = first; i < first + blockSize - 1; i++) {
+				builder.addEdge(i + 1, i, 1);
+				builder.addEdge(first + random.nextInt(blockSize), first + random.nextInt(blockSize), 1);
+			}
+		}
+		WGraph_DS large = builder.build();
+		WGraph_Algo components = new WGraph_Algo();
+		components.init(large);
+		assertEquals(blocks, components.componentCount());
+		int[] sizes = new int[blocks];
+		Arrays.fill(sizes, blockSize);
+		assertArrayEquals(sizes, components.componentSizes());
+		assertTrue(components.sameComponent(0, blockSize - 1));
+		assertFalse(components.sameComponent(blockSize - 1, blockSize));
+		assertEquals(components.componentOf(5 * blockSize), components.componentOf(6 * blockSize - 1));
+		assertFalse(components.isConnected());
+
+		// Join the blocks incrementally, then split one off and label again
+		for (int b = 1; b < blocks; b++) {
+			large.connect(b * blockSize - 1, b * blockSize, 1);
+		}
+		assertTrue(components.isConnected());
+		large.removeEdge(blockSize - 1, blockSize);
+		assertEquals(2, components.componentCount());
+		assertArrayEquals(new int[] {(blocks - 1) * blockSize, blockSize}, components.componentSizes());
+
+		// The removed nodes leave free indexes that the labelling skips
+		for (int i = 0; i < blockSize; i++) {
+			large.removeNode(i);
+		}
+		assertTrue(components.isConnected());
+		assertArrayEquals(new int[] {(blocks - 1) * blockSize}, components.componentSizes());
+		assertEquals(-1, components.componentOf(0));
+	}
+
+	private double pathWeight(weighted_graph g, List<node_info> path) {
+		if (path == null) {
+			return -1;
+		}
+		double weight = 0;
+		for (int i = 1; i < path.size(); i++) {
+			weight += g.getEdge(path.get(i - 1).getKey(), path.get(i).getKey());
+		}
+		return weight;
+	}
 
-		assertFalse(algoGraph.save("|fileName"));
-		assertFalse(algoGraph.load("|fileName"));
+	private String file(String name) {
+		return directory.resolve(name).toString();
 	}
 
 	private void assertEqualGraphs(weighted_graph g, weighted_graph g1) {
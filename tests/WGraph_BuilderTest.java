@@ -0,0 +1,98 @@
+package ex1.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ex1.src.WGraph_Builder;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+
+class WGraph_BuilderTest {
+
+	@Test
+	void testBuild() {
+		WGraph_DS graph = new WGraph_Builder()
+				.addNodes(new int[] {0, 1, 2, 3})
+				.addNode(10)
+				.addEdge(0, 1, 2.5)
+				.addEdge(1, 0, 4)
+				.addEdge(1, 2, 0)
+				.addEdge(2, 2, 1)
+				.addEdge(2, 3, -1)
+				.addEdge(3, 7, 1.5)
+				.build();
+
+		assertEquals(6, graph.nodeSize());
+		assertEquals(3, graph.edgeSize());
+		assertEquals(9, graph.getMC());
+		assertEquals(4, graph.getEdge(0, 1));
+		assertEquals(0, graph.getEdge(2, 1));
+		assertFalse(graph.hasEdge(2, 3));
+		assertTrue(graph.hasEdge(7, 3));
+		assertNotNull(graph.getNode(10));
+		assertNull(graph.getV(10));
+		assertEquals(2, graph.getV(1).size());
+
+		// The built graph is a normal WGraph_DS
+		graph.connect(10, 0, 1);
+		graph.removeNode(1);
+		assertEquals(2, graph.edgeSize());
+	}
+
+	@Test
+	void testMatchesConnect() {
+		Random random = new Random(3);
+		int edgeSize = 5000;
+		int[] nodes1 = new int[edgeSize];
+		int[] nodes2 = new int[edgeSize];
+		double[] weights = new double[edgeSize];
+		WGraph_DS expected = new WGraph_DS();
+		for (int i = 0; i < 300; i++) {
+			expected.addNode(i * 7);
+		}
+		for (int e = 0; e < edgeSize; e++) {
+			nodes1[e] = random.nextInt(300) * 7;
+			nodes2[e] = random.nextInt(300) * 7;
+			weights[e] = random.nextInt(10) - 1;
+			expected.connect(nodes1[e], nodes2[e], weights[e]);
+		}
+		WGraph_Builder builder = new WGraph_Builder(300, edgeSize);
+		for (int i = 0; i < 300; i++) {
+			builder.addNode(i * 7);
+		}
+		WGraph_DS graph = builder.addEdges(nodes1, nodes2, weights).build();
+
+		assertEquals(expected.nodeSize(), graph.nodeSize());
+		assertEquals(expected.edgeSize(), graph.edgeSize());
+		assertEquals(expected.nodeSize() + expected.edgeSize(), graph.getMC());
+		for (node_info node: expected.getV()) {
+			int key = node.getKey();
+			assertEquals(expected.getV(key) == null ? null : expected.getV(key).size(),
+					graph.getV(key) == null ? null : graph.getV(key).size());
+			if (expected.getV(key) == null) {
+				continue;
+			}
+			for (node_info neighbor: expected.getV(key)) {
+				assertEquals(expected.getEdge(key, neighbor.getKey()), graph.getEdge(key, neighbor.getKey()));
+			}
+		}
+	}
+
+	@Test
+	void testBuildOnce() {
+		WGraph_Builder builder = new WGraph_Builder().addEdge(1, 2, 1);
+		builder.build();
+		assertThrows(IllegalStateException.class, () -> builder.build());
+		assertThrows(IllegalStateException.class, () -> builder.addEdge(2, 3, 1));
+		assertThrows(IllegalArgumentException.class,
+				() -> new WGraph_Builder().addEdges(new int[1], new int[2], new double[1]));
+	}
+}
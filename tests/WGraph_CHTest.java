@@ -0,0 +1,143 @@
+package ex1.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_CH;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+
+class WGraph_CHTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testSmallGraph() {
+		WGraph_DS graph = new WGraph_DS();
+		for (int i = 0; i <= 10; i++) {
+			graph.addNode(i);
+		}
+		graph.connect(2, 5, 1);
+		graph.connect(1, 9, 8.3);
+		graph.connect(3, 5, 2);
+		graph.connect(1, 5, 0.5);
+		graph.connect(8, 4, 3);
+		graph.connect(0, 6, 4.1);
+		graph.connect(7, 4, 9);
+		WGraph_CH hierarchy = new WGraph_CH(graph);
+
+		assertEquals(9.8, hierarchy.shortestPathDist(2, 9));
+		assertEquals(9.8, hierarchy.shortestPathDist(9, 2));
+		assertEquals(0.0, hierarchy.shortestPathDist(2, 2));
+		assertEquals(-1.0, hierarchy.shortestPathDist(2, 10));
+		assertEquals(-1.0, hierarchy.shortestPathDist(2, 15));
+		assertEquals(Arrays.asList(graph.getNode(2), graph.getNode(5), graph.getNode(1), graph.getNode(9)),
+				hierarchy.shortestPath(2, 9));
+		assertNull(hierarchy.shortestPath(2, 10));
+	}
+
+	@Test
+	void testMatchesDijkstra() {
+		WGraph_DS graph = TestGraphs.gridGraph(30, 3);
+		WGraph_CH hierarchy = new WGraph_CH(graph);
+		WGraph_Algo algoGraph = new WGraph_Algo(graph);
+		assertTrue(hierarchy.shortcutSize() > 0);
+		for (int src = 0; src < 900; src += 53) {
+			for (int dest = 7; dest < 900; dest += 61) {
+				double expected = algoGraph.shortestPathDist(src, dest);
+				assertEquals(expected, hierarchy.shortestPathDist(src, dest), 1e-9);
+				List<node_info> path = hierarchy.shortestPath(src, dest);
+				assertEquals(src, path.get(0).getKey());
+				assertEquals(dest, path.get(path.size() - 1).getKey());
+				double weight = 0;
+				for (int i = 1; i < path.size(); i++) {
+					double edge = graph.getEdge(path.get(i - 1).getKey(), path.get(i).getKey());
+					assertTrue(edge >= 0);
+					weight += edge;
+				}
+				assertEquals(expected, weight, 1e-9);
+			}
+		}
+	}
+
+	@Test
+	void testSaveAndLoad() throws IOException {
+		WGraph_DS graph = TestGraphs.gridGraph(10, 8);
+		WGraph_CH hierarchy = new WGraph_CH(graph);
+		String file = directory.resolve("graphFile" + WGraph_CH.FILE_SUFFIX).toString();
+		Path corruptFile = directory.resolve("corruptFile");
+		assertTrue(hierarchy.save(file));
+
+		WGraph_CH loaded = WGraph_CH.load(file, graph);
+		assertNotNull(loaded);
+		assertEquals(hierarchy.getMC(), loaded.getMC());
+		for (int dest = 0; dest < 100; dest += 9) {
+			assertEquals(hierarchy.shortestPathDist(3, dest), loaded.shortestPathDist(3, dest));
+			assertEquals(hierarchy.shortestPath(3, dest), loaded.shortestPath(3, dest));
+		}
+
+		// Truncated or corrupt files do not load: after the header (5 ints) and the 100 keys come
+		// the 101 row offsets and then the edges (target, weight, middle)
+		byte[] bytes = Files.readAllBytes(Paths.get(file));
+		Files.write(corruptFile, Arrays.copyOf(bytes, bytes.length - 5));
+		assertNull(WGraph_CH.load(corruptFile.toString(), graph));
+		ByteBuffer corrupt = ByteBuffer.wrap(bytes.clone());
+		corrupt.putInt(20 + 4 * 100, 1);
+		Files.write(corruptFile, corrupt.array());
+		assertNull(WGraph_CH.load(corruptFile.toString(), graph));
+		corrupt = ByteBuffer.wrap(bytes.clone());
+		corrupt.putInt(20 + 4 * 100 + 4 * 101, 100);
+		Files.write(corruptFile, corrupt.array());
+		assertNull(WGraph_CH.load(corruptFile.toString(), graph));
+		// The first edge skips its own target, then the node of its own row, which would unpack forever
+		int edges = 20 + 4 * 100 + 4 * 101;
+		corrupt = ByteBuffer.wrap(bytes.clone());
+		corrupt.putInt(edges + 12, corrupt.getInt(edges));
+		Files.write(corruptFile, corrupt.array());
+		assertNull(WGraph_CH.load(corruptFile.toString(), graph));
+		corrupt = ByteBuffer.wrap(bytes.clone());
+		int row = 0;
+		while (corrupt.getInt(20 + 4 * 100 + 4 * (row + 1)) == 0) {
+			row++;
+		}
+		corrupt.putInt(edges + 12, row);
+		Files.write(corruptFile, corrupt.array());
+		assertNull(WGraph_CH.load(corruptFile.toString(), graph));
+		// The upward edges 0-1 and 1-0 of a one edge graph form a cycle
+		WGraph_DS pair = new WGraph_DS();
+		pair.addNode(0);
+		pair.addNode(1);
+		pair.connect(0, 1, 2);
+		assertTrue(new WGraph_CH(pair).save(corruptFile.toString()));
+		assertNotNull(WGraph_CH.load(corruptFile.toString(), pair));
+		byte[] pairBytes = Files.readAllBytes(corruptFile);
+		corrupt = ByteBuffer.allocate(20 + 4 * 2 + 4 * 3 + 16 * 2);
+		corrupt.put(pairBytes, 0, 16).putInt(2).put(pairBytes, 20, 8);
+		corrupt.putInt(0).putInt(1).putInt(2);
+		corrupt.putInt(1).putDouble(2).putInt(-1).putInt(0).putDouble(2).putInt(-1);
+		Files.write(corruptFile, corrupt.array());
+		assertNull(WGraph_CH.load(corruptFile.toString(), pair));
+		assertNotNull(WGraph_CH.load(file, graph));
+
+		// A hierarchy does not load for a graph that changed since it was built
+		graph.connect(0, 99, 1);
+		assertNull(WGraph_CH.load(file, graph));
+		assertNull(WGraph_CH.load(null, graph));
+	}
+
+}
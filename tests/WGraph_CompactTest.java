@@ -0,0 +1,160 @@
+package ex1.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ex1.src.WGraph_Compact;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+
+class WGraph_CompactTest {
+
+	private WGraph_Compact graph = new WGraph_Compact();
+
+	@BeforeEach
+	void initGraph() {
+		createGraph();
+	}
+
+	@Test
+	void testHasEdgeAndGetEdge() {
+		assertTrue(graph.hasEdge(0, 6));
+		assertTrue(graph.hasEdge(6, 0));
+		assertFalse(graph.hasEdge(1, 7));
+		assertFalse(graph.hasEdge(3, 3));
+		assertEquals(8.3, graph.getEdge(1, 9));
+		assertEquals(-1, graph.getEdge(1, 6));
+		assertEquals(-1, graph.getEdge(8, 13));
+	}
+
+	@Test
+	void testConnect() {
+		int mc = graph.getMC();
+		int edgeSize = graph.edgeSize();
+
+		graph.connect(0, 7, 5.5);
+		graph.connect(9, 9, 3.2);
+		graph.connect(12, 5, 10);
+		graph.connect(0, 7, -1);
+		graph.connect(0, 7, 0);
+		assertEquals(0, graph.getEdge(7, 0));
+
+		assertEquals(mc+2, graph.getMC());
+		assertEquals(edgeSize+1, graph.edgeSize());
+	}
+
+	@Test
+	void testGetVByNodeId() {
+		Collection<node_info> neighbors = graph.getV(5);
+		int[] keysArr = new int[neighbors.size()];
+		int i = 0;
+		for (node_info neighbor: neighbors) {
+			keysArr[i++] = neighbor.getKey();
+		}
+		Arrays.sort(keysArr);
+		assertArrayEquals(new int[] {1, 2, 3}, keysArr);
+		assertTrue(graph.getV(10).isEmpty());
+		assertNull(graph.getV(15));
+	}
+
+	@Test
+	void testRemoveNode() {
+		int mc = graph.getMC();
+		int edgeSize = graph.edgeSize();
+		int nodeSize = graph.nodeSize();
+
+		assertEquals(1, graph.removeNode(1).getKey());
+		assertNull(graph.removeNode(1));
+		assertNull(graph.getNode(1));
+		assertFalse(graph.hasEdge(5, 1));
+		assertEquals(2, graph.getV(5).size());
+
+		assertEquals(mc+3, graph.getMC());
+		assertEquals(edgeSize-2, graph.edgeSize());
+		assertEquals(nodeSize-1, graph.nodeSize());
+
+		// The slot of the removed node is reused
+		graph.addNode(1);
+		assertEquals(0, graph.getV(1).size());
+		assertEquals(nodeSize, graph.nodeSize());
+	}
+
+	@Test
+	void testRandomOperationsMatchWGraph_DS() {
+		Random random = new Random(7);
+		WGraph_DS expected = new WGraph_DS();
+		WGraph_Compact actual = new WGraph_Compact();
+		for (int i = 0; i < 200; i++) {
+			expected.addNode(i * 31);
+			actual.addNode(i * 31);
+		}
+		for (int i = 0; i < 20000; i++) {
+			// Node 0 becomes a high degree hub
+			int node1 = random.nextInt(4) == 0 ? 0 : random.nextInt(200) * 31;
+			int node2 = random.nextInt(200) * 31;
+			int operation = random.nextInt(10);
+			if (operation < 6) {
+				double w = random.nextInt(100) / 10.0;
+				expected.connect(node1, node2, w);
+				actual.connect(node1, node2, w);
+			}
+			else if (operation < 9) {
+				expected.removeEdge(node1, node2);
+				actual.removeEdge(node1, node2);
+			}
+			else {
+				expected.removeNode(node2);
+				actual.removeNode(node2);
+				expected.addNode(node2);
+				actual.addNode(node2);
+			}
+			assertEquals(expected.hasEdge(node1, node2), actual.hasEdge(node2, node1));
+		}
+		assertSameEdges(expected, actual);
+		assertSameEdges(actual, expected);
+		assertSameEdges(actual, new WGraph_Compact(actual));
+		assertEquals(expected.edgeSize(), actual.edgeSize());
+		assertEquals(expected.nodeSize(), actual.nodeSize());
+	}
+
+	private void assertSameEdges(weighted_graph g, weighted_graph g1) {
+		for (node_info node: g.getV()) {
+			int key = node.getKey();
+			int degree = g.getV(key) == null ? 0 : g.getV(key).size();
+			int degree1 = g1.getV(key) == null ? 0 : g1.getV(key).size();
+			assertEquals(degree, degree1);
+			if (degree == 0) {
+				continue;
+			}
+			for (node_info neighbor: g.getV(key)) {
+				assertEquals(g.getEdge(key, neighbor.getKey()), g1.getEdge(key, neighbor.getKey()));
+			}
+		}
+	}
+
+	private void createGraph() {
+		graph = new WGraph_Compact();
+
+		for (int i = 0; i <= 10; i++) {
+			graph.addNode(i);
+		}
+		graph.connect(2, 5, 1);
+		graph.connect(1, 9, 8.3);
+		graph.connect(3, 5, 2);
+		graph.connect(1, 5, 0.5);
+		graph.connect(8, 4, 3);
+		graph.connect(0, 6, 4.1);
+		graph.connect(7, 4, 9);
+	}
+}
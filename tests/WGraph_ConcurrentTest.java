@@ -0,0 +1,287 @@
+package ex1.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_Concurrent;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+
+class WGraph_ConcurrentTest {
+
+	private static final int THREADS = 4;
+
+	private WGraph_Concurrent graph = new WGraph_Concurrent();
+
+	@BeforeEach
+	void initGraph() {
+		createGraph();
+	}
+
+	@Test
+	void testHasEdgeAndGetEdge() {
+		assertTrue(graph.hasEdge(0, 6));
+		assertTrue(graph.hasEdge(6, 0));
+		assertFalse(graph.hasEdge(1, 7));
+		assertFalse(graph.hasEdge(3, 3));
+		assertEquals(8.3, graph.getEdge(9, 1));
+		assertEquals(-1, graph.getEdge(1, 6));
+		assertEquals(-1, graph.getEdge(8, 13));
+		assertThrows(IllegalArgumentException.class, () -> new WGraph_Concurrent(0));
+		assertEquals(0, new WGraph_Concurrent(null).nodeSize());
+	}
+
+	@Test
+	void testConnectAndRemove() {
+		int mc = graph.getMC();
+		int edgeSize = graph.edgeSize();
+
+		graph.connect(0, 7, 5.5);
+		graph.connect(9, 9, 3.2);
+		graph.connect(12, 5, 10);
+		graph.connect(0, 7, -1);
+		graph.connect(7, 0, 0);
+		assertEquals(0, graph.getEdge(0, 7));
+		assertEquals(mc+2, graph.getMC());
+		assertEquals(edgeSize+1, graph.edgeSize());
+
+		assertEquals(5, graph.removeNode(5).getKey());
+		assertNull(graph.removeNode(5));
+		assertNull(graph.getV(5));
+		assertFalse(graph.hasEdge(1, 5));
+		assertEquals(1, graph.getV(1).size());
+		assertEquals(mc+6, graph.getMC());
+		assertEquals(edgeSize-2, graph.edgeSize());
+
+		// A node added again has no edges
+		graph.addNode(5);
+		assertTrue(graph.getV(5).isEmpty());
+		graph.removeEdge(0, 7);
+		assertEquals(-1, graph.getEdge(7, 0));
+		assertEquals(edgeSize-3, graph.edgeSize());
+	}
+
+	@Test
+	void testRandomOperationsMatchWGraph_DS() {
+		Random random = new Random(5);
+		WGraph_DS expected = new WGraph_DS();
+		WGraph_Concurrent actual = new WGraph_Concurrent(4);
+		for (int i = 0; i < 100; i++) {
+			expected.addNode(i * 17);
+			actual.addNode(i * 17);
+		}
+		for (int i = 0; i < 10000; i++) {
+			int node1 = random.nextInt(100) * 17;
+			int node2 = random.nextInt(100) * 17;
+			int operation = random.nextInt(10);
+			if (operation < 6) {
+				double w = random.nextInt(100) / 10.0;
+				expected.connect(node1, node2, w);
+				actual.connect(node1, node2, w);
+			}
+			else if (operation < 9) {
+				expected.removeEdge(node1, node2);
+				actual.removeEdge(node1, node2);
+			}
+			else {
+				expected.removeNode(node2);
+				actual.removeNode(node2);
+				expected.addNode(node2);
+				actual.addNode(node2);
+			}
+			assertEquals(expected.getEdge(node1, node2), actual.getEdge(node2, node1));
+		}
+		assertSameGraph(expected, actual);
+		assertSameGraph(expected, new WGraph_Concurrent(expected));
+		assertEquals(expected.getMC(), actual.getMC());
+		assertEquals(new WGraph_Algo(expected).componentCount(), new WGraph_Algo(actual).componentCount());
+	}
+
+	@Test
+	void testParallelIngestion() throws Exception {
+		int nodeSize = 2000;
+		int edgesPerThread = 20000;
+		WGraph_Concurrent concurrent = new WGraph_Concurrent();
+		WGraph_DS expected = new WGraph_DS();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				long seed = t;
+				futures.add(executor.submit(() -> {
+					// Every thread adds all the nodes and its own random edges, many of them shared
+					Random random = new Random(seed);
+					for (int key = 0; key < nodeSize; key++) {
+						concurrent.addNode(key);
+					}
+					for (int e = 0; e < edgesPerThread; e++) {
+						int node1 = random.nextInt(nodeSize);
+						int node2 = random.nextInt(nodeSize);
+						concurrent.connect(node1, node2, Math.abs(node1 - node2));
+					}
+				}));
+			}
+			for (Future<?> future: futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+		for (int key = 0; key < nodeSize; key++) {
+			expected.addNode(key);
+		}
+		for (int t = 0; t < THREADS; t++) {
+			Random random = new Random(t);
+			for (int e = 0; e < edgesPerThread; e++) {
+				int node1 = random.nextInt(nodeSize);
+				int node2 = random.nextInt(nodeSize);
+				expected.connect(node1, node2, Math.abs(node1 - node2));
+			}
+		}
+		assertSameGraph(expected, concurrent);
+	}
+
+	@Test
+	void testReadersSeeBothDirections() throws Exception {
+		int nodeSize = 64;
+		WGraph_Concurrent concurrent = new WGraph_Concurrent(8);
+		for (int key = 0; key < nodeSize; key++) {
+			concurrent.addNode(key);
+		}
+		AtomicBoolean isDone = new AtomicBoolean();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> writers = new ArrayList<>();
+			for (int t = 0; t < THREADS - 1; t++) {
+				long seed = t;
+				writers.add(executor.submit(() -> {
+					Random random = new Random(seed);
+					for (int i = 0; i < 50000; i++) {
+						int node1 = random.nextInt(nodeSize);
+						int node2 = random.nextInt(nodeSize);
+						int operation = random.nextInt(10);
+						if (operation < 5) {
+							concurrent.connect(node1, node2, random.nextInt(10));
+						}
+						else if (operation < 9) {
+							concurrent.removeEdge(node1, node2);
+						}
+						else {
+							concurrent.removeNode(node1);
+							concurrent.addNode(node1);
+						}
+					}
+				}));
+			}
+			Future<Integer> reader = executor.submit(() -> {
+				// The readers never block, and only ever see a whole weight or no edge
+				Random random = new Random(9);
+				int invalid = 0;
+				while (!isDone.get()) {
+					double weight = concurrent.getEdge(random.nextInt(nodeSize), random.nextInt(nodeSize));
+					if (weight != -1 && (weight < 0 || weight >= 10)) {
+						invalid++;
+					}
+				}
+				return invalid;
+			});
+			for (Future<?> writer: writers) {
+				writer.get();
+			}
+			isDone.set(true);
+			assertEquals(0, reader.get());
+		}
+		finally {
+			executor.shutdown();
+		}
+		// Once the writers are done both directions of every edge are in place
+		int halfEdges = 0;
+		for (node_info node: concurrent.getV()) {
+			for (node_info neighbor: concurrent.getV(node.getKey())) {
+				assertEquals(concurrent.getEdge(node.getKey(), neighbor.getKey()),
+						concurrent.getEdge(neighbor.getKey(), node.getKey()));
+				assertTrue(concurrent.hasEdge(node.getKey(), neighbor.getKey()));
+				halfEdges++;
+			}
+		}
+		assertEquals(halfEdges, 2 * concurrent.edgeSize());
+		assertEquals(nodeSize, concurrent.nodeSize());
+	}
+
+	@Test
+	void testAlgorithmsWhileWriting() throws Exception {
+		WGraph_Concurrent concurrent = new WGraph_Concurrent();
+		concurrent.addNode(0);
+		AtomicBoolean isDone = new AtomicBoolean();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> writer = executor.submit(() -> {
+				// Keeps adding nodes while the snapshots are taken
+				Random random = new Random(4);
+				for (int key = 1; key < 20000 && !isDone.get(); key++) {
+					concurrent.addNode(key);
+					concurrent.connect(key, random.nextInt(key), 1);
+				}
+			});
+			for (int i = 0; i < 20 && !writer.isDone(); i++) {
+				WGraph_Algo algo = new WGraph_Algo(concurrent);
+				assertTrue(algo.componentCount() >= 1);
+				assertEquals(0, algo.shortestPathDist(0, 0));
+			}
+			isDone.set(true);
+			writer.get();
+		}
+		finally {
+			isDone.set(true);
+			executor.shutdown();
+		}
+	}
+
+	private void assertSameGraph(weighted_graph expected, weighted_graph actual) {
+		assertEquals(expected.nodeSize(), actual.nodeSize());
+		assertEquals(expected.edgeSize(), actual.edgeSize());
+		for (node_info node: expected.getV()) {
+			int key = node.getKey();
+			int degree = expected.getV(key) == null ? 0 : expected.getV(key).size();
+			assertEquals(degree, actual.getV(key).size());
+			if (degree == 0) {
+				continue;
+			}
+			for (node_info neighbor: expected.getV(key)) {
+				assertEquals(expected.getEdge(key, neighbor.getKey()), actual.getEdge(neighbor.getKey(), key));
+			}
+		}
+	}
+
+	private void createGraph() {
+		graph = new WGraph_Concurrent();
+
+		for (int i = 0; i <= 10; i++) {
+			graph.addNode(i);
+		}
+		graph.connect(2, 5, 1);
+		graph.connect(1, 9, 8.3);
+		graph.connect(3, 5, 2);
+		graph.connect(1, 5, 0.5);
+		graph.connect(8, 4, 3);
+		graph.connect(0, 6, 4.1);
+		graph.connect(7, 4, 9);
+	}
+}
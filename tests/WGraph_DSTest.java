@@ -7,15 +7,35 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_Builder;
+import ex1.src.WGraph_ChangeLog;
+import ex1.src.WGraph_CSR;
+import ex1.src.WGraph_Compact;
+import ex1.src.WGraph_Concurrent;
 import ex1.src.WGraph_DS;
+import ex1.src.graph_listener;
 import ex1.src.node_info;
 import ex1.src.weighted_graph;
 
@@ -42,6 +62,39 @@ class WGraph_DSTest {
 		assertEqualGraphs(g1, graph);
 	}
 
+	@Test
+	void testDeepCopyLargeGraph() {
+		// Large enough for the parallel block copy
+		Random random = new Random(11);
+		WGraph_Builder builder = new WGraph_Builder();
+		for (int i = 0; i < 300000; i++) {
+			builder.addEdge(random.nextInt(100000) * 7, random.nextInt(100000) * 7, random.nextInt(50));
+		}
+		WGraph_DS large = builder.build();
+		large.getNode(7).setInfo("info");
+		large.getNode(14).setTag(2.5);
+		large.removeNode(21);
+		large.removeEdge(28, large.getV(28).iterator().next().getKey());
+
+		WGraph_DS copy = new WGraph_DS(large);
+		assertEqualGraphs(large, copy);
+		assertEqualGraphs(copy, large);
+		// The generic path, through a graph that is not a WGraph_DS
+		assertEqualGraphs(copy, new WGraph_DS(new WGraph_Compact(large)));
+		// A snapshot is copied block by block as well
+		weighted_graph snapshot = large.snapshot();
+		large.removeNode(35);
+		WGraph_DS fromSnapshot = new WGraph_DS(snapshot);
+		assertEqualGraphs(copy, fromSnapshot);
+
+		// The copies are independent of the original
+		fromSnapshot.connect(7, 14, 1);
+		copy.removeNode(7);
+		assertEquals(-1, large.getEdge(7, 14));
+		assertNotNull(large.getNode(7));
+		assertEquals(1, fromSnapshot.getEdge(14, 7));
+	}
+
 	@Test
 	void testDeepCopyConstructorNullGraph() {
 		WGraph_DS nullGraph = new WGraph_DS(null);
@@ -165,6 +218,34 @@ class WGraph_DSTest {
 		assertEquals(nodeSize-1, graph.nodeSize());
 	}
 
+	@Test
+	void testRemoveNodeFreesNeighbors() {
+		graph.removeNode(5);
+		assertFalse(graph.hasEdge(1, 5));
+		assertEquals(1, graph.getV(1).size());
+		graph.addNode(5);
+		assertNull(graph.getV(5));
+		assertFalse(graph.hasEdge(5, 2));
+	}
+
+	@Test
+	void testRemoveNodes() {
+		int mc = graph.getMC();
+		int edgeSize = graph.edgeSize();
+		int nodeSize = graph.nodeSize();
+
+		assertEquals(2, graph.removeNodes(Arrays.asList(1, 5, 5, 15)).size());
+		assertNull(graph.getNode(1));
+		assertNull(graph.getNode(5));
+		assertTrue(graph.getV(9).isEmpty());
+		assertTrue(graph.getV(2).isEmpty());
+
+		// Edges 1-9, 1-5, 2-5 and 3-5 were removed
+		assertEquals(mc+6, graph.getMC());
+		assertEquals(edgeSize-4, graph.edgeSize());
+		assertEquals(nodeSize-2, graph.nodeSize());
+	}
+
 	@Test
 	void testRemoveEdge() {
 		int mc = graph.getMC();
@@ -185,6 +266,24 @@ class WGraph_DSTest {
 		assertEquals(nodeSize, graph.nodeSize());
 	}
 
+	@Test
+	void testFreeze() {
+		weighted_graph frozen = graph.freeze();
+		assertEquals(graph.nodeSize(), frozen.nodeSize());
+		assertEquals(graph.edgeSize(), frozen.edgeSize());
+		assertEquals(graph.getMC(), frozen.getMC());
+		assertEquals(8.3, frozen.getEdge(9, 1));
+		assertTrue(frozen.hasEdge(5, 3));
+		assertFalse(frozen.hasEdge(1, 7));
+		assertEquals(3, frozen.getV(5).size());
+		assertEquals(0, frozen.getV(10).size());
+
+		// Changing the graph does not change the snapshot
+		graph.removeEdge(1, 9);
+		assertTrue(frozen.hasEdge(1, 9));
+		assertThrows(UnsupportedOperationException.class, () -> frozen.connect(1, 7, 2));
+	}
+
 	@Test
 	void testNodeInfo() {
 		node_info node = graph.getNode(1);
@@ -195,6 +294,307 @@ class WGraph_DSTest {
 		assertEquals("test info", node.getInfo());
 	}
 
+	@Test
+	void testListeners() {
+		List<String> events = new ArrayList<>();
+		graph_listener listener = recorder(events);
+		graph.addListener(listener);
+
+		graph.addNode(11);
+		graph.addNode(11);
+		graph.connect(11, 2, 1.5);
+		graph.connect(2, 11, 2.5);
+		graph.connect(11, 12, 1);
+		graph.removeEdge(2, 11);
+		graph.removeEdge(2, 11);
+		graph.removeNode(5);
+		assertEquals(Arrays.asList("nodeAdded 11", "edgeAdded 11 2 1.5", "edgeUpdated 2 11 1.5 2.5",
+				"edgeRemoved 2 11 2.5"), events.subList(0, 4));
+		// Removing a node reports its edges and then the node
+		assertEquals(4, events.size() - 4);
+		assertTrue(events.containsAll(Arrays.asList("edgeRemoved 5 2 1.0", "edgeRemoved 5 3 2.0", "edgeRemoved 5 1 0.5")));
+		assertEquals("nodeRemoved 5", events.get(events.size() - 1));
+
+		assertTrue(graph.removeListener(listener));
+		assertFalse(graph.removeListener(listener));
+		graph.addNode(13);
+		assertEquals(8, events.size());
+	}
+
+	@Test
+	void testChangeLog() {
+		WGraph_ChangeLog log = new WGraph_ChangeLog(4);
+		graph.addListener(log);
+		graph.addNode(20);
+		graph.connect(20, 0, 1);
+		assertEquals(0, log.firstSequence());
+		assertEquals(2, log.nextSequence());
+
+		List<String> events = new ArrayList<>();
+		long sequence = log.read(0, recorder(events));
+		assertEquals(2, sequence);
+		assertEquals(Arrays.asList("nodeAdded 20", "edgeAdded 20 0 1.0"), events);
+
+		graph.connect(20, 0, 3);
+		assertEquals(3, log.read(sequence, recorder(events)));
+		assertEquals("edgeUpdated 20 0 1.0 3.0", events.get(2));
+
+		// The log keeps only the last 4 changes
+		graph.removeNode(20);
+		graph.addNode(21);
+		graph.addNode(22);
+		assertEquals(3, log.firstSequence());
+		assertEquals(-1, log.read(0, recorder(events)));
+		events.clear();
+		assertEquals(7, log.read(3, recorder(events)));
+		assertEquals(Arrays.asList("edgeRemoved 20 0 3.0", "nodeRemoved 20", "nodeAdded 21", "nodeAdded 22"), events);
+		assertThrows(IllegalArgumentException.class, () -> new WGraph_ChangeLog(0));
+	}
+
+	private graph_listener recorder(List<String> events) {
+		return new graph_listener() {
+
+			@Override
+			public void nodeAdded(int key) {
+				events.add("nodeAdded " + key);
+			}
+
+			@Override
+			public void nodeRemoved(node_info node) {
+				events.add("nodeRemoved " + node.getKey());
+			}
+
+			@Override
+			public void edgeAdded(int node1, int node2, double w) {
+				events.add("edgeAdded " + node1 + " " + node2 + " " + w);
+			}
+
+			@Override
+			public void edgeUpdated(int node1, int node2, double oldWeight, double w) {
+				events.add("edgeUpdated " + node1 + " " + node2 + " " + oldWeight + " " + w);
+			}
+
+			@Override
+			public void edgeRemoved(int node1, int node2, double w) {
+				events.add("edgeRemoved " + node1 + " " + node2 + " " + w);
+			}
+		};
+	}
+
+	@Test
+	void testSnapshot() throws Exception {
+		WGraph_DS copy = new WGraph_DS(graph);
+		weighted_graph snapshot = graph.snapshot();
+		assertEqualGraphs(copy, snapshot);
+
+		// Changes after the snapshot do not show in it, even when the blocks of the graph split
+		graph.connect(0, 7, 5.5);
+		graph.connect(1, 9, 1);
+		graph.removeEdge(2, 5);
+		graph.removeNode(4);
+		for (int i = 100; i < 20000; i++) {
+			graph.addNode(i);
+			graph.connect(i, i - 1, 1);
+		}
+		assertEqualGraphs(copy, snapshot);
+		assertEquals(-1, snapshot.getEdge(0, 7));
+		assertEquals(8.3, snapshot.getEdge(9, 1));
+		assertEquals(5.5, graph.getEdge(7, 0));
+		assertNotNull(snapshot.getNode(4));
+		assertNull(graph.getNode(4));
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.connect(0, 7, 1));
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.removeNode(1));
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getV(5).clear());
+
+		// A second snapshot sees the changes, and neither moves while the graph changes in another thread
+		WGraph_DS copy2 = new WGraph_DS(graph);
+		weighted_graph snapshot2 = graph.snapshot();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Integer> components = executor.submit(() -> {
+				int count = -1;
+				for (int i = 0; i < 10; i++) {
+					count = new WGraph_Algo(snapshot2).componentCount();
+				}
+				return count;
+			});
+			Random random = new Random(3);
+			for (int i = 0; i < 20000; i++) {
+				int key = 100 + random.nextInt(19900);
+				if (i % 3 == 0) {
+					graph.removeNode(key);
+				}
+				else {
+					graph.connect(key, 100 + random.nextInt(19900), i);
+				}
+			}
+			assertEquals(new WGraph_Algo(copy2).componentCount(), components.get());
+		}
+		finally {
+			executor.shutdown();
+		}
+		assertEqualGraphs(copy2, snapshot2);
+		assertEqualGraphs(copy, snapshot);
+		assertEqualGraphs(graph, new WGraph_DS(graph));
+	}
+
+	@Test
+	void testForEachEdge() {
+		Random random = new Random(3);
+		for (int i = 0; i < 500; i++) {
+			graph.connect(random.nextInt(10), random.nextInt(10), random.nextInt(100) / 10.0);
+		}
+		graph.removeNode(4);
+		graph.addNode(100);
+		assertForEachEdge(graph);
+		assertForEachEdge(graph.snapshot());
+		assertForEachEdge(new WGraph_CSR(graph));
+		assertForEachEdge(new WGraph_Compact(graph));
+		assertForEachEdge(new WGraph_Concurrent(graph));
+
+		// No node, no call
+		graph.forEachEdge(4, (neighborKey, w) -> fail());
+		graph.forEachEdge(100, (neighborKey, w) -> fail());
+		graph.forEachEdge(10, (neighborKey, w) -> fail());
+
+		// Many connects and removals of the same edges keep the neighbor tables consistent
+		WGraph_DS churned = new WGraph_DS();
+		double[][] expected = new double[50][50];
+		for (int i = 0; i < 50; i++) {
+			churned.addNode(i);
+			Arrays.fill(expected[i], -1);
+		}
+		for (int i = 0; i < 20000; i++) {
+			int node1 = random.nextInt(50);
+			int node2 = random.nextInt(50);
+			if (node1 == node2) {
+				continue;
+			}
+			if (random.nextInt(3) == 0) {
+				churned.removeEdge(node1, node2);
+				expected[node1][node2] = expected[node2][node1] = -1;
+			}
+			else {
+				double w = random.nextInt(100) / 10.0;
+				churned.connect(node1, node2, w);
+				expected[node1][node2] = expected[node2][node1] = w;
+			}
+		}
+		for (int node1 = 0; node1 < 50; node1++) {
+			int[] degree = new int[1];
+			int key = node1;
+			churned.forEachEdge(node1, (neighborKey, w) -> {
+				assertEquals(expected[key][neighborKey], w);
+				degree[0]++;
+			});
+			for (int node2 = 0; node2 < 50; node2++) {
+				assertEquals(expected[node1][node2], churned.getEdge(node1, node2));
+				if (expected[node1][node2] != -1) {
+					degree[0]--;
+				}
+			}
+			assertEquals(0, degree[0]);
+		}
+		assertForEachEdge(churned);
+	}
+
+	@Test
+	void testDenseIndex() throws Exception {
+		assertEquals(11, graph.indexSize());
+		assertDenseIndex(graph);
+		int index = graph.indexOf(5);
+		assertEquals(-1, graph.indexOf(50));
+
+		// The index of a removed node is given to the next added node
+		graph.removeNode(5);
+		assertEquals(-1, graph.indexOf(5));
+		assertNull(graph.nodeAt(index));
+		assertDenseIndex(graph);
+		graph.addNode(50);
+		assertEquals(index, graph.indexOf(50));
+		graph.addNode(51);
+		assertEquals(11, graph.indexOf(51));
+		assertDenseIndex(graph);
+
+		graph.forEachEdgeAt(graph.indexOf(1), (neighborIndex, w) -> {
+			assertEquals(9, graph.nodeAt(neighborIndex).getKey());
+			assertEquals(8.3, w);
+		});
+		graph.forEachEdgeAt(graph.indexOf(50), (neighborIndex, w) -> fail());
+
+		// Copies keep the indexes, of a snapshot with a free index too
+		graph.removeNode(3);
+		weighted_graph snapshot = graph.snapshot();
+		for (WGraph_DS copy: Arrays.asList(new WGraph_DS(graph), new WGraph_DS(snapshot))) {
+			assertDenseIndex(copy);
+			for (node_info node: graph.getV()) {
+				assertEquals(graph.indexOf(node.getKey()), copy.indexOf(node.getKey()));
+			}
+			copy.addNode(100);
+			assertEquals(-1, graph.indexOf(100));
+			assertDenseIndex(copy);
+		}
+
+		// Built and deserialized graphs have their own indexes
+		WGraph_Builder builder = new WGraph_Builder();
+		for (int i = 0; i < 1000; i++) {
+			builder.addEdge(i * 7, (i + 1) * 7, 1);
+		}
+		assertDenseIndex(builder.build());
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(graph);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			WGraph_DS loaded = (WGraph_DS) in.readObject();
+			assertDenseIndex(loaded);
+			loaded.addNode(100);
+			assertDenseIndex(loaded);
+		}
+	}
+
+	/**
+	 * Checks that the dense indexes of the nodes are distinct, below indexSize(), and lead back to the nodes.
+	 */
+	private void assertDenseIndex(WGraph_DS g) {
+		boolean[] isUsed = new boolean[g.indexSize()];
+		for (node_info node: g.getV()) {
+			int index = g.indexOf(node.getKey());
+			assertFalse(isUsed[index]);
+			isUsed[index] = true;
+			assertSame(node, g.nodeAt(index));
+		}
+		int used = 0;
+		for (int i = 0; i < isUsed.length; i++) {
+			assertEquals(isUsed[i], g.nodeAt(i) != null);
+			used += isUsed[i] ? 1 : 0;
+		}
+		assertEquals(g.nodeSize(), used);
+	}
+
+	/**
+	 * Checks that forEachEdge visits each neighbor of getV(key) once, with the weight of getEdge.
+	 */
+	private void assertForEachEdge(weighted_graph g) {
+		for (node_info node: g.getV()) {
+			int key = node.getKey();
+			List<Integer> visited = new ArrayList<>();
+			g.forEachEdge(key, (neighborKey, w) -> {
+				assertEquals(g.getEdge(key, neighborKey), w);
+				visited.add(neighborKey);
+			});
+			List<Integer> expected = new ArrayList<>();
+			if (g.getV(key) != null) {
+				for (node_info neighbor: g.getV(key)) {
+					expected.add(neighbor.getKey());
+				}
+			}
+			visited.sort(null);
+			expected.sort(null);
+			assertEquals(expected, visited);
+		}
+	}
+
 	private void assertEqualGraphs(weighted_graph g, weighted_graph g1) {
 		for (node_info node: g.getV()) {
 			node_info node1 = g1.getNode(node.getKey());
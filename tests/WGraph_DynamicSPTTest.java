@@ -0,0 +1,182 @@
+package ex1.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_Compact;
+import ex1.src.WGraph_DS;
+import ex1.src.WGraph_DynamicSPT;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+
+class WGraph_DynamicSPTTest {
+
+	@Test
+	void testSmallGraph() {
+		WGraph_DS graph = new WGraph_DS();
+		for (int i = 0; i < 5; i++) {
+			graph.addNode(i);
+		}
+		graph.connect(0, 1, 1);
+		graph.connect(1, 2, 1);
+		graph.connect(0, 2, 5);
+		WGraph_DynamicSPT tree = new WGraph_DynamicSPT(graph, 0);
+		assertEquals(2, tree.distance(2));
+		assertEquals(-1, tree.distance(3));
+
+		tree.connect(0, 2, 0.5);
+		assertEquals(0.5, tree.distance(2));
+		tree.connect(2, 3, 1);
+		assertEquals(1.5, tree.distance(3));
+		tree.removeEdge(0, 2);
+		assertEquals(2, tree.distance(2));
+		assertEquals(3, tree.distance(3));
+		tree.connect(0, 1, 4);
+		assertEquals(6, tree.distance(3));
+		tree.removeNode(1);
+		assertEquals(-1, tree.distance(2));
+		assertNull(tree.path(3));
+		tree.addNode(7);
+		tree.connect(0, 7, 1);
+		tree.connect(7, 3, 1);
+		assertEquals(4, tree.path(2).size());
+		assertEquals(3, tree.distance(2));
+	}
+
+	@Test
+	void testMatchesDijkstra() {
+		// Through the tree on a graph without listeners
+		WGraph_Compact compact = new WGraph_Compact();
+		randomUpdates(compact, new WGraph_DynamicSPT(compact, 0), false);
+	}
+
+	@Test
+	void testListensToGraph() {
+		// Directly on the graph, the tree listens to its changes
+		WGraph_DS graph = new WGraph_DS();
+		WGraph_DynamicSPT tree = new WGraph_DynamicSPT(graph, 0);
+		randomUpdates(graph, tree, true);
+
+		tree.detach();
+		graph.addNode(5000);
+		graph.connect(0, 5000, 1);
+		assertEquals(-1, tree.distance(5000));
+	}
+
+	@Test
+	void testForgottenTreeIsCollected() {
+		WGraph_DS graph = TestGraphs.randomGraph(100, 300, 4);
+		WeakReference<WGraph_DynamicSPT> tree = new WeakReference<>(new WGraph_DynamicSPT(graph, 0));
+		for (int i = 0; i < 10 && tree.get() != null; i++) {
+			System.gc();
+		}
+		// The graph does not keep the tree alive, and changes after it was collected are fine
+		assertNull(tree.get());
+		graph.connect(0, 99, 0.5);
+		graph.removeNode(1);
+	}
+
+	@Test
+	void testDetachedWGraph_DS() {
+		// Through the tree on a WGraph_DS, whose node indexes are the slots of the tree
+		WGraph_DS graph = new WGraph_DS();
+		WGraph_DynamicSPT tree = new WGraph_DynamicSPT(graph, 0);
+		tree.detach();
+		randomUpdates(graph, tree, false);
+	}
+
+	private void randomUpdates(weighted_graph graph, WGraph_DynamicSPT tree, boolean isDirect) {
+		Random random = new Random(21);
+		int nodeSize = 200;
+		for (int i = 0; i < nodeSize; i++) {
+			tree.addNode(i);
+		}
+		while (graph.edgeSize() < 500) {
+			tree.connect(random.nextInt(nodeSize), random.nextInt(nodeSize), 1 + random.nextInt(20));
+		}
+		assertMatches(graph, tree);
+		for (int update = 0; update < 400; update++) {
+			int node1 = random.nextInt(nodeSize + 10);
+			int node2 = random.nextInt(nodeSize);
+			int operation = random.nextInt(10);
+			if (operation < 5) {
+				if (isDirect) {
+					graph.connect(node1, node2, random.nextInt(20));
+				}
+				else {
+					tree.connect(node1, node2, random.nextInt(20));
+				}
+			}
+			else if (operation < 9) {
+				if (isDirect) {
+					graph.removeEdge(node1, node2);
+				}
+				else {
+					tree.removeEdge(node1, node2);
+				}
+			}
+			else if (node1 != 0) {
+				if (isDirect) {
+					graph.removeNode(node1);
+					graph.addNode(node1);
+				}
+				else {
+					tree.removeNode(node1);
+					tree.addNode(node1);
+				}
+			}
+			assertMatches(graph, tree);
+		}
+	}
+
+	@Test
+	void testLocalRepair() {
+		// A long path 0-1-...-999 with a short branch at its end
+		WGraph_DS graph = new WGraph_DS();
+		for (int i = 0; i < 1003; i++) {
+			graph.addNode(i);
+		}
+		for (int i = 1; i < 1000; i++) {
+			graph.connect(i - 1, i, 1);
+		}
+		graph.connect(999, 1000, 1);
+		graph.connect(1000, 1001, 1);
+		graph.connect(999, 1002, 1);
+		WGraph_DynamicSPT tree = new WGraph_DynamicSPT(graph, 0);
+
+		tree.connect(999, 1000, 3);
+		assertTrue(tree.getLastRepairSize() <= 2);
+		assertEquals(1003, tree.distance(1001));
+		tree.connect(1002, 1001, 0.5);
+		assertTrue(tree.getLastRepairSize() <= 2);
+		assertEquals(1000.5, tree.distance(1001));
+		tree.removeEdge(0, 1);
+		assertEquals(-1, tree.distance(1001));
+	}
+
+	private void assertMatches(weighted_graph graph, WGraph_DynamicSPT tree) {
+		WGraph_Algo algoGraph = new WGraph_Algo(graph);
+		for (node_info node: graph.getV()) {
+			double expected = algoGraph.shortestPathDist(0, node.getKey());
+			assertEquals(expected, tree.distance(node.getKey()), 1e-9);
+			List<node_info> path = tree.path(node.getKey());
+			if (expected < 0) {
+				assertNull(path);
+				continue;
+			}
+			double weight = 0;
+			for (int i = 1; i < path.size(); i++) {
+				weight += graph.getEdge(path.get(i - 1).getKey(), path.get(i).getKey());
+			}
+			assertEquals(expected, weight, 1e-9);
+		}
+	}
+}
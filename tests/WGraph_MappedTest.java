@@ -0,0 +1,185 @@
+package ex1.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ex1.src.LandmarkHeuristic;
+import ex1.src.ShortestPathTree;
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_CH;
+import ex1.src.WGraph_DS;
+import ex1.src.WGraph_File;
+import ex1.src.WGraph_Mapped;
+import ex1.src.node_info;
+
+class WGraph_MappedTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testMatchesSavedGraph() throws IOException {
+		WGraph_DS graph = TestGraphs.randomGraph(300, 1200, 5);
+		graph.getNode(7).setInfo("seven");
+		graph.getNode(8).setTag(3.5);
+		graph.addNode(-4);
+		WGraph_File.write(graph, file("mappedFile"));
+		WGraph_Mapped mapped = new WGraph_Mapped(file("mappedFile"));
+
+		assertEquals(graph.nodeSize(), mapped.nodeSize());
+		assertEquals(graph.edgeSize(), mapped.edgeSize());
+		assertEquals(graph.getMC(), mapped.getMC());
+		assertEquals(graph.nodeSize(), mapped.getV().size());
+		for (node_info node: graph.getV()) {
+			node_info view = mapped.getNode(node.getKey());
+			assertEquals(node.getKey(), view.getKey());
+			assertEquals(node.getTag(), view.getTag());
+			assertEquals(node.getInfo(), view.getInfo());
+			assertEquals(view, mapped.getNode(node.getKey()));
+			int degree = graph.getV(node.getKey()) == null ? 0 : graph.getV(node.getKey()).size();
+			assertEquals(degree, mapped.getV(node.getKey()).size());
+			for (node_info neighbor: mapped.getV(node.getKey())) {
+				assertEquals(graph.getEdge(node.getKey(), neighbor.getKey()),
+						mapped.getEdge(node.getKey(), neighbor.getKey()));
+				assertTrue(mapped.hasEdge(neighbor.getKey(), node.getKey()));
+			}
+			int[] visited = new int[1];
+			mapped.forEachEdge(node.getKey(), (neighborKey, w) -> {
+				assertEquals(graph.getEdge(node.getKey(), neighborKey), w);
+				visited[0]++;
+			});
+			assertEquals(degree, visited[0]);
+			int index = mapped.indexOf(node.getKey());
+			assertEquals(view, mapped.nodeAt(index));
+			visited[0] = 0;
+			mapped.forEachEdgeAt(index, (neighborIndex, w) -> {
+				assertEquals(graph.getEdge(node.getKey(), mapped.nodeAt(neighborIndex).getKey()), w);
+				visited[0]++;
+			});
+			assertEquals(degree, visited[0]);
+		}
+		assertEquals(graph.nodeSize(), mapped.indexSize());
+		assertNull(mapped.nodeAt(mapped.indexSize()));
+		assertNull(mapped.getNode(1000));
+		assertNull(mapped.getV(1000));
+		assertFalse(mapped.hasEdge(7, 7));
+		assertEquals(-1, mapped.getEdge(-4, 7));
+	}
+
+	@Test
+	void testAlgorithms() throws IOException {
+		WGraph_DS graph = TestGraphs.randomGraph(400, 1000, 9);
+		WGraph_File.write(graph, file("mappedFile"));
+		WGraph_Algo mappedAlgo = new WGraph_Algo(new WGraph_Mapped(file("mappedFile")));
+		WGraph_Algo algoGraph = new WGraph_Algo(graph);
+		assertEquals(algoGraph.isConnected(), mappedAlgo.isConnected());
+		assertArrayEquals(algoGraph.componentSizes(), mappedAlgo.componentSizes());
+		assertEquals(algoGraph.sameComponent(1, 2), mappedAlgo.sameComponent(1, 2));
+		for (int dest = 0; dest < 400; dest += 37) {
+			assertEquals(algoGraph.shortestPathDist(1, dest), mappedAlgo.shortestPathDist(1, dest));
+			List<node_info> path = algoGraph.shortestPath(1, dest);
+			List<node_info> mappedPath = mappedAlgo.shortestPath(1, dest);
+			assertEquals(keys(path), keys(mappedPath));
+		}
+	}
+
+	@Test
+	void testQueriesInPlace() throws IOException {
+		WGraph_DS graph = TestGraphs.randomGraph(300, 900, 4);
+		WGraph_File.write(graph, file("mappedFile"));
+		WGraph_Mapped mapped = new WGraph_Mapped(file("mappedFile"));
+		WGraph_Algo mappedAlgo = new WGraph_Algo(mapped);
+		WGraph_Algo algoGraph = new WGraph_Algo(graph);
+
+		ShortestPathTree tree = algoGraph.shortestPathTree(3);
+		ShortestPathTree mappedTree = mappedAlgo.shortestPathTree(3);
+		int[] sources = {3, 50, 120};
+		int[] targets = new int[30];
+		for (int i = 0; i < targets.length; i++) {
+			targets[i] = i * 10;
+			assertEquals(tree.distance(targets[i]), mappedTree.distance(targets[i]));
+			assertEquals(keys(tree.path(targets[i])), keys(mappedTree.path(targets[i])));
+		}
+		assertArrayEquals(algoGraph.distanceMatrix(sources, targets), mappedAlgo.distanceMatrix(sources, targets));
+
+		LandmarkHeuristic landmarks = algoGraph.landmarkHeuristic(4);
+		LandmarkHeuristic mappedLandmarks = mappedAlgo.landmarkHeuristic(4);
+		assertArrayEquals(landmarks.getLandmarks(), mappedLandmarks.getLandmarks());
+		WGraph_CH hierarchy = new WGraph_CH(graph);
+		WGraph_CH mappedHierarchy = new WGraph_CH(mapped);
+		assertEquals(hierarchy.shortcutSize(), mappedHierarchy.shortcutSize());
+		assertTrue(mappedHierarchy.save(file("mappedFile" + WGraph_CH.FILE_SUFFIX)));
+		WGraph_CH loaded = WGraph_CH.load(file("mappedFile" + WGraph_CH.FILE_SUFFIX), graph);
+		for (int dest = 0; dest < 300; dest += 23) {
+			double distance = algoGraph.shortestPathDist(3, dest);
+			assertEquals(distance, mappedAlgo.shortestPathDist(3, dest, mappedLandmarks));
+			assertEquals(distance, mappedHierarchy.shortestPathDist(3, dest));
+			assertEquals(distance, loaded.shortestPathDist(3, dest));
+			assertEquals(keys(algoGraph.shortestPath(3, dest, landmarks)),
+					keys(mappedAlgo.shortestPath(3, dest, mappedLandmarks)));
+			assertEquals(keys(hierarchy.shortestPath(3, dest)), keys(mappedHierarchy.shortestPath(3, dest)));
+		}
+
+		algoGraph.setBidirectional(true);
+		mappedAlgo.setBidirectional(true);
+		for (int dest = 0; dest < 300; dest += 29) {
+			assertEquals(algoGraph.shortestPathDist(5, dest), mappedAlgo.shortestPathDist(5, dest));
+			assertEquals(keys(algoGraph.shortestPath(5, dest)), keys(mappedAlgo.shortestPath(5, dest)));
+		}
+		algoGraph.setBidirectional(false);
+		mappedAlgo.setCache(64, 4);
+		for (int round = 0; round < 10; round++) {
+			for (int dest = 0; dest < 300; dest += 31) {
+				assertEquals(algoGraph.shortestPathDist(7, dest), mappedAlgo.shortestPathDist(7, dest));
+				assertEquals(keys(algoGraph.shortestPath(7, dest)), keys(mappedAlgo.shortestPath(7, dest)));
+			}
+		}
+		assertTrue(mappedAlgo.getCacheHits() > 0);
+
+		assertTrue(algoGraph.exportEdgeList(file("edgeList.csv")));
+		assertTrue(mappedAlgo.exportEdgeList(file("mappedEdgeList.csv")));
+		assertArrayEquals(Files.readAllBytes(directory.resolve("edgeList.csv")),
+				Files.readAllBytes(directory.resolve("mappedEdgeList.csv")));
+	}
+
+	@Test
+	void testReadOnly() throws IOException {
+		WGraph_File.write(TestGraphs.randomGraph(10, 20, 1), file("mappedFile"));
+		WGraph_Mapped mapped = new WGraph_Mapped(file("mappedFile"));
+		assertThrows(UnsupportedOperationException.class, () -> mapped.addNode(20));
+		assertThrows(UnsupportedOperationException.class, () -> mapped.connect(1, 2, 1));
+		assertThrows(UnsupportedOperationException.class, () -> mapped.removeNode(1));
+		assertThrows(UnsupportedOperationException.class, () -> mapped.removeEdge(1, 2));
+		assertThrows(UnsupportedOperationException.class, () -> mapped.getNode(1).setTag(1));
+		assertThrows(IOException.class, () -> new WGraph_Mapped(file("missingFile")));
+	}
+
+	private String file(String name) {
+		return directory.resolve(name).toString();
+	}
+
+	private List<Integer> keys(List<node_info> path) {
+		if (path == null) {
+			return null;
+		}
+		List<Integer> keys = new ArrayList<>();
+		for (node_info node: path) {
+			keys.add(node.getKey());
+		}
+		return keys;
+	}
+
+}